@@ -0,0 +1,110 @@
+package com.figaf.integration.apimgmt.benchmark;
+
+import com.figaf.integration.apimgmt.entity.KeyMapEntryValueOperation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates OData responses and key map operations of the requested size which look like the ones returned by API Management.
+ */
+public final class ODataFixtures {
+
+    private static final String SERVICE_ROOT = "https://tenant.apimanagement.hana.ondemand.com/apiportal/api/1.0/Management.svc/";
+    private static final long BASE_TIMESTAMP = 1700000000000L;
+
+    private ODataFixtures() {
+    }
+
+    public static byte[] apiProxies(int size) {
+        StringBuilder body = new StringBuilder(size * 900);
+        body.append("{\"d\":{\"results\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            String name = "ApiProxy" + i;
+            body.append("{\"__metadata\":{\"id\":\"").append(SERVICE_ROOT).append("APIProxies('").append(name)
+                    .append("')\",\"uri\":\"").append(SERVICE_ROOT).append("APIProxies('").append(name)
+                    .append("')\",\"type\":\"apiportal.APIProxy\"},")
+                    .append("\"name\":\"").append(name).append("\",")
+                    .append("\"title\":\"Api proxy ").append(i).append("\",")
+                    .append("\"version\":\"1\",")
+                    .append("\"state\":\"").append(i % 3 == 0 ? "DEPRECATED" : "ACTIVE").append("\",")
+                    .append("\"service_code\":\"").append(i % 2 == 0 ? "REST" : "ODATA").append("\",")
+                    .append("\"hasChanges\":").append(i % 5 == 0).append(',')
+                    .append("\"isVersioned\":\"false\",")
+                    .append("\"description\":\"Generated api proxy number ").append(i).append(" used for benchmarks\",")
+                    .append("\"life_cycle\":{\"__metadata\":{\"type\":\"apiportal.History\"},")
+                    .append("\"changed_at\":\"/Date(").append(BASE_TIMESTAMP + i * 1000L).append(")/\",")
+                    .append("\"changed_by\":\"developer").append(i % 7).append("\",")
+                    .append("\"created_at\":\"/Date(").append(BASE_TIMESTAMP - i * 1000L).append(")/\",")
+                    .append("\"created_by\":\"developer").append(i % 11).append("\"},")
+                    .append("\"proxyEndPoints\":{\"__deferred\":{\"uri\":\"").append(SERVICE_ROOT).append("APIProxies('").append(name).append("')/proxyEndPoints\"}},")
+                    .append("\"targetEndPoints\":{\"__deferred\":{\"uri\":\"").append(SERVICE_ROOT).append("APIProxies('").append(name).append("')/targetEndPoints\"}},")
+                    .append("\"policies\":{\"__deferred\":{\"uri\":\"").append(SERVICE_ROOT).append("APIProxies('").append(name).append("')/policies\"}}}");
+        }
+        body.append("]}}");
+        return body.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] keyMapEntries(int size) {
+        StringBuilder body = new StringBuilder(size * 400);
+        body.append("{\"d\":{\"results\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            String name = "KeyMap" + i;
+            body.append("{\"__metadata\":{\"id\":\"").append(SERVICE_ROOT).append("KeyMapEntries('").append(name)
+                    .append("')\",\"type\":\"apiportal.KeyMapEntry\"},")
+                    .append("\"name\":\"").append(name).append("\",")
+                    .append("\"scope\":\"ENV\",")
+                    .append("\"encrypted\":").append(i % 4 == 0).append(',')
+                    .append("\"life_cycle\":{\"__metadata\":{\"type\":\"apiportal.History\"},")
+                    .append("\"changed_at\":\"/Date(").append(BASE_TIMESTAMP + i * 1000L).append("+0060)/\",")
+                    .append("\"changed_by\":\"developer").append(i % 7).append("\",")
+                    .append("\"created_at\":\"/Date(").append(BASE_TIMESTAMP - i * 1000L).append(")/\",")
+                    .append("\"created_by\":\"developer").append(i % 11).append("\"},")
+                    .append("\"keyMapEntryValues\":{\"__deferred\":{\"uri\":\"").append(SERVICE_ROOT).append("KeyMapEntries('").append(name).append("')/keyMapEntryValues\"}}}");
+        }
+        body.append("]}}");
+        return body.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] keyMapEntryValues(String keyMapEntry, int size) {
+        StringBuilder body = new StringBuilder(size * 250);
+        body.append("{\"d\":{\"results\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append("{\"__metadata\":{\"id\":\"").append(SERVICE_ROOT).append("KeyMapEntryValues(map_name='").append(keyMapEntry)
+                    .append("',name='key").append(i).append("')\",\"type\":\"apiportal.KeyMapEntryValue\"},")
+                    .append("\"map_name\":\"").append(keyMapEntry).append("\",")
+                    .append("\"name\":\"key").append(i).append("\",")
+                    .append("\"value\":\"value of key ").append(i).append("\"}");
+        }
+        body.append("]}}");
+        return body.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Equal number of additions, updates and deletions.
+     */
+    public static List<KeyMapEntryValueOperation> keyMapEntryValueOperations(String keyMapEntry, int size) {
+        List<KeyMapEntryValueOperation> operations = new ArrayList<>(size);
+        KeyMapEntryValueOperation.Type[] types = KeyMapEntryValueOperation.Type.values();
+        for (int i = 0; i < size; i++) {
+            KeyMapEntryValueOperation.Type type = types[i % types.length];
+            operations.add(new KeyMapEntryValueOperation(
+                    type,
+                    keyMapEntry,
+                    "key " + i,
+                    type == KeyMapEntryValueOperation.Type.DELETE ? null : "value of key " + i
+            ));
+        }
+        return operations;
+    }
+}
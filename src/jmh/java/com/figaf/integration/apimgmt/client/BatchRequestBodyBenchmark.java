@@ -0,0 +1,41 @@
+package com.figaf.integration.apimgmt.client;
+
+import com.figaf.integration.apimgmt.benchmark.ODataFixtures;
+import com.figaf.integration.apimgmt.entity.KeyMapEntryValueOperation;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates the $batch body and streams it to nowhere, the same way the http client reads it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchRequestBodyBenchmark {
+
+    private static final String BODY_SEPARATOR = "batch_36522ad7-fc75-4b56-8c71-56071383e77b";
+
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    private List<List<KeyMapEntryValueOperation>> changeSets;
+
+    @Setup
+    public void setUp() {
+        changeSets = Collections.singletonList(ODataFixtures.keyMapEntryValueOperations("BenchmarkKeyMap", size));
+    }
+
+    @Benchmark
+    public long prepareRequestBodyForUpdatingKeyMap() throws IOException {
+        return StreamUtils.copy(KeyMapEntriesClient.prepareRequestBodyForUpdatingKeyMap(BODY_SEPARATOR, changeSets).getInputStream(), OutputStream.nullOutputStream());
+    }
+}
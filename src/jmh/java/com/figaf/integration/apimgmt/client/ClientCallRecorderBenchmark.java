@@ -0,0 +1,48 @@
+package com.figaf.integration.apimgmt.client;
+
+import com.figaf.integration.common.entity.RequestContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Measures the cost which {@link ClientCallRecorder} adds to a call with a parsed response,
+ * with the default {@link ClientMetricsListener#NONE} and with an enabled listener.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientCallRecorderBenchmark {
+
+    private static final Function<String, Integer> RESPONSE_PARSER = String::length;
+
+    @Param({"false", "true"})
+    private boolean metricsEnabled;
+
+    private final ClientCallRecorder clientCallRecorder = new ClientCallRecorder();
+    private final RequestContext requestContext = new RequestContext();
+    private final String responseBody = "{\"d\":{\"results\":[]}}";
+
+    @Setup
+    public void setUp() {
+        clientCallRecorder.setClientMetricsListener(metricsEnabled ? clientCallMetrics -> { } : ClientMetricsListener.NONE);
+    }
+
+    @Benchmark
+    public Integer directCall() {
+        return RESPONSE_PARSER.apply(responseBody);
+    }
+
+    @Benchmark
+    public Integer recordedCall() {
+        return clientCallRecorder.record(
+                "benchmark",
+                requestContext,
+                () -> clientCallRecorder.parsing(RESPONSE_PARSER).apply(responseBody)
+        );
+    }
+}
@@ -0,0 +1,32 @@
+package com.figaf.integration.apimgmt.response_parser;
+
+import com.figaf.integration.apimgmt.benchmark.ODataFixtures;
+import com.figaf.integration.apimgmt.entity.ApiProxyMetaData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiProxyObjectParserBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    private byte[] apiProxies;
+
+    @Setup
+    public void setUp() {
+        apiProxies = ODataFixtures.apiProxies(size);
+    }
+
+    @Benchmark
+    public List<ApiProxyMetaData> buildApiProxyMetaDataList() {
+        return ApiProxyObjectParser.buildApiProxyMetaDataList(apiProxies);
+    }
+}
@@ -0,0 +1,40 @@
+package com.figaf.integration.apimgmt.response_parser;
+
+import com.figaf.integration.apimgmt.benchmark.ODataFixtures;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyMapEntriesParserBenchmark {
+
+    private static final String KEY_MAP_ENTRY = "BenchmarkKeyMap";
+
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    private byte[] keyMapEntries;
+    private byte[] keyMapEntryValues;
+
+    @Setup
+    public void setUp() {
+        keyMapEntries = ODataFixtures.keyMapEntries(size);
+        keyMapEntryValues = ODataFixtures.keyMapEntryValues(KEY_MAP_ENTRY, size);
+    }
+
+    @Benchmark
+    public void parseKeyMapEntryMetaDataPage(Blackhole blackhole) {
+        KeyMapEntriesParser.parseKeyMapEntryMetaDataPage(keyMapEntries, blackhole::consume);
+    }
+
+    @Benchmark
+    public void parseKeyMapEntryValues(Blackhole blackhole) {
+        KeyMapEntriesParser.parseKeyMapEntryValues(KEY_MAP_ENTRY, keyMapEntryValues, blackhole::consume);
+    }
+}
@@ -0,0 +1,38 @@
+package com.figaf.integration.apimgmt.response_parser;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding of a single {@code /Date(...)/} literal with the regex based conversion used by the parsers before.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ODataDateParserBenchmark {
+
+    @Param({"/Date(1700000000000)/", "/Date(1700000000000+0060)/"})
+    private String date;
+
+    private char[] dateCharacters;
+
+    @Setup
+    public void setUp() {
+        dateCharacters = date.toCharArray();
+    }
+
+    @Benchmark
+    public long parseMillis() {
+        return ODataDateParser.parseMillis(dateCharacters, 0, dateCharacters.length);
+    }
+
+    @Benchmark
+    public Timestamp parseTimestampWithRegex() {
+        return new Timestamp(Long.parseLong(date.replaceAll("[^0-9]", "")));
+    }
+}
@@ -0,0 +1,12 @@
+package com.figaf.integration.apimgmt.client;
+
+import java.io.IOException;
+
+/**
+ * Receives downloaded API proxy bundles. It's called concurrently from several threads during bulk downloads.
+ */
+@FunctionalInterface
+public interface ApiProxyBundleSink {
+
+    void accept(String apiProxyName, byte[] bundledApiProxy) throws IOException;
+}
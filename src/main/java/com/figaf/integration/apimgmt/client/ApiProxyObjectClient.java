@@ -1,24 +1,54 @@
 package com.figaf.integration.apimgmt.client;
 
+import com.figaf.integration.apimgmt.entity.ApiProxyInnerObjects;
 import com.figaf.integration.apimgmt.entity.ApiProxyMetaData;
+import com.figaf.integration.apimgmt.entity.BulkOperationResult;
+import com.figaf.integration.apimgmt.entity.MetaDataChanges;
 import com.figaf.integration.apimgmt.response_parser.ApiProxyObjectParser;
+import com.figaf.integration.apimgmt.utils.ApiProxyBundleDigest;
+import com.figaf.integration.apimgmt.utils.Base64EncodedResource;
+import com.figaf.integration.apimgmt.utils.ExecutorUtils;
 import com.figaf.integration.common.client.BaseClient;
-import com.figaf.integration.common.entity.AuthenticationType;
 import com.figaf.integration.common.entity.RequestContext;
 import com.figaf.integration.common.exception.ClientIntegrationException;
 import com.figaf.integration.common.factory.HttpClientsFactory;
+import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.core.io.Resource;
 import org.springframework.http.*;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.Base64;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static com.figaf.integration.apimgmt.utils.RequestContextUtils.getTenantKey;
 import static com.figaf.integration.common.entity.AuthenticationType.OAUTH;
 import static java.lang.String.format;
 import static org.springframework.http.HttpMethod.DELETE;
@@ -31,184 +61,928 @@ import static org.springframework.http.HttpStatus.NOT_FOUND;
 @Slf4j
 public class ApiProxyObjectClient extends BaseClient {
 
+    private static final String MANAGEMENT_SERVICE_ROOT = "/apiportal/api/1.0/Management.svc/";
     private static final String API_PROXIES = "/apiportal/api/1.0/Management.svc/APIProxies?$format=json";
+    // $top/$skip pages are stable only in a fixed order
+    private static final String API_PROXIES_ORDERED_BY_NAME = API_PROXIES + "&$orderby=name";
     private static final String API_PROXIES_WITH_NAME = "/apiportal/api/1.0/Management.svc/APIProxies('%s')";
     private static final String API_PROXY_WITH_INNER_OBJECTS_METADATA = "/apiportal/api/1.0/Management.svc/APIProxies('%s')?$format=json";
     private static final String API_PROXIES_TRANSPORT_WITH_NAME = "/apiportal/api/1.0/Transport.svc/APIProxies?name=%s";
     private static final String API_PROXIES_TRANSPORT = "/apiportal/api/1.0/Transport.svc/APIProxies";
+    // small request which is used only to get CSRF token and session for streaming calls
+    private static final String API_PROXIES_TOKEN = "/apiportal/api/1.0/Management.svc/APIProxies?$top=1&$format=json";
+    private static final String API_PROXIES_LATEST_CHANGE = "/apiportal/api/1.0/Management.svc/APIProxies?$format=json&$top=1&$orderby=life_cycle/changed_at desc&$inlinecount=allpages";
+
+    private static final int DEFAULT_MAX_CONCURRENT_DOWNLOADS_PER_TENANT = 8;
+    // expanded API proxies are big, so they are requested in smaller pages than plain listings
+    private static final int DEFAULT_INNER_OBJECTS_PAGE_SIZE = 50;
+    private static final long DOWNLOAD_TRANSFER_CHUNK_SIZE = 1024 * 1024;
+
+    private final ConcurrentMap<String, DownloadPermits> tenantToDownloadPermits = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, UploadedBundleDigest> apiProxyToUploadedBundleDigest = new ConcurrentHashMap<>();
+    private volatile int maxConcurrentDownloadsPerTenant = DEFAULT_MAX_CONCURRENT_DOWNLOADS_PER_TENANT;
+    private volatile MetaDataCache metaDataCache;
+    private final ChangedSinceLoader changedSinceLoader = new ChangedSinceLoader();
+    private final ClientCallRecorder clientCallRecorder = new ClientCallRecorder();
+    private final CsrfTokenCache csrfTokenCache = new CsrfTokenCache();
+    private volatile TenantRateLimiter tenantRateLimiter = new TenantRateLimiter();
+    private volatile RequestCoalescer requestCoalescer;
 
     public ApiProxyObjectClient(HttpClientsFactory httpClientsFactory) {
         super(httpClientsFactory);
     }
 
+    /**
+     * Limits the number of bundles downloaded simultaneously from one tenant by all bulk downloads of this client.
+     * Running downloads keep their permits, when the limit is decreased new downloads wait until enough of them finish.
+     */
+    public void setMaxConcurrentDownloadsPerTenant(int maxConcurrentDownloadsPerTenant) {
+        if (maxConcurrentDownloadsPerTenant <= 0) {
+            throw new IllegalArgumentException("maxConcurrentDownloadsPerTenant must be positive: " + maxConcurrentDownloadsPerTenant);
+        }
+        this.maxConcurrentDownloadsPerTenant = maxConcurrentDownloadsPerTenant;
+        // permits of a tenant created concurrently with the old limit are resized by runBulkDownload
+        tenantToDownloadPermits.values().forEach(downloadPermits -> downloadPermits.resize(maxConcurrentDownloadsPerTenant));
+    }
+
+    /**
+     * Enables caching of {@link #getApiObjectMetaData(RequestContext)} results, {@code null} disables it.
+     */
+    public void setMetaDataCache(MetaDataCache metaDataCache) {
+        this.metaDataCache = metaDataCache;
+    }
+
+    /**
+     * Reports latency, response size, parse time, retries and status code of every call, {@code null} disables the measuring.
+     */
+    public void setClientMetricsListener(ClientMetricsListener clientMetricsListener) {
+        clientCallRecorder.setClientMetricsListener(clientMetricsListener);
+    }
+
+    /**
+     * Replaces the default rate limiter of this client, one limiter can be shared by clients working with the same tenants.
+     * {@code null} disables the rate limiting and retries of throttled requests.
+     */
+    public void setTenantRateLimiter(TenantRateLimiter tenantRateLimiter) {
+        this.tenantRateLimiter = tenantRateLimiter;
+    }
+
+    /**
+     * Enables sharing of in-flight metadata and value reads between concurrent identical calls, {@code null} disables it.
+     */
+    public void setRequestCoalescer(RequestCoalescer requestCoalescer) {
+        this.requestCoalescer = requestCoalescer;
+    }
+
     public List<ApiProxyMetaData> getApiObjectMetaData(RequestContext requestContext) {
         log.debug("#getApiObjectMetaData(RequestContext requestContext): {}", requestContext);
-        AuthenticationType authenticationType = requestContext.getAuthenticationType();
-        if (OAUTH.equals(authenticationType)) {
-            return executeGetPublicApiAndReturnResponseBody(
-                    requestContext,
-                    API_PROXIES,
-                    ApiProxyObjectParser::buildApiProxyMetaDataList
-            );
-        }
-        return executeGet(
+        return clientCallRecorder.record("getApiObjectMetaData", requestContext, () -> executeCoalesced(
+                requestContext,
+                "getApiObjectMetaData",
+                API_PROXIES,
+                () -> {
+                    MetaDataCache metaDataCache = this.metaDataCache;
+                    if (metaDataCache != null) {
+                        return metaDataCache.get(
+                                requestContext,
+                                API_PROXIES,
+                                eTag -> getApiObjectMetaDataListing(requestContext, eTag),
+                                () -> getLatestChangedApiObjectMetaData(requestContext),
+                                ApiProxyMetaData::getModificationDate,
+                                ApiProxyMetaData::new
+                        );
+                    }
+                    return getApiObjectMetaDataList(requestContext, API_PROXIES);
+                },
+                ApiProxyObjectClient::copyApiProxyMetaDataList
+        ));
+    }
+
+    /**
+     * Returns API proxies changed after the {@code watermark} ({@code null} returns all of them) together with the new watermark.
+     * The filter is executed by the server if it supports {@code $filter} on {@code life_cycle/changed_at}, otherwise on the client side.
+     */
+    public MetaDataChanges<ApiProxyMetaData> getApiObjectMetaDataChangedSince(RequestContext requestContext, Instant watermark) {
+        log.debug("#getApiObjectMetaDataChangedSince(RequestContext requestContext, Instant watermark): {}, {}", requestContext, watermark);
+        return clientCallRecorder.record("getApiObjectMetaDataChangedSince", requestContext, () -> changedSinceLoader.load(
                 requestContext,
                 API_PROXIES,
-                ApiProxyObjectParser::buildApiProxyMetaDataList
+                watermark,
+                path -> getApiObjectMetaDataList(requestContext, path),
+                ApiProxyMetaData::getModificationDate
+        ));
+    }
+
+    /**
+     * @return total count of API proxies, {@code null} if the server doesn't return it
+     */
+    Long getApiObjectCount(RequestContext requestContext) {
+        return clientCallRecorder.record("getApiObjectCount", requestContext, () -> getLatestChangedApiObjectMetaData(requestContext).getTotalCount());
+    }
+
+    public Stream<ApiProxyMetaData> streamApiObjectMetaData(RequestContext requestContext, int pageSize) {
+        return streamApiObjectMetaData(requestContext, pageSize, ExecutorUtils.getDefaultExecutor());
+    }
+
+    /**
+     * Returns a lazily evaluated stream of API proxies which are loaded from the server by pages of {@code pageSize} elements.
+     * The next page is prefetched on the {@code executor} while the current one is being consumed.
+     * The stream should be closed if it's not consumed till the end, so that the pending prefetch is cancelled.
+     */
+    public Stream<ApiProxyMetaData> streamApiObjectMetaData(RequestContext requestContext, int pageSize, Executor executor) {
+        log.debug("#streamApiObjectMetaData(RequestContext requestContext, int pageSize, Executor executor): {}, {}", requestContext, pageSize);
+        return ODataPageSpliterator.stream(
+                API_PROXIES_ORDERED_BY_NAME,
+                MANAGEMENT_SERVICE_ROOT,
+                pageSize,
+                path -> clientCallRecorder.record("streamApiObjectMetaData", requestContext, () -> getApiObjectMetaDataPage(requestContext, path)),
+                executor
         );
     }
 
     public ApiProxyMetaData getApiObjectMetaData(RequestContext requestContext, String apiProxyName) {
         log.debug("#getApiObjectMetaData(RequestContext requestContext, String apiProxyName): {}, {}", requestContext, apiProxyName);
-        ApiProxyMetaData apiProxyMetaData = null;
-        try {
+        return clientCallRecorder.record("getApiObjectMetaDataByName", requestContext, () -> executeCoalesced(
+                requestContext,
+                "getApiObjectMetaDataByName",
+                format(API_PROXY_WITH_INNER_OBJECTS_METADATA, apiProxyName),
+                () -> {
+                    ApiProxyMetaData apiProxyMetaData = null;
+                    try {
+                        if (OAUTH.equals(requestContext.getAuthenticationType())) {
+                            apiProxyMetaData = executeThrottled(requestContext, HttpMethod.GET, () -> executeGetPublicApiAndReturnResponseBody(
+                                    requestContext,
+                                    format(API_PROXY_WITH_INNER_OBJECTS_METADATA, apiProxyName),
+                                    clientCallRecorder.parsing(ApiProxyObjectParser::buildApiProxyMetaData)
+                            ));
+                        } else {
+                            apiProxyMetaData = executeThrottled(requestContext, HttpMethod.GET, () -> executeGet(
+                                    requestContext,
+                                    format(API_PROXY_WITH_INNER_OBJECTS_METADATA, apiProxyName),
+                                    clientCallRecorder.parsing(ApiProxyObjectParser::buildApiProxyMetaData)
+                            ));
+                        }
+                    } catch (HttpStatusCodeException ex) {
+                        //this case happens when we try to get non existing object on cloud foundry system and
+                        //we didn't make Auth request for current 'restTemplateWrapperKey' before
+                        if (!NOT_FOUND.equals(ex.getStatusCode())) {
+                            throw ex;
+                        }
+                    } catch (ClientIntegrationException ex) {
+                        //this case happens when we try to get non existing object on cloud foundry system and
+                        //we made Auth request for current 'restTemplateWrapperKey' before
+                        if (!(ex.getCause() instanceof HttpStatusCodeException) ||
+                            !NOT_FOUND.equals(((HttpStatusCodeException)ex.getCause()).getStatusCode())
+                        ) {
+                            throw ex;
+                        }
+                    }
+                    return apiProxyMetaData;
+                },
+                ApiProxyMetaData::new
+        ));
+    }
+
+    public Map<String, ApiProxyMetaData> getApiObjectMetaDataForInnerObjects(RequestContext requestContext, String apiProxyName, Set<String> innerObjectNames) {
+        log.debug("#getApiObjectMetaDataWithInnerdObjects(RequestContext requestContext, Set<String> innerObjectNames): {}, {}", requestContext, innerObjectNames);
+        return clientCallRecorder.record("getApiObjectMetaDataForInnerObjects", requestContext, () -> {
+            String path = CollectionUtils.isNotEmpty(innerObjectNames)
+                    ? String.format("%s&$expand=%s", String.format(API_PROXY_WITH_INNER_OBJECTS_METADATA, apiProxyName), StringUtils.join(innerObjectNames, ","))
+                    : String.format(API_PROXY_WITH_INNER_OBJECTS_METADATA, apiProxyName);
             if (OAUTH.equals(requestContext.getAuthenticationType())) {
-                apiProxyMetaData = executeGetPublicApiAndReturnResponseBody(
+                return executeThrottled(requestContext, HttpMethod.GET, () -> executeMethodPublicApi(
                         requestContext,
-                        format(API_PROXY_WITH_INNER_OBJECTS_METADATA, apiProxyName),
-                        ApiProxyObjectParser::buildApiProxyMetaData
-                );
+                        path,
+                        null,
+                        HttpMethod.GET,
+                        clientCallRecorder.parsing(response -> ApiProxyObjectParser.buildInnerObjectsNameToApiProxyMetaDataMap(response.getBody(), innerObjectNames))
+                ));
+            }
+            return executeThrottled(requestContext, HttpMethod.GET, () -> executeGet(
+                    requestContext,
+                    path,
+                    clientCallRecorder.parsing(body -> ApiProxyObjectParser.buildInnerObjectsNameToApiProxyMetaDataMap(body, innerObjectNames))
+            ));
+        });
+    }
+
+    public Map<String, ApiProxyInnerObjects> getInnerObjectsOfApiProxies(RequestContext requestContext, Set<String> innerObjectNames) {
+        return getInnerObjectsOfApiProxies(requestContext, innerObjectNames, DEFAULT_INNER_OBJECTS_PAGE_SIZE, ExecutorUtils.getDefaultExecutor());
+    }
+
+    /**
+     * Loads metadata of the inner objects of all API proxies with {@code $expand} on the APIProxies collection,
+     * {@code pageSize} API proxies per request. The first page also returns the total count, then the remaining pages
+     * are requested and parsed in parallel on the {@code executor}. If the server doesn't return the count,
+     * pages are loaded one by one.
+     *
+     * @return inner objects by API proxy name, in the order of API proxy names
+     */
+    public Map<String, ApiProxyInnerObjects> getInnerObjectsOfApiProxies(
+            RequestContext requestContext,
+            Set<String> innerObjectNames,
+            int pageSize,
+            Executor executor
+    ) {
+        log.debug("#getInnerObjectsOfApiProxies(RequestContext requestContext, Set<String> innerObjectNames, int pageSize, Executor executor): {}, {}, {}",
+                requestContext, innerObjectNames, pageSize);
+        if (CollectionUtils.isEmpty(innerObjectNames)) {
+            throw new IllegalArgumentException("innerObjectNames must not be empty");
+        }
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive: " + pageSize);
+        }
+        return clientCallRecorder.record("getInnerObjectsOfApiProxies", requestContext, () -> {
+            // stable order is needed, because pages are requested independently with $skip
+            String collectionPath = format("%s&$expand=%s&$orderby=name", API_PROXIES, StringUtils.join(innerObjectNames, ","));
+            Long[] totalCount = new Long[1];
+            List<ApiProxyInnerObjects> firstWindow = getApiProxyInnerObjectsWindow(
+                    requestContext,
+                    collectionPath + "&$inlinecount=allpages",
+                    0,
+                    pageSize,
+                    innerObjectNames,
+                    count -> totalCount[0] = count
+            );
+
+            List<CompletableFuture<List<ApiProxyInnerObjects>>> windowFutures = new ArrayList<>();
+            windowFutures.add(CompletableFuture.completedFuture(firstWindow));
+            AtomicReference<RuntimeException> windowFailure = new AtomicReference<>();
+            if (totalCount[0] != null) {
+                for (long skip = pageSize; skip < totalCount[0]; skip += pageSize) {
+                    long windowSkip = skip;
+                    windowFutures.add(CompletableFuture.supplyAsync(clientCallRecorder.inCurrentCall(() -> {
+                        // the result is thrown away after the first failure, so the windows which haven't started aren't requested
+                        if (windowFailure.get() != null) {
+                            return Collections.<ApiProxyInnerObjects>emptyList();
+                        }
+                        try {
+                            return getApiProxyInnerObjectsWindow(requestContext, collectionPath, windowSkip, pageSize, innerObjectNames, null);
+                        } catch (RuntimeException ex) {
+                            windowFailure.compareAndSet(null, ex);
+                            throw ex;
+                        }
+                    }), executor));
+                }
             } else {
-                apiProxyMetaData = executeGet(
-                        requestContext,
-                        format(API_PROXY_WITH_INNER_OBJECTS_METADATA, apiProxyName),
-                        ApiProxyObjectParser::buildApiProxyMetaData
-                );
+                List<ApiProxyInnerObjects> window = firstWindow;
+                for (long skip = pageSize; window.size() == pageSize; skip += pageSize) {
+                    window = getApiProxyInnerObjectsWindow(requestContext, collectionPath, skip, pageSize, innerObjectNames, null);
+                    windowFutures.add(CompletableFuture.completedFuture(window));
+                }
             }
-        } catch (HttpStatusCodeException ex) {
-            //this case happens when we try to get non existing object on cloud foundry system and
-            //we didn't make Auth request for current 'restTemplateWrapperKey' before
-            if (!NOT_FOUND.equals(ex.getStatusCode())) {
+
+            Map<String, ApiProxyInnerObjects> apiProxyNameToInnerObjects = new LinkedHashMap<>();
+            try {
+                for (CompletableFuture<List<ApiProxyInnerObjects>> windowFuture : windowFutures) {
+                    for (ApiProxyInnerObjects apiProxyInnerObjects : windowFuture.join()) {
+                        apiProxyNameToInnerObjects.put(apiProxyInnerObjects.getApiProxyName(), apiProxyInnerObjects);
+                    }
+                }
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException) {
+                    windowFailure.compareAndSet(null, (RuntimeException) ex.getCause());
+                    throw windowFailure.get();
+                }
                 throw ex;
             }
-        } catch (ClientIntegrationException ex) {
-            //this case happens when we try to get non existing object on cloud foundry system and
-            //we made Auth request for current 'restTemplateWrapperKey' before
-            if (!(ex.getCause() instanceof HttpStatusCodeException) ||
-                !NOT_FOUND.equals(((HttpStatusCodeException)ex.getCause()).getStatusCode())
-            ) {
-                throw ex;
+            return apiProxyNameToInnerObjects;
+        });
+    }
+
+    public byte[] downloadApiProxy(RequestContext requestContext, String apiProxyName) {
+        log.debug("#downloadApiProxy(RequestContext requestContext, String apiProxyName): {}, {}", requestContext, apiProxyName);
+        return clientCallRecorder.record("downloadApiProxy", requestContext, () -> getBundledApiProxy(requestContext, apiProxyName));
+    }
+
+    public BulkOperationResult downloadApiProxies(Collection<String> apiProxyNames, RequestContext requestContext, ApiProxyBundleSink apiProxyBundleSink) {
+        return downloadApiProxies(apiProxyNames, requestContext, apiProxyBundleSink, ExecutorUtils.getDefaultExecutor(), BulkProgressListener.NONE);
+    }
+
+    /**
+     * Downloads bundles of the API proxies concurrently on the {@code executor} and passes each of them to the sink.
+     * Not more than {@link #setMaxConcurrentDownloadsPerTenant(int)} downloads run against one tenant at the same time.
+     * A failed download or sink call doesn't stop others, it's reported in the result.
+     */
+    public BulkOperationResult downloadApiProxies(
+            Collection<String> apiProxyNames,
+            RequestContext requestContext,
+            ApiProxyBundleSink apiProxyBundleSink,
+            Executor executor,
+            BulkProgressListener bulkProgressListener
+    ) {
+        log.debug("#downloadApiProxies(Collection<String> apiProxyNames, RequestContext requestContext, ApiProxyBundleSink apiProxyBundleSink, " +
+                "Executor executor, BulkProgressListener bulkProgressListener): {}, {}", apiProxyNames, requestContext);
+        return clientCallRecorder.record("downloadApiProxies", requestContext, () -> runBulkDownload(
+                apiProxyNames,
+                requestContext,
+                executor,
+                bulkProgressListener,
+                apiProxyName -> apiProxyBundleSink.accept(apiProxyName, downloadApiProxy(requestContext, apiProxyName))
+        ));
+    }
+
+    public BulkOperationResult downloadApiProxies(Collection<String> apiProxyNames, RequestContext requestContext, Path targetDirectory) {
+        return downloadApiProxies(apiProxyNames, requestContext, targetDirectory, ExecutorUtils.getDefaultExecutor(), BulkProgressListener.NONE);
+    }
+
+    /**
+     * Same as {@link #downloadApiProxies(Collection, RequestContext, ApiProxyBundleSink, Executor, BulkProgressListener)}
+     * but every bundle is streamed to {@code <targetDirectory>/<apiProxyName>.zip}, so bundles aren't kept in memory.
+     */
+    public BulkOperationResult downloadApiProxies(
+            Collection<String> apiProxyNames,
+            RequestContext requestContext,
+            Path targetDirectory,
+            Executor executor,
+            BulkProgressListener bulkProgressListener
+    ) {
+        log.debug("#downloadApiProxies(Collection<String> apiProxyNames, RequestContext requestContext, Path targetDirectory, " +
+                "Executor executor, BulkProgressListener bulkProgressListener): {}, {}, {}", apiProxyNames, requestContext, targetDirectory);
+        return clientCallRecorder.record("downloadApiProxies", requestContext, () -> runBulkDownload(
+                apiProxyNames,
+                requestContext,
+                executor,
+                bulkProgressListener,
+                apiProxyName -> downloadApiProxy(requestContext, apiProxyName, targetDirectory.resolve(apiProxyName + ".zip"))
+        ));
+    }
+
+    /**
+     * Streams the bundle to the output stream. The stream isn't closed.
+     */
+    public void downloadApiProxy(RequestContext requestContext, String apiProxyName, OutputStream outputStream) {
+        log.debug("#downloadApiProxy(RequestContext requestContext, String apiProxyName, OutputStream outputStream): {}, {}", requestContext, apiProxyName);
+        clientCallRecorder.record("downloadApiProxy", requestContext, () -> downloadApiProxy(requestContext, apiProxyName, inputStream -> StreamUtils.copy(inputStream, outputStream)));
+    }
+
+    /**
+     * Streams the bundle to the file, the file is created or overwritten. The bundle is written to a temporary file
+     * in the same directory first, so if the download fails, an existing file stays as it was.
+     */
+    public void downloadApiProxy(RequestContext requestContext, String apiProxyName, Path targetFile) {
+        log.debug("#downloadApiProxy(RequestContext requestContext, String apiProxyName, Path targetFile): {}, {}, {}", requestContext, apiProxyName, targetFile);
+        clientCallRecorder.record("downloadApiProxy", requestContext, () -> {
+            Path temporaryFile = null;
+            boolean moved = false;
+            try {
+                temporaryFile = Files.createTempFile(targetFile.toAbsolutePath().getParent(), targetFile.getFileName().toString(), ".tmp");
+                try (FileChannel fileChannel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+                    downloadApiProxy(requestContext, apiProxyName, inputStream -> {
+                        ReadableByteChannel readableByteChannel = Channels.newChannel(inputStream);
+                        long position = 0;
+                        long transferred;
+                        while ((transferred = fileChannel.transferFrom(readableByteChannel, position, DOWNLOAD_TRANSFER_CHUNK_SIZE)) > 0) {
+                            position += transferred;
+                        }
+                    });
+                }
+                try {
+                    Files.move(temporaryFile, targetFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(temporaryFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+                moved = true;
+            } catch (IOException ex) {
+                throw new ClientIntegrationException(format("Couldn't write api proxy %s to %s: %s", apiProxyName, targetFile, ex.getMessage()), ex);
+            } finally {
+                if (temporaryFile != null && !moved) {
+                    try {
+                        Files.deleteIfExists(temporaryFile);
+                    } catch (IOException ex) {
+                        log.debug("Couldn't delete {}: {}", temporaryFile, ex.toString());
+                    }
+                }
             }
-        }
-        return apiProxyMetaData;
+        });
     }
 
-    public Map<String, ApiProxyMetaData> getApiObjectMetaDataForInnerObjects(RequestContext requestContext, String apiProxyName, Set<String> innerObjectNames) {
-        log.debug("#getApiObjectMetaDataWithInnerdObjects(RequestContext requestContext, Set<String> innerObjectNames): {}, {}", requestContext, innerObjectNames);
-        String path = String.format(API_PROXY_WITH_INNER_OBJECTS_METADATA, apiProxyName);
-        if (CollectionUtils.isNotEmpty(innerObjectNames)) {
-            path = String.format("%s&$expand=%s", path, StringUtils.join(innerObjectNames, ","));
-        }
-        if (OAUTH.equals(requestContext.getAuthenticationType())) {
-            return executeMethodPublicApi(
+    public void uploadApiProxy(RequestContext requestContext, String apiProxyName, byte[] bundledApiProxy) {
+        log.debug("#uploadApiProxy(RequestContext requestContext, String apiProxyName, byte[] bundledApiProxy): {}, {}", requestContext, apiProxyName);
+        uploadApiProxy(
+                requestContext,
+                new Base64EncodedResource(() -> new ByteArrayInputStream(bundledApiProxy), bundledApiProxy.length, apiProxyName),
+                true
+        );
+    }
+
+    /**
+     * Uploads the bundle Base64-encoding it while it's streamed into the request body.
+     * The stream is read once and isn't closed.
+     */
+    public void uploadApiProxy(RequestContext requestContext, String apiProxyName, InputStream bundledApiProxy) {
+        log.debug("#uploadApiProxy(RequestContext requestContext, String apiProxyName, InputStream bundledApiProxy): {}, {}", requestContext, apiProxyName);
+        AtomicBoolean consumed = new AtomicBoolean();
+        uploadApiProxy(
+                requestContext,
+                new Base64EncodedResource(() -> {
+                    if (!consumed.compareAndSet(false, true)) {
+                        throw new IllegalStateException(format("Bundle stream of api proxy %s has been already consumed", apiProxyName));
+                    }
+                    return StreamUtils.nonClosing(bundledApiProxy);
+                }, -1, apiProxyName),
+                false
+        );
+    }
+
+    /**
+     * Uploads the bundle from the file Base64-encoding it while it's streamed into the request body.
+     */
+    public void uploadApiProxy(RequestContext requestContext, String apiProxyName, Path bundledApiProxyFile) {
+        log.debug("#uploadApiProxy(RequestContext requestContext, String apiProxyName, Path bundledApiProxyFile): {}, {}, {}",
+                requestContext, apiProxyName, bundledApiProxyFile);
+        try {
+            uploadApiProxy(
                     requestContext,
-                    path,
-                    null,
-                    HttpMethod.GET,
-                    response -> ApiProxyObjectParser.buildInnerObjectsNameToApiProxyMetaDataMap(response.getBody(), innerObjectNames)
+                    new Base64EncodedResource(() -> Files.newInputStream(bundledApiProxyFile), Files.size(bundledApiProxyFile), apiProxyName),
+                    true
             );
+        } catch (IOException ex) {
+            throw new ClientIntegrationException(format("Couldn't read api proxy bundle %s: %s", bundledApiProxyFile, ex.getMessage()), ex);
         }
-        return executeGet(
+    }
+
+    /**
+     * Same as {@link #uploadApiProxyIfChanged(RequestContext, String, byte[], String)} with the digest remembered
+     * by this client, so the upload can be skipped only if this client has uploaded the bundle before.
+     */
+    public boolean uploadApiProxyIfChanged(RequestContext requestContext, String apiProxyName, byte[] bundledApiProxy) {
+        return uploadApiProxyIfChanged(requestContext, apiProxyName, bundledApiProxy, null);
+    }
+
+    /**
+     * Uploads the bundle only if its content differs from the last uploaded one, see {@link ApiProxyBundleDigest}.
+     * The deployed bundle is never downloaded, because the server exports the same API proxy with other bytes.
+     * Instead, the content is compared with {@code lastUploadedBundleDigest}, which the caller keeps between runs
+     * (computed by {@link ApiProxyBundleDigest#digest(InputStream)} of the uploaded bundle). Without it the digest remembered
+     * by this client is used, if the API proxy hasn't been modified since this client uploaded it.
+     * Changes made on the tenant after the last upload aren't detected by the digest passed by the caller.
+     *
+     * @param lastUploadedBundleDigest digest of the last uploaded bundle, {@code null} if it's unknown
+     * @return {@code true} if the bundle was uploaded, {@code false} if the upload was skipped
+     */
+    public boolean uploadApiProxyIfChanged(RequestContext requestContext, String apiProxyName, byte[] bundledApiProxy, String lastUploadedBundleDigest) {
+        log.debug("#uploadApiProxyIfChanged(RequestContext requestContext, String apiProxyName, byte[] bundledApiProxy, String lastUploadedBundleDigest): {}, {}, {}",
+                requestContext, apiProxyName, lastUploadedBundleDigest);
+        return uploadApiProxyIfChanged(
                 requestContext,
-                path,
-                body -> ApiProxyObjectParser.buildInnerObjectsNameToApiProxyMetaDataMap(body, innerObjectNames)
+                apiProxyName,
+                () -> new ByteArrayInputStream(bundledApiProxy),
+                lastUploadedBundleDigest,
+                () -> uploadApiProxy(requestContext, apiProxyName, bundledApiProxy)
         );
     }
 
-    public byte[] downloadApiProxy(RequestContext requestContext, String apiProxyName) {
-        log.debug("#downloadApiProxy(RequestContext requestContext, String apiProxyName): {}, {}", requestContext, apiProxyName);
+    public boolean uploadApiProxyIfChanged(RequestContext requestContext, String apiProxyName, Path bundledApiProxyFile) {
+        return uploadApiProxyIfChanged(requestContext, apiProxyName, bundledApiProxyFile, null);
+    }
+
+    /**
+     * Same as {@link #uploadApiProxyIfChanged(RequestContext, String, byte[], String)}, the file is read twice:
+     * to compute its digest and to upload it.
+     */
+    public boolean uploadApiProxyIfChanged(RequestContext requestContext, String apiProxyName, Path bundledApiProxyFile, String lastUploadedBundleDigest) {
+        log.debug("#uploadApiProxyIfChanged(RequestContext requestContext, String apiProxyName, Path bundledApiProxyFile, String lastUploadedBundleDigest): {}, {}, {}, {}",
+                requestContext, apiProxyName, bundledApiProxyFile, lastUploadedBundleDigest);
+        return uploadApiProxyIfChanged(
+                requestContext,
+                apiProxyName,
+                () -> Files.newInputStream(bundledApiProxyFile),
+                lastUploadedBundleDigest,
+                () -> uploadApiProxy(requestContext, apiProxyName, bundledApiProxyFile)
+        );
+    }
+
+    public void deleteApiProxy(String apiProxyId, RequestContext requestContext) {
+        log.debug("#deleteApiProxy(String apiProxyId, RequestContext requestContext): {}, {}", apiProxyId, requestContext);
+        clientCallRecorder.record("deleteApiProxy", requestContext, () -> {
+            String pathForMainRequest = format(API_PROXIES_WITH_NAME, apiProxyId);
+
+            if (OAUTH.equals(requestContext.getAuthenticationType())) {
+                executeThrottled(requestContext, HttpMethod.DELETE, () -> executeDeletePublicApi(
+                        requestContext,
+                        pathForMainRequest,
+                        clientCallRecorder.parsing(response -> {
+                            if (!HttpStatus.NO_CONTENT.equals(response.getStatusCode())) {
+                                throw new ClientIntegrationException(format(
+                                        "Couldn't delete api proxy %s: Code: %d, Message: %s",
+                                        apiProxyId,
+                                        response.getStatusCode().value(),
+                                        response.getBody())
+                                );
+                            }
+                            return null;
+                        })
+                ));
+            } else {
+                executeThrottled(requestContext, HttpMethod.DELETE, () -> executeMethodWithCachedToken(
+                        requestContext,
+                        API_PROXIES,
+                        pathForMainRequest,
+                        (url, token, restTemplate) -> {
+                            deleteApiProxy(apiProxyId, url, token, restTemplate);
+                            return null;
+                        }
+                ));
+            }
+        });
+    }
+
+    private byte[] getBundledApiProxy(RequestContext requestContext, String apiProxyName) {
         if (OAUTH.equals(requestContext.getAuthenticationType())) {
-            return executeMethodPublicApi(
+            return executeThrottled(requestContext, HttpMethod.GET, () -> executeMethodPublicApi(
                     requestContext,
                     String.format(API_PROXIES_TRANSPORT_WITH_NAME, apiProxyName),
                     null,
                     HttpMethod.GET,
-                    HttpEntity::getBody,
+                    clientCallRecorder.parsing(HttpEntity::getBody),
                     byte[].class
-            );
+            ));
         }
-        return executeGet(
+        return executeThrottled(requestContext, HttpMethod.GET, () -> executeGet(
                 requestContext,
                 String.format(API_PROXIES_TRANSPORT_WITH_NAME, apiProxyName),
-                resolvedBody -> resolvedBody,
+                clientCallRecorder.parsing(resolvedBody -> resolvedBody),
                 byte[].class
+        ));
+    }
+
+    private void downloadApiProxy(RequestContext requestContext, String apiProxyName, BundleStreamHandler bundleStreamHandler) {
+        String path = String.format(API_PROXIES_TRANSPORT_WITH_NAME, apiProxyName);
+        if (OAUTH.equals(requestContext.getAuthenticationType())) {
+            // public api calls don't expose the response stream, so the body which is already buffered by the rest template is passed as is
+            byte[] bundledApiProxy = getBundledApiProxy(requestContext, apiProxyName);
+            try {
+                bundleStreamHandler.handle(new ByteArrayInputStream(bundledApiProxy));
+            } catch (IOException ex) {
+                throw new ClientIntegrationException(format("Couldn't process api proxy %s: %s", apiProxyName, ex.getMessage()), ex);
+            }
+            return;
+        }
+        executeThrottled(requestContext, HttpMethod.GET, () -> executeMethodWithCachedToken(
+                requestContext,
+                API_PROXIES_TOKEN,
+                path,
+                (url, token, restTemplate) -> restTemplate.execute(
+                        url,
+                        HttpMethod.GET,
+                        request -> request.getHeaders().setAccept(Arrays.asList(MediaType.APPLICATION_OCTET_STREAM, MediaType.ALL)),
+                        response -> {
+                            bundleStreamHandler.handle(response.getBody());
+                            return null;
+                        }
+                )
+        ));
+    }
+
+    private BulkOperationResult runBulkDownload(
+            Collection<String> apiProxyNames,
+            RequestContext requestContext,
+            Executor executor,
+            BulkProgressListener bulkProgressListener,
+            BulkDownloadAction bulkDownloadAction
+    ) {
+        Set<String> uniqueApiProxyNames = new LinkedHashSet<>(apiProxyNames);
+        DownloadPermits downloadPermits = tenantToDownloadPermits.computeIfAbsent(
+                getTenantKey(requestContext),
+                tenantKey -> new DownloadPermits(maxConcurrentDownloadsPerTenant)
         );
+        downloadPermits.resize(maxConcurrentDownloadsPerTenant);
+        BulkOperationResult bulkOperationResult = new BulkOperationResult();
+        AtomicInteger processedCount = new AtomicInteger();
+
+        List<CompletableFuture<Void>> downloadFutures = new ArrayList<>(uniqueApiProxyNames.size());
+        for (String apiProxyName : uniqueApiProxyNames) {
+            downloadFutures.add(CompletableFuture.runAsync(() -> {
+                boolean successful = runBulkDownloadAction(apiProxyName, bulkDownloadAction, downloadPermits, bulkOperationResult);
+                try {
+                    bulkProgressListener.onItemProcessed(apiProxyName, successful, processedCount.incrementAndGet(), uniqueApiProxyNames.size());
+                } catch (RuntimeException ex) {
+                    log.warn("Progress listener failed for api proxy {}: {}", apiProxyName, ex.getMessage());
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(downloadFutures.toArray(new CompletableFuture[0])).join();
+
+        return bulkOperationResult;
     }
 
-    public void uploadApiProxy(RequestContext requestContext, String apiProxyName, byte[] bundledApiProxy) {
-        log.debug("#uploadApiProxy(RequestContext requestContext, String apiProxyName, byte[] bundledApiProxy): {}, {}", requestContext, apiProxyName);
+    private static boolean runBulkDownloadAction(
+            String apiProxyName,
+            BulkDownloadAction bulkDownloadAction,
+            Semaphore downloadPermits,
+            BulkOperationResult bulkOperationResult
+    ) {
+        try {
+            downloadPermits.acquire();
+            try {
+                bulkDownloadAction.download(apiProxyName);
+            } finally {
+                downloadPermits.release();
+            }
+            bulkOperationResult.getSucceededItems().add(apiProxyName);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            bulkOperationResult.getFailedItems().put(apiProxyName, "Download was interrupted");
+        } catch (Exception ex) {
+            log.error("Couldn't download api proxy {}: {}", apiProxyName, ex.getMessage());
+            bulkOperationResult.getFailedItems().put(apiProxyName, ex.getMessage());
+        }
+        return false;
+    }
+
+    private List<ApiProxyMetaData> getApiObjectMetaDataList(RequestContext requestContext, String path) {
+        // the body is read as byte[] and parsed by the streaming parser to avoid building a String and a JSON tree for big tenants
         if (OAUTH.equals(requestContext.getAuthenticationType())) {
-            HttpHeaders httpHeaders = new HttpHeaders();
-            httpHeaders.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            byte[] bundledApiProxyEncoded = Base64.getEncoder().encode(bundledApiProxy);
+            return executeThrottled(requestContext, HttpMethod.GET, () -> executeMethodPublicApi(
+                    requestContext,
+                    path,
+                    null,
+                    HttpMethod.GET,
+                    clientCallRecorder.parsing(response -> ApiProxyObjectParser.buildApiProxyMetaDataList(response.getBody())),
+                    byte[].class
+            ));
+        }
+        return executeThrottled(requestContext, HttpMethod.GET, () -> executeGet(
+                requestContext,
+                path,
+                clientCallRecorder.parsing(body -> ApiProxyObjectParser.buildApiProxyMetaDataList(body)),
+                byte[].class
+        ));
+    }
 
-            executeMethodPublicApiWithCustomHeaders(
+    private ODataPageSpliterator.Page<ApiProxyMetaData> getApiObjectMetaDataPage(RequestContext requestContext, String path) {
+        List<ApiProxyMetaData> apiProxyMetaDataList = new ArrayList<>();
+        String nextLink;
+        if (OAUTH.equals(requestContext.getAuthenticationType())) {
+            nextLink = executeThrottled(requestContext, HttpMethod.GET, () -> executeMethodPublicApi(
                     requestContext,
-                    API_PROXIES_TRANSPORT,
-                    bundledApiProxyEncoded,
-                    HttpMethod.POST,
-                    httpHeaders,
-                    response -> {
-                        if (!HttpStatus.OK.equals(response.getStatusCode())) {
-                            throw new ClientIntegrationException("Couldn't execute api proxy uploading:\n" +
-                                    response.getBody()
-                            );
-                        }
-                        return null;
-                    }
-            );
+                    path,
+                    null,
+                    HttpMethod.GET,
+                    clientCallRecorder.parsing(response -> ApiProxyObjectParser.parseApiProxyMetaDataPage(response.getBody(), apiProxyMetaDataList::add)),
+                    byte[].class
+            ));
         } else {
-            executeMethod(
+            nextLink = executeThrottled(requestContext, HttpMethod.GET, () -> executeGet(
                     requestContext,
-                    API_PROXIES,
-                    API_PROXIES_TRANSPORT,
-                    (url, token, restTemplateWrapper) -> {
-                        uploadApiProxy(bundledApiProxy, url, token, restTemplateWrapper.getRestTemplate());
-                        return null;
-                    }
-            );
+                    path,
+                    clientCallRecorder.parsing(body -> ApiProxyObjectParser.parseApiProxyMetaDataPage(body, apiProxyMetaDataList::add)),
+                    byte[].class
+            ));
         }
+        return new ODataPageSpliterator.Page<>(apiProxyMetaDataList, nextLink);
     }
 
-    public void deleteApiProxy(String apiProxyId, RequestContext requestContext) {
-        log.debug("#deleteApiProxy(String apiProxyId, RequestContext requestContext): {}, {}", apiProxyId, requestContext);
-        String pathForMainRequest = format(API_PROXIES_WITH_NAME, apiProxyId);
+    /**
+     * Loads {@code pageSize} API proxies starting from {@code skip}, following {@code __next} links
+     * if the server returns less than requested.
+     */
+    private List<ApiProxyInnerObjects> getApiProxyInnerObjectsWindow(
+            RequestContext requestContext,
+            String collectionPath,
+            long skip,
+            int pageSize,
+            Set<String> innerObjectNames,
+            LongConsumer totalCountConsumer
+    ) {
+        List<ApiProxyInnerObjects> apiProxyInnerObjectsList = new ArrayList<>();
+        String path = format("%s&$top=%d&$skip=%d", collectionPath, pageSize, skip);
+        while (path != null) {
+            String nextLink = getApiProxyInnerObjectsPage(requestContext, path, innerObjectNames, apiProxyInnerObjectsList::add, totalCountConsumer);
+            path = nextLink != null && apiProxyInnerObjectsList.size() < pageSize
+                    ? ODataPageSpliterator.toRequestPath(nextLink, MANAGEMENT_SERVICE_ROOT)
+                    : null;
+        }
+        return apiProxyInnerObjectsList.size() > pageSize ? apiProxyInnerObjectsList.subList(0, pageSize) : apiProxyInnerObjectsList;
+    }
 
+    private String getApiProxyInnerObjectsPage(
+            RequestContext requestContext,
+            String path,
+            Set<String> innerObjectNames,
+            Consumer<ApiProxyInnerObjects> apiProxyInnerObjectsConsumer,
+            LongConsumer totalCountConsumer
+    ) {
         if (OAUTH.equals(requestContext.getAuthenticationType())) {
-            executeDeletePublicApi(
+            return executeThrottled(requestContext, HttpMethod.GET, () -> executeMethodPublicApi(
                     requestContext,
-                    pathForMainRequest,
-                    response -> {
-                        if (!HttpStatus.NO_CONTENT.equals(response.getStatusCode())) {
-                            throw new ClientIntegrationException(format(
-                                    "Couldn't delete api proxy %s: Code: %d, Message: %s",
-                                    apiProxyId,
-                                    response.getStatusCode().value(),
-                                    response.getBody())
-                            );
-                        }
-                        return null;
-                    }
-            );
-        } else {
-            executeMethod(
+                    path,
+                    null,
+                    HttpMethod.GET,
+                    clientCallRecorder.parsing(response -> ApiProxyObjectParser.parseApiProxyInnerObjectsPage(
+                            response.getBody(),
+                            innerObjectNames,
+                            apiProxyInnerObjectsConsumer,
+                            totalCountConsumer
+                    )),
+                    byte[].class
+            ));
+        }
+        return executeThrottled(requestContext, HttpMethod.GET, () -> executeGet(
+                requestContext,
+                path,
+                clientCallRecorder.parsing(body -> ApiProxyObjectParser.parseApiProxyInnerObjectsPage(
+                        body,
+                        innerObjectNames,
+                        apiProxyInnerObjectsConsumer,
+                        totalCountConsumer
+                )),
+                byte[].class
+        ));
+    }
+
+    private MetaDataCache.Listing<ApiProxyMetaData> getApiObjectMetaDataListing(RequestContext requestContext, String eTag) {
+        HttpHeaders httpHeaders = new HttpHeaders();
+        if (eTag != null) {
+            httpHeaders.setIfNoneMatch(eTag);
+        }
+        if (OAUTH.equals(requestContext.getAuthenticationType())) {
+            return executeThrottled(requestContext, HttpMethod.GET, () -> executeMethodPublicApiWithCustomHeaders(
                     requestContext,
                     API_PROXIES,
-                    pathForMainRequest,
-                    (url, token, restTemplateWrapper) -> {
-                        deleteApiProxy(apiProxyId, url, token, restTemplateWrapper.getRestTemplate());
-                        return null;
-                    }
-            );
+                    null,
+                    HttpMethod.GET,
+                    httpHeaders,
+                    response -> MetaDataCache.toListing(response, clientCallRecorder.parsing(ApiProxyObjectParser::buildApiProxyMetaDataList))
+            ));
+        }
+        // executeGet doesn't expose response headers, so the request is sent directly to get the ETag
+        return executeThrottled(requestContext, HttpMethod.GET, () -> executeMethodWithCachedToken(
+                requestContext,
+                API_PROXIES_TOKEN,
+                API_PROXIES,
+                (url, token, restTemplate) -> MetaDataCache.toListing(
+                        restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(httpHeaders), byte[].class),
+                        clientCallRecorder.parsing(ApiProxyObjectParser::buildApiProxyMetaDataList)
+                )
+        ));
+    }
+
+    private MetaDataCache.Listing<ApiProxyMetaData> getLatestChangedApiObjectMetaData(RequestContext requestContext) {
+        List<ApiProxyMetaData> apiProxyMetaDataList = new ArrayList<>();
+        Long[] totalCount = new Long[1];
+        if (OAUTH.equals(requestContext.getAuthenticationType())) {
+            executeThrottled(requestContext, HttpMethod.GET, () -> executeMethodPublicApi(
+                    requestContext,
+                    API_PROXIES_LATEST_CHANGE,
+                    null,
+                    HttpMethod.GET,
+                    clientCallRecorder.parsing(response -> ApiProxyObjectParser.parseApiProxyMetaDataPage(response.getBody(), apiProxyMetaDataList::add, count -> totalCount[0] = count)),
+                    byte[].class
+            ));
+        } else {
+            executeThrottled(requestContext, HttpMethod.GET, () -> executeGet(
+                    requestContext,
+                    API_PROXIES_LATEST_CHANGE,
+                    clientCallRecorder.parsing(body -> ApiProxyObjectParser.parseApiProxyMetaDataPage(body, apiProxyMetaDataList::add, count -> totalCount[0] = count)),
+                    byte[].class
+            ));
         }
+        return new MetaDataCache.Listing<>(apiProxyMetaDataList, null, totalCount[0]);
+    }
+
+    /**
+     * @param repeatable whether the body can be read again, otherwise the upload is never retried
+     *                   with a cached CSRF token and always fetches a new one
+     */
+    private void uploadApiProxy(RequestContext requestContext, Resource bundledApiProxyEncoded, boolean repeatable) {
+        clientCallRecorder.record("uploadApiProxy", requestContext, () -> {
+            if (OAUTH.equals(requestContext.getAuthenticationType())) {
+                HttpHeaders httpHeaders = new HttpHeaders();
+                httpHeaders.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+
+                executeThrottled(requestContext, HttpMethod.POST, () -> executeMethodPublicApiWithCustomHeaders(
+                        requestContext,
+                        API_PROXIES_TRANSPORT,
+                        bundledApiProxyEncoded,
+                        HttpMethod.POST,
+                        httpHeaders,
+                        clientCallRecorder.parsing(response -> {
+                            if (!HttpStatus.OK.equals(response.getStatusCode())) {
+                                throw new ClientIntegrationException("Couldn't execute api proxy uploading:\n" +
+                                        response.getBody()
+                                );
+                            }
+                            return null;
+                        })
+                ));
+            } else {
+                CsrfTokenCache.SessionRequest<Void> uploadRequest = (url, token, restTemplate) -> {
+                    uploadApiProxy(bundledApiProxyEncoded, url, token, restTemplate);
+                    return null;
+                };
+                if (repeatable) {
+                    executeThrottled(requestContext, HttpMethod.POST, () -> executeMethodWithCachedToken(requestContext, API_PROXIES, API_PROXIES_TRANSPORT, uploadRequest));
+                } else {
+                    executeThrottled(requestContext, HttpMethod.POST, () -> csrfTokenCache.executeWithNewToken(
+                            requestContext,
+                            API_PROXIES_TRANSPORT,
+                            uploadRequest,
+                            executeMethodWithNewToken(requestContext, API_PROXIES, API_PROXIES_TRANSPORT)
+                    ));
+                }
+            }
+        });
+    }
+
+    private boolean uploadApiProxyIfChanged(
+            RequestContext requestContext,
+            String apiProxyName,
+            Base64EncodedResource.SourceSupplier bundleSupplier,
+            String lastUploadedBundleDigest,
+            Runnable upload
+    ) {
+        return clientCallRecorder.record("uploadApiProxyIfChanged", requestContext, () -> {
+            String bundleDigest;
+            try (InputStream bundledApiProxy = bundleSupplier.open()) {
+                bundleDigest = ApiProxyBundleDigest.digest(bundledApiProxy);
+            } catch (IOException ex) {
+                throw new ClientIntegrationException(format("Couldn't read api proxy bundle %s: %s", apiProxyName, ex.getMessage()), ex);
+            }
+            String apiProxyKey = format("%s|%s", getTenantKey(requestContext), apiProxyName);
+            ApiProxyMetaData apiProxyMetaData = getApiObjectMetaData(requestContext, apiProxyName);
+            if (apiProxyMetaData != null) {
+                String uploadedBundleDigest = lastUploadedBundleDigest != null
+                        ? lastUploadedBundleDigest
+                        : getUploadedBundleDigest(apiProxyKey, apiProxyMetaData);
+                if (bundleDigest.equals(uploadedBundleDigest)) {
+                    log.debug("Api proxy {} is not changed, uploading is skipped", apiProxyKey);
+                    return false;
+                }
+            }
+
+            upload.run();
+            ApiProxyMetaData uploadedApiProxyMetaData = getApiObjectMetaData(requestContext, apiProxyName);
+            if (uploadedApiProxyMetaData != null && uploadedApiProxyMetaData.getModificationDate() != null) {
+                apiProxyToUploadedBundleDigest.put(apiProxyKey, new UploadedBundleDigest(uploadedApiProxyMetaData.getModificationDate().getTime(), bundleDigest));
+            } else {
+                apiProxyToUploadedBundleDigest.remove(apiProxyKey);
+            }
+            return true;
+        });
     }
 
-    private void uploadApiProxy(byte[] bundledApiProxy, String url, String token, RestTemplate restTemplate) {
+    /**
+     * @return digest of the bundle uploaded by this client, {@code null} if it's unknown or the API proxy has been modified since then
+     */
+    private String getUploadedBundleDigest(String apiProxyKey, ApiProxyMetaData apiProxyMetaData) {
+        Date modificationDate = apiProxyMetaData.getModificationDate();
+        UploadedBundleDigest uploadedBundleDigest = apiProxyToUploadedBundleDigest.get(apiProxyKey);
+        if (uploadedBundleDigest != null && modificationDate != null && uploadedBundleDigest.modificationTime == modificationDate.getTime()) {
+            return uploadedBundleDigest.digest;
+        }
+        return null;
+    }
+
+    private static List<ApiProxyMetaData> copyApiProxyMetaDataList(List<ApiProxyMetaData> apiProxyMetaDataList) {
+        return apiProxyMetaDataList.stream().map(ApiProxyMetaData::new).collect(Collectors.toList());
+    }
+
+    private <T> T executeCoalesced(RequestContext requestContext, String operation, String path, Supplier<T> request, UnaryOperator<T> resultCopier) {
+        RequestCoalescer requestCoalescer = this.requestCoalescer;
+        return requestCoalescer != null ? requestCoalescer.execute(requestContext, operation, path, request, resultCopier) : request.get();
+    }
+
+    private <R> R executeThrottled(RequestContext requestContext, HttpMethod httpMethod, Supplier<R> request) {
+        TenantRateLimiter tenantRateLimiter = this.tenantRateLimiter;
+        return tenantRateLimiter != null ? tenantRateLimiter.execute(requestContext, httpMethod, request) : request.get();
+    }
+
+    private <R> R executeMethodWithCachedToken(
+            RequestContext requestContext,
+            String pathForToken,
+            String pathForMainRequest,
+            CsrfTokenCache.SessionRequest<R> request
+    ) {
+        return csrfTokenCache.execute(
+                requestContext,
+                pathForMainRequest,
+                request,
+                executeMethodWithNewToken(requestContext, pathForToken, pathForMainRequest)
+        );
+    }
+
+    private <R> Function<CsrfTokenCache.SessionRequest<R>, R> executeMethodWithNewToken(
+            RequestContext requestContext,
+            String pathForToken,
+            String pathForMainRequest
+    ) {
+        return sessionRequest -> executeMethod(
+                requestContext,
+                pathForToken,
+                pathForMainRequest,
+                (url, token, restTemplateWrapper) -> sessionRequest.execute(url, token, restTemplateWrapper.getRestTemplate())
+        );
+    }
+
+    private void uploadApiProxy(Resource bundledApiProxyEncoded, String url, String token, RestTemplate restTemplate) {
 
         HttpHeaders httpHeaders = new HttpHeaders();
         httpHeaders.add("X-CSRF-Token", token);
         httpHeaders.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-        HttpEntity<byte[]> requestEntity = new HttpEntity<>(Base64.getEncoder().encode(bundledApiProxy), httpHeaders);
+        HttpEntity<Resource> requestEntity = new HttpEntity<>(bundledApiProxyEncoded, httpHeaders);
 
         ResponseEntity<String> responseEntity = restTemplate.exchange(url, HttpMethod.POST, requestEntity, String.class);
 
@@ -236,4 +1010,45 @@ public class ApiProxyObjectClient extends BaseClient {
 
     }
 
+    @AllArgsConstructor
+    private static class UploadedBundleDigest {
+
+        private final long modificationTime;
+        private final String digest;
+    }
+
+    @FunctionalInterface
+    private interface BundleStreamHandler {
+
+        void handle(InputStream inputStream) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface BulkDownloadAction {
+
+        void download(String apiProxyName) throws IOException;
+    }
+
+    /**
+     * Semaphore which remembers its limit, so that the limit can be changed while permits are taken.
+     */
+    private static class DownloadPermits extends Semaphore {
+
+        private int limit;
+
+        private DownloadPermits(int limit) {
+            super(limit);
+            this.limit = limit;
+        }
+
+        private synchronized void resize(int newLimit) {
+            if (newLimit > limit) {
+                release(newLimit - limit);
+            } else if (newLimit < limit) {
+                reducePermits(limit - newLimit);
+            }
+            limit = newLimit;
+        }
+    }
+
 }
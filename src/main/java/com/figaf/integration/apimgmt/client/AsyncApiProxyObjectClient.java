@@ -0,0 +1,166 @@
+package com.figaf.integration.apimgmt.client;
+
+import com.figaf.integration.apimgmt.entity.ApiProxyInnerObjects;
+import com.figaf.integration.apimgmt.entity.ApiProxyMetaData;
+import com.figaf.integration.apimgmt.entity.BulkOperationResult;
+import com.figaf.integration.apimgmt.entity.MetaDataChanges;
+import com.figaf.integration.apimgmt.utils.ExecutorUtils;
+import com.figaf.integration.common.entity.RequestContext;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Non-blocking facade of {@link ApiProxyObjectClient}. Every call is executed on the executor
+ * (by default {@link ExecutorUtils#getDefaultExecutor()}, virtual threads on Java 21+) and its result is returned as a future.
+ * Configuration (cache, metrics, limits) is done on the wrapped client.
+ */
+public class AsyncApiProxyObjectClient {
+
+    private final ApiProxyObjectClient apiProxyObjectClient;
+    private final Executor executor;
+
+    public AsyncApiProxyObjectClient(ApiProxyObjectClient apiProxyObjectClient) {
+        this(apiProxyObjectClient, ExecutorUtils.getDefaultExecutor());
+    }
+
+    public AsyncApiProxyObjectClient(ApiProxyObjectClient apiProxyObjectClient, Executor executor) {
+        this.apiProxyObjectClient = apiProxyObjectClient;
+        this.executor = executor;
+    }
+
+    public ApiProxyObjectClient getApiProxyObjectClient() {
+        return apiProxyObjectClient;
+    }
+
+    public CompletableFuture<List<ApiProxyMetaData>> getApiObjectMetaData(RequestContext requestContext) {
+        return CompletableFuture.supplyAsync(() -> apiProxyObjectClient.getApiObjectMetaData(requestContext), executor);
+    }
+
+    public CompletableFuture<MetaDataChanges<ApiProxyMetaData>> getApiObjectMetaDataChangedSince(RequestContext requestContext, Instant watermark) {
+        return CompletableFuture.supplyAsync(() -> apiProxyObjectClient.getApiObjectMetaDataChangedSince(requestContext, watermark), executor);
+    }
+
+    public CompletableFuture<ApiProxyMetaData> getApiObjectMetaData(RequestContext requestContext, String apiProxyName) {
+        return CompletableFuture.supplyAsync(() -> apiProxyObjectClient.getApiObjectMetaData(requestContext, apiProxyName), executor);
+    }
+
+    public CompletableFuture<Map<String, ApiProxyMetaData>> getApiObjectMetaDataForInnerObjects(
+            RequestContext requestContext,
+            String apiProxyName,
+            Set<String> innerObjectNames
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> apiProxyObjectClient.getApiObjectMetaDataForInnerObjects(requestContext, apiProxyName, innerObjectNames),
+                executor
+        );
+    }
+
+    public CompletableFuture<Map<String, ApiProxyInnerObjects>> getInnerObjectsOfApiProxies(RequestContext requestContext, Set<String> innerObjectNames) {
+        return CompletableFuture.supplyAsync(() -> apiProxyObjectClient.getInnerObjectsOfApiProxies(requestContext, innerObjectNames), executor);
+    }
+
+    public CompletableFuture<byte[]> downloadApiProxy(RequestContext requestContext, String apiProxyName) {
+        return CompletableFuture.supplyAsync(() -> apiProxyObjectClient.downloadApiProxy(requestContext, apiProxyName), executor);
+    }
+
+    /**
+     * The stream is written on the executor thread and isn't closed.
+     */
+    public CompletableFuture<Void> downloadApiProxy(RequestContext requestContext, String apiProxyName, OutputStream outputStream) {
+        return CompletableFuture.runAsync(() -> apiProxyObjectClient.downloadApiProxy(requestContext, apiProxyName, outputStream), executor);
+    }
+
+    public CompletableFuture<Void> downloadApiProxy(RequestContext requestContext, String apiProxyName, Path targetFile) {
+        return CompletableFuture.runAsync(() -> apiProxyObjectClient.downloadApiProxy(requestContext, apiProxyName, targetFile), executor);
+    }
+
+    /**
+     * Bundles are downloaded concurrently on the executor of this client while the bulk task waits for them,
+     * so a bounded executor must have more than one thread.
+     */
+    public CompletableFuture<BulkOperationResult> downloadApiProxies(
+            Collection<String> apiProxyNames,
+            RequestContext requestContext,
+            ApiProxyBundleSink apiProxyBundleSink
+    ) {
+        return downloadApiProxies(apiProxyNames, requestContext, apiProxyBundleSink, BulkProgressListener.NONE);
+    }
+
+    public CompletableFuture<BulkOperationResult> downloadApiProxies(
+            Collection<String> apiProxyNames,
+            RequestContext requestContext,
+            ApiProxyBundleSink apiProxyBundleSink,
+            BulkProgressListener bulkProgressListener
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> apiProxyObjectClient.downloadApiProxies(apiProxyNames, requestContext, apiProxyBundleSink, executor, bulkProgressListener),
+                executor
+        );
+    }
+
+    public CompletableFuture<BulkOperationResult> downloadApiProxies(Collection<String> apiProxyNames, RequestContext requestContext, Path targetDirectory) {
+        return downloadApiProxies(apiProxyNames, requestContext, targetDirectory, BulkProgressListener.NONE);
+    }
+
+    public CompletableFuture<BulkOperationResult> downloadApiProxies(
+            Collection<String> apiProxyNames,
+            RequestContext requestContext,
+            Path targetDirectory,
+            BulkProgressListener bulkProgressListener
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> apiProxyObjectClient.downloadApiProxies(apiProxyNames, requestContext, targetDirectory, executor, bulkProgressListener),
+                executor
+        );
+    }
+
+    public CompletableFuture<Void> uploadApiProxy(RequestContext requestContext, String apiProxyName, byte[] bundledApiProxy) {
+        return CompletableFuture.runAsync(() -> apiProxyObjectClient.uploadApiProxy(requestContext, apiProxyName, bundledApiProxy), executor);
+    }
+
+    /**
+     * The stream is read on the executor thread, so it must stay open until the future is completed.
+     */
+    public CompletableFuture<Void> uploadApiProxy(RequestContext requestContext, String apiProxyName, InputStream bundledApiProxy) {
+        return CompletableFuture.runAsync(() -> apiProxyObjectClient.uploadApiProxy(requestContext, apiProxyName, bundledApiProxy), executor);
+    }
+
+    public CompletableFuture<Void> uploadApiProxy(RequestContext requestContext, String apiProxyName, Path bundledApiProxyFile) {
+        return CompletableFuture.runAsync(() -> apiProxyObjectClient.uploadApiProxy(requestContext, apiProxyName, bundledApiProxyFile), executor);
+    }
+
+    public CompletableFuture<Boolean> uploadApiProxyIfChanged(RequestContext requestContext, String apiProxyName, byte[] bundledApiProxy) {
+        return CompletableFuture.supplyAsync(() -> apiProxyObjectClient.uploadApiProxyIfChanged(requestContext, apiProxyName, bundledApiProxy), executor);
+    }
+
+    public CompletableFuture<Boolean> uploadApiProxyIfChanged(RequestContext requestContext, String apiProxyName, Path bundledApiProxyFile) {
+        return CompletableFuture.supplyAsync(() -> apiProxyObjectClient.uploadApiProxyIfChanged(requestContext, apiProxyName, bundledApiProxyFile), executor);
+    }
+
+    public CompletableFuture<Boolean> uploadApiProxyIfChanged(RequestContext requestContext, String apiProxyName, byte[] bundledApiProxy, String lastUploadedBundleDigest) {
+        return CompletableFuture.supplyAsync(
+                () -> apiProxyObjectClient.uploadApiProxyIfChanged(requestContext, apiProxyName, bundledApiProxy, lastUploadedBundleDigest),
+                executor
+        );
+    }
+
+    public CompletableFuture<Boolean> uploadApiProxyIfChanged(RequestContext requestContext, String apiProxyName, Path bundledApiProxyFile, String lastUploadedBundleDigest) {
+        return CompletableFuture.supplyAsync(
+                () -> apiProxyObjectClient.uploadApiProxyIfChanged(requestContext, apiProxyName, bundledApiProxyFile, lastUploadedBundleDigest),
+                executor
+        );
+    }
+
+    public CompletableFuture<Void> deleteApiProxy(String apiProxyId, RequestContext requestContext) {
+        return CompletableFuture.runAsync(() -> apiProxyObjectClient.deleteApiProxy(apiProxyId, requestContext), executor);
+    }
+}
@@ -0,0 +1,181 @@
+package com.figaf.integration.apimgmt.client;
+
+import com.figaf.integration.apimgmt.entity.*;
+import com.figaf.integration.apimgmt.utils.ExecutorUtils;
+import com.figaf.integration.common.entity.RequestContext;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking facade of {@link KeyMapEntriesClient}. Every call is executed on the executor
+ * (by default {@link ExecutorUtils#getDefaultExecutor()}, virtual threads on Java 21+) and its result is returned as a future.
+ * Configuration (cache, metrics) is done on the wrapped client.
+ */
+public class AsyncKeyMapEntriesClient {
+
+    private final KeyMapEntriesClient keyMapEntriesClient;
+    private final Executor executor;
+
+    public AsyncKeyMapEntriesClient(KeyMapEntriesClient keyMapEntriesClient) {
+        this(keyMapEntriesClient, ExecutorUtils.getDefaultExecutor());
+    }
+
+    public AsyncKeyMapEntriesClient(KeyMapEntriesClient keyMapEntriesClient, Executor executor) {
+        this.keyMapEntriesClient = keyMapEntriesClient;
+        this.executor = executor;
+    }
+
+    public KeyMapEntriesClient getKeyMapEntriesClient() {
+        return keyMapEntriesClient;
+    }
+
+    public CompletableFuture<List<String>> getKeyMapEntries(RequestContext requestContext) {
+        return CompletableFuture.supplyAsync(() -> keyMapEntriesClient.getKeyMapEntries(requestContext), executor);
+    }
+
+    public CompletableFuture<List<KeyMapEntryMetaData>> getKeyMapEntryMetaDataList(RequestContext requestContext) {
+        return CompletableFuture.supplyAsync(() -> keyMapEntriesClient.getKeyMapEntryMetaDataList(requestContext), executor);
+    }
+
+    public CompletableFuture<MetaDataChanges<KeyMapEntryMetaData>> getKeyMapEntryMetaDataChangedSince(RequestContext requestContext, Instant watermark) {
+        return CompletableFuture.supplyAsync(() -> keyMapEntriesClient.getKeyMapEntryMetaDataChangedSince(requestContext, watermark), executor);
+    }
+
+    public CompletableFuture<KeyMapEntryMetaData> getKeyMapEntryMetaData(String keyMapEntry, RequestContext requestContext) {
+        return CompletableFuture.supplyAsync(() -> keyMapEntriesClient.getKeyMapEntryMetaData(keyMapEntry, requestContext), executor);
+    }
+
+    public CompletableFuture<Boolean> isKeyMapEntryExist(String keyMapEntry, RequestContext requestContext) {
+        return CompletableFuture.supplyAsync(() -> keyMapEntriesClient.isKeyMapEntryExist(keyMapEntry, requestContext), executor);
+    }
+
+    public CompletableFuture<List<KeyMapEntryValue>> getKeyMapEntryValues(String keyMapEntry, RequestContext requestContext) {
+        return CompletableFuture.supplyAsync(() -> keyMapEntriesClient.getKeyMapEntryValues(keyMapEntry, requestContext), executor);
+    }
+
+    /**
+     * The consumer is called on the executor thread.
+     */
+    public CompletableFuture<Void> forEachKeyMapEntryValue(
+            String keyMapEntry,
+            Consumer<KeyMapEntryValue> keyMapEntryValueConsumer,
+            RequestContext requestContext
+    ) {
+        return CompletableFuture.runAsync(
+                () -> keyMapEntriesClient.forEachKeyMapEntryValue(keyMapEntry, keyMapEntryValueConsumer, requestContext),
+                executor
+        );
+    }
+
+    public CompletableFuture<Map<String, String>> getKeyToValueMap(String keyMapEntry, RequestContext requestContext) {
+        return CompletableFuture.supplyAsync(() -> keyMapEntriesClient.getKeyToValueMap(keyMapEntry, requestContext), executor);
+    }
+
+    public CompletableFuture<Map<String, Map<String, String>>> getKeyToValueMaps(Collection<String> keyMapEntries, RequestContext requestContext) {
+        return CompletableFuture.supplyAsync(() -> keyMapEntriesClient.getKeyToValueMaps(keyMapEntries, requestContext), executor);
+    }
+
+    public CompletableFuture<Void> createNewKeyMapEntry(KeyMapEntryMetaData keyMapEntryMetaData, RequestContext requestContext) {
+        return CompletableFuture.runAsync(() -> keyMapEntriesClient.createNewKeyMapEntry(keyMapEntryMetaData, requestContext), executor);
+    }
+
+    public CompletableFuture<Void> createOrUpdateKeyMapEntry(KeyMapEntryMetaData keyMapEntryMetaData, RequestContext requestContext) {
+        return CompletableFuture.runAsync(() -> keyMapEntriesClient.createOrUpdateKeyMapEntry(keyMapEntryMetaData, requestContext), executor);
+    }
+
+    public CompletableFuture<Void> deleteKeyMapEntry(String keyMapEntryId, RequestContext requestContext) {
+        return CompletableFuture.runAsync(() -> keyMapEntriesClient.deleteKeyMapEntry(keyMapEntryId, requestContext), executor);
+    }
+
+    public CompletableFuture<KeyMapEntryUpdateResult> updateKeyMapEntry(
+            String keyMapEntry,
+            Map<String, String> keyToValueMap,
+            RequestContext requestContext,
+            KeyMapBatchUpdateSettings keyMapBatchUpdateSettings
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> keyMapEntriesClient.updateKeyMapEntry(keyMapEntry, keyToValueMap, requestContext, keyMapBatchUpdateSettings),
+                executor
+        );
+    }
+
+    public CompletableFuture<KeyMapEntryUpdateResult> executeKeyMapEntryValueOperations(
+            String keyMapEntry,
+            List<KeyMapEntryValueOperation> keyMapEntryValueOperations,
+            RequestContext requestContext,
+            KeyMapBatchUpdateSettings keyMapBatchUpdateSettings
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> keyMapEntriesClient.executeKeyMapEntryValueOperations(keyMapEntry, keyMapEntryValueOperations, requestContext, keyMapBatchUpdateSettings),
+                executor
+        );
+    }
+
+    public CompletableFuture<Map<String, KeyMapEntryUpdateResult>> updateKeyMapEntries(
+            Map<String, Map<String, String>> keyMapEntryToKeyToValueMap,
+            RequestContext requestContext
+    ) {
+        return CompletableFuture.supplyAsync(() -> keyMapEntriesClient.updateKeyMapEntries(keyMapEntryToKeyToValueMap, requestContext), executor);
+    }
+
+    public CompletableFuture<Map<String, KeyMapEntryUpdateResult>> updateKeyMapEntries(
+            Map<String, Map<String, String>> keyMapEntryToKeyToValueMap,
+            RequestContext requestContext,
+            KeyMapBatchUpdateSettings keyMapBatchUpdateSettings
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> keyMapEntriesClient.updateKeyMapEntries(keyMapEntryToKeyToValueMap, requestContext, keyMapBatchUpdateSettings),
+                executor
+        );
+    }
+
+    public CompletableFuture<KeyMapEntryValue> getKeyMapEntryValue(String keyMapEntry, String keyMapEntryValueName, RequestContext requestContext) {
+        return CompletableFuture.supplyAsync(() -> keyMapEntriesClient.getKeyMapEntryValue(keyMapEntry, keyMapEntryValueName, requestContext), executor);
+    }
+
+    public CompletableFuture<Void> createOrUpdateKeyMapEntryValue(
+            String keyMapEntry,
+            String keyMapEntryValueName,
+            String newKeyMapEntryValue,
+            RequestContext requestContext
+    ) {
+        return CompletableFuture.runAsync(
+                () -> keyMapEntriesClient.createOrUpdateKeyMapEntryValue(keyMapEntry, keyMapEntryValueName, newKeyMapEntryValue, requestContext),
+                executor
+        );
+    }
+
+    public CompletableFuture<Void> addKeyMapEntryValue(
+            String keyMapEntry,
+            String keyMapEntryValueName,
+            String keyMapEntryValue,
+            RequestContext requestContext
+    ) {
+        return CompletableFuture.runAsync(
+                () -> keyMapEntriesClient.addKeyMapEntryValue(keyMapEntry, keyMapEntryValueName, keyMapEntryValue, requestContext),
+                executor
+        );
+    }
+
+    public CompletableFuture<Void> updateKeyMapEntryValue(
+            String keyMapEntry,
+            String keyMapEntryValueName,
+            String newKeyMapEntryValue,
+            RequestContext requestContext
+    ) {
+        return CompletableFuture.runAsync(
+                () -> keyMapEntriesClient.updateKeyMapEntryValue(keyMapEntry, keyMapEntryValueName, newKeyMapEntryValue, requestContext),
+                executor
+        );
+    }
+
+    public CompletableFuture<Void> deleteKeyMapEntryValue(String keyMapEntry, String keyMapEntryValueName, RequestContext requestContext) {
+        return CompletableFuture.runAsync(() -> keyMapEntriesClient.deleteKeyMapEntryValue(keyMapEntry, keyMapEntryValueName, requestContext), executor);
+    }
+}
@@ -0,0 +1,13 @@
+package com.figaf.integration.apimgmt.client;
+
+/**
+ * Is notified after every processed item of a bulk operation. It's called concurrently from several threads.
+ */
+@FunctionalInterface
+public interface BulkProgressListener {
+
+    BulkProgressListener NONE = (item, successful, processedCount, totalCount) -> {
+    };
+
+    void onItemProcessed(String item, boolean successful, int processedCount, int totalCount);
+}
@@ -0,0 +1,104 @@
+package com.figaf.integration.apimgmt.client;
+
+import com.figaf.integration.apimgmt.entity.MetaDataChanges;
+import com.figaf.integration.common.entity.RequestContext;
+import com.figaf.integration.common.exception.ClientIntegrationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.figaf.integration.apimgmt.utils.RequestContextUtils.getTenantKey;
+import static java.lang.String.format;
+
+/**
+ * Loads objects changed after a watermark. The {@code life_cycle/changed_at} filter is sent to the server,
+ * and if the server rejects it, the tenant is remembered and the full collection is filtered on the client side.
+ */
+@Slf4j
+class ChangedSinceLoader {
+
+    private static final String CHANGED_SINCE_FILTER = "%s&$filter=life_cycle/changed_at gt datetime'%s'";
+    private static final DateTimeFormatter ODATA_DATE_TIME_FORMATTER = DateTimeFormatter
+            .ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS")
+            .withZone(ZoneOffset.UTC);
+
+    private final Set<String> tenantsWithoutFilterSupport = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param collectionPath         path of the collection which already has a query part
+     * @param listLoader             loads and parses the collection for the given path
+     * @param modificationDateGetter returns {@code life_cycle/changed_at} of the element
+     */
+    <T> MetaDataChanges<T> load(
+            RequestContext requestContext,
+            String collectionPath,
+            Instant watermark,
+            Function<String, List<T>> listLoader,
+            Function<T, Date> modificationDateGetter
+    ) {
+        if (watermark == null) {
+            return toChanges(listLoader.apply(collectionPath), null, modificationDateGetter, false);
+        }
+        String tenantKey = getTenantKey(requestContext);
+        if (!tenantsWithoutFilterSupport.contains(tenantKey)) {
+            try {
+                List<T> items = listLoader.apply(format(CHANGED_SINCE_FILTER, collectionPath, ODATA_DATE_TIME_FORMATTER.format(watermark)));
+                // the result is filtered again in case the server ignored $filter
+                return toChanges(items, watermark, modificationDateGetter, true);
+            } catch (HttpStatusCodeException | ClientIntegrationException ex) {
+                if (!isFilterRejected(ex)) {
+                    throw ex;
+                }
+                log.warn("$filter on life_cycle/changed_at is not supported by {}, changes will be filtered on the client side: {}", tenantKey, ex.getMessage());
+                tenantsWithoutFilterSupport.add(tenantKey);
+                // the collection is requested once more without $filter
+                ClientCallRecorder.recordRetry();
+            }
+        }
+        return toChanges(listLoader.apply(collectionPath), watermark, modificationDateGetter, false);
+    }
+
+    private static <T> MetaDataChanges<T> toChanges(
+            List<T> items,
+            Instant watermark,
+            Function<T, Date> modificationDateGetter,
+            boolean filteredOnServer
+    ) {
+        List<T> changedItems = items.stream()
+                .filter(item -> watermark == null || isChangedAfter(modificationDateGetter.apply(item), watermark))
+                .collect(Collectors.toList());
+        Instant newWatermark = watermark;
+        for (T changedItem : changedItems) {
+            Date modificationDate = modificationDateGetter.apply(changedItem);
+            if (modificationDate != null && (newWatermark == null || modificationDate.toInstant().isAfter(newWatermark))) {
+                newWatermark = modificationDate.toInstant();
+            }
+        }
+        return new MetaDataChanges<>(changedItems, newWatermark, filteredOnServer);
+    }
+
+    private static boolean isChangedAfter(Date modificationDate, Instant watermark) {
+        // objects without changed_at can't be tracked, so they are always reported
+        return modificationDate == null || modificationDate.toInstant().isAfter(watermark);
+    }
+
+    /**
+     * @return whether the server answered that it doesn't support the sent {@code $filter}
+     */
+    static boolean isFilterRejected(RuntimeException ex) {
+        Throwable cause = ex instanceof HttpStatusCodeException ? ex : ex.getCause();
+        if (!(cause instanceof HttpStatusCodeException)) {
+            return false;
+        }
+        HttpStatus statusCode = HttpStatus.resolve(((HttpStatusCodeException) cause).getStatusCode().value());
+        return HttpStatus.BAD_REQUEST.equals(statusCode) || HttpStatus.NOT_IMPLEMENTED.equals(statusCode);
+    }
+}
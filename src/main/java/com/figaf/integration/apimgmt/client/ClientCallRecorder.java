@@ -0,0 +1,249 @@
+package com.figaf.integration.apimgmt.client;
+
+import com.figaf.integration.apimgmt.entity.ClientCallMetrics;
+import com.figaf.integration.common.entity.RequestContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.figaf.integration.apimgmt.utils.RequestContextUtils.getTenantTag;
+
+/**
+ * Measures public client calls and reports them to {@link ClientMetricsListener}. The call in progress is kept
+ * in a thread local, so response parsers and retry loops of the same thread can add their numbers to it.
+ * A call made by another call is reported under its own operation, then its numbers are added to the totals of the outer call,
+ * but not to its own numbers, so that meters built from the own numbers count every event once.
+ * When the listener is {@link ClientMetricsListener#NONE}, calls and parsers are executed as is, without any measuring.
+ */
+@Slf4j
+class ClientCallRecorder {
+
+    private static final ThreadLocal<CallState> CURRENT_CALL = new ThreadLocal<>();
+
+    private volatile ClientMetricsListener clientMetricsListener = ClientMetricsListener.NONE;
+
+    void setClientMetricsListener(ClientMetricsListener clientMetricsListener) {
+        this.clientMetricsListener = clientMetricsListener != null ? clientMetricsListener : ClientMetricsListener.NONE;
+    }
+
+    <R> R record(String operation, RequestContext requestContext, Supplier<R> call) {
+        ClientMetricsListener clientMetricsListener = this.clientMetricsListener;
+        if (clientMetricsListener == ClientMetricsListener.NONE) {
+            return call.get();
+        }
+        CallState previousCall = CURRENT_CALL.get();
+        CallState callState = new CallState();
+        CURRENT_CALL.set(callState);
+        long startTime = System.nanoTime();
+        boolean successful = false;
+        try {
+            R result = call.get();
+            successful = true;
+            return result;
+        } catch (RuntimeException ex) {
+            callState.statusCode = getStatusCode(ex);
+            throw ex;
+        } finally {
+            long durationNanos = System.nanoTime() - startTime;
+            if (previousCall != null) {
+                CURRENT_CALL.set(previousCall);
+                previousCall.addNestedCall(callState);
+            } else {
+                CURRENT_CALL.remove();
+            }
+            notifyListener(clientMetricsListener, new ClientCallMetrics(
+                    operation,
+                    getTenantTag(requestContext),
+                    durationNanos,
+                    callState.responseBytes,
+                    callState.parseNanos,
+                    callState.retries,
+                    callState.csrfTokenReuses,
+                    callState.statusCode,
+                    successful,
+                    callState.ownResponseBytes,
+                    callState.ownParseNanos,
+                    callState.ownRetries,
+                    callState.ownCsrfTokenReuses
+            ));
+        }
+    }
+
+    void record(String operation, RequestContext requestContext, Runnable call) {
+        record(operation, requestContext, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Wraps the response handler to measure its time and the size of the response.
+     * {@link ResponseEntity} responses also provide the status code.
+     */
+    <B, R> Function<B, R> parsing(Function<B, R> responseParser) {
+        if (clientMetricsListener == ClientMetricsListener.NONE) {
+            return responseParser;
+        }
+        return response -> {
+            CallState callState = CURRENT_CALL.get();
+            if (callState == null) {
+                return responseParser.apply(response);
+            }
+            long startTime = System.nanoTime();
+            try {
+                return responseParser.apply(response);
+            } finally {
+                callState.addParsing(System.nanoTime() - startTime);
+                callState.addResponse(response);
+            }
+        };
+    }
+
+    /**
+     * Binds the task to the call in progress on the current thread, so that the numbers of the task
+     * are added to the call when the task runs on another thread. Without a measured call the task is returned as is.
+     */
+    <R> Supplier<R> inCurrentCall(Supplier<R> task) {
+        CallState parentCall = CURRENT_CALL.get();
+        if (parentCall == null) {
+            return task;
+        }
+        return () -> {
+            CallState previousCall = CURRENT_CALL.get();
+            CallState callState = new CallState();
+            CURRENT_CALL.set(callState);
+            try {
+                return task.get();
+            } finally {
+                if (previousCall != null) {
+                    CURRENT_CALL.set(previousCall);
+                } else {
+                    CURRENT_CALL.remove();
+                }
+                parentCall.addTask(callState);
+            }
+        };
+    }
+
+    /**
+     * Counts a repeated request of the call in progress on the current thread, if it's measured.
+     */
+    static void recordRetry() {
+        CallState callState = CURRENT_CALL.get();
+        if (callState != null) {
+            callState.retries++;
+            callState.ownRetries++;
+        }
+    }
+
+    /**
+     * Counts a token fetching request saved by the call in progress on the current thread, if it's measured.
+     */
+    static void recordCsrfTokenReuse() {
+        CallState callState = CURRENT_CALL.get();
+        if (callState != null) {
+            callState.csrfTokenReuses++;
+            callState.ownCsrfTokenReuses++;
+        }
+    }
+
+    private static Integer getStatusCode(RuntimeException ex) {
+        Throwable cause = ex instanceof HttpStatusCodeException ? ex : ex.getCause();
+        return cause instanceof HttpStatusCodeException ? ((HttpStatusCodeException) cause).getStatusCode().value() : null;
+    }
+
+    private static void notifyListener(ClientMetricsListener clientMetricsListener, ClientCallMetrics clientCallMetrics) {
+        try {
+            clientMetricsListener.onCallCompleted(clientCallMetrics);
+        } catch (RuntimeException ex) {
+            log.warn("Metrics listener failed for {}: {}", clientCallMetrics.getOperation(), ex.getMessage());
+        }
+    }
+
+    private static class CallState {
+
+        private long responseBytes = -1;
+        private long parseNanos;
+        private int retries;
+        private int csrfTokenReuses;
+        private Integer statusCode;
+        // numbers of this call without nested calls
+        private long ownResponseBytes = -1;
+        private long ownParseNanos;
+        private int ownRetries;
+        private int ownCsrfTokenReuses;
+
+        // tasks and nested calls of one call can finish on several threads at the same time
+        private synchronized void addNestedCall(CallState callState) {
+            responseBytes = sum(responseBytes, callState.responseBytes);
+            parseNanos += callState.parseNanos;
+            retries += callState.retries;
+            csrfTokenReuses += callState.csrfTokenReuses;
+            if (callState.statusCode != null) {
+                statusCode = callState.statusCode;
+            }
+        }
+
+        // a task is a part of the call itself, so its own numbers are the own numbers of the call
+        private synchronized void addTask(CallState callState) {
+            addNestedCall(callState);
+            ownResponseBytes = sum(ownResponseBytes, callState.ownResponseBytes);
+            ownParseNanos += callState.ownParseNanos;
+            ownRetries += callState.ownRetries;
+            ownCsrfTokenReuses += callState.ownCsrfTokenReuses;
+        }
+
+        private void addParsing(long nanos) {
+            parseNanos += nanos;
+            ownParseNanos += nanos;
+        }
+
+        private void addResponse(Object response) {
+            Object body = response;
+            if (response instanceof ResponseEntity) {
+                ResponseEntity<?> responseEntity = (ResponseEntity<?>) response;
+                statusCode = responseEntity.getStatusCode().value();
+                body = responseEntity.getBody();
+            }
+            long bodySize;
+            if (body instanceof byte[]) {
+                bodySize = ((byte[]) body).length;
+            } else if (body instanceof String) {
+                bodySize = getUtf8Length((String) body);
+            } else {
+                return;
+            }
+            responseBytes = sum(responseBytes, bodySize);
+            ownResponseBytes = sum(ownResponseBytes, bodySize);
+        }
+
+        // -1 means that no response was parsed
+        private static long sum(long responseBytes, long otherResponseBytes) {
+            if (otherResponseBytes < 0) {
+                return responseBytes;
+            }
+            return responseBytes < 0 ? otherResponseBytes : responseBytes + otherResponseBytes;
+        }
+
+        private static long getUtf8Length(String value) {
+            long length = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char character = value.charAt(i);
+                if (character < 0x80) {
+                    length++;
+                } else if (character < 0x800) {
+                    length += 2;
+                } else if (Character.isHighSurrogate(character)) {
+                    length += 4;
+                    i++;
+                } else {
+                    length += 3;
+                }
+            }
+            return length;
+        }
+    }
+}
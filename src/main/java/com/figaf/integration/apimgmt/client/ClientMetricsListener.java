@@ -0,0 +1,18 @@
+package com.figaf.integration.apimgmt.client;
+
+import com.figaf.integration.apimgmt.entity.ClientCallMetrics;
+
+/**
+ * Receives metrics of every completed client call. It's called synchronously on the thread which executed the call,
+ * so it should be fast and must not block. {@link #NONE} disables the measuring completely.
+ *
+ * @see com.figaf.integration.apimgmt.metrics.MicrometerClientMetricsListener
+ */
+@FunctionalInterface
+public interface ClientMetricsListener {
+
+    ClientMetricsListener NONE = clientCallMetrics -> {
+    };
+
+    void onCallCompleted(ClientCallMetrics clientCallMetrics);
+}
@@ -0,0 +1,155 @@
+package com.figaf.integration.apimgmt.client;
+
+import com.figaf.integration.common.entity.RequestContext;
+import com.figaf.integration.common.exception.ClientIntegrationException;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import static com.figaf.integration.apimgmt.utils.RequestContextUtils.*;
+import static java.lang.String.format;
+
+/**
+ * Keeps the CSRF token of the basic authentication session per tenant, so that the token fetching request
+ * which {@code executeMethod} sends before every write is made only once per session.
+ * The token is fetched again only when the server rejects it (403 with {@code X-CSRF-Token: Required}
+ * or "CSRF token validation failed") or the session is expired (401).
+ * <p>
+ * Sessions are keyed by the tenant, host and user of the request context, and a session is reused only if it was
+ * opened to the host of the request context, so requests of one tenant are never sent with the session of another one.
+ */
+@Slf4j
+class CsrfTokenCache {
+
+    private static final String CSRF_TOKEN_HEADER = "X-CSRF-Token";
+    private static final String CSRF_TOKEN_REQUIRED = "Required";
+    private static final String CSRF_TOKEN_VALIDATION_FAILED = "CSRF token validation failed";
+
+    private final ConcurrentMap<String, CsrfSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * @param pathForMainRequest  path which is appended to the host of the cached session
+     * @param request             the main request, can be executed twice if the cached token is rejected,
+     *                            so its body must be repeatable
+     * @param tokenFetchingMethod executes the request with a freshly fetched token
+     */
+    <R> R execute(
+            RequestContext requestContext,
+            String pathForMainRequest,
+            SessionRequest<R> request,
+            Function<SessionRequest<R>, R> tokenFetchingMethod
+    ) {
+        String sessionKey = getSessionKey(requestContext);
+        CsrfSession csrfSession = sessions.get(sessionKey);
+        if (csrfSession != null && !csrfSession.isOpenedTo(getHost(requestContext))) {
+            log.debug("Cached session of {} is opened to {}, a new one will be opened", sessionKey, csrfSession.host);
+            sessions.remove(sessionKey, csrfSession);
+            csrfSession = null;
+        }
+        if (csrfSession != null) {
+            try {
+                R result = request.execute(csrfSession.host + pathForMainRequest, csrfSession.token, csrfSession.restTemplate);
+                ClientCallRecorder.recordCsrfTokenReuse();
+                return result;
+            } catch (HttpStatusCodeException | ClientIntegrationException ex) {
+                if (!isSessionRejected(ex)) {
+                    throw ex;
+                }
+                log.debug("Cached CSRF token of {} was rejected, it will be fetched again: {}", sessionKey, ex.getMessage());
+                sessions.remove(sessionKey, csrfSession);
+                ClientCallRecorder.recordRetry();
+            }
+        }
+        return executeWithNewToken(sessionKey, pathForMainRequest, request, tokenFetchingMethod);
+    }
+
+    /**
+     * Always fetches a new token, for requests which can't be repeated. The new session is still cached for others.
+     */
+    <R> R executeWithNewToken(
+            RequestContext requestContext,
+            String pathForMainRequest,
+            SessionRequest<R> request,
+            Function<SessionRequest<R>, R> tokenFetchingMethod
+    ) {
+        return executeWithNewToken(getSessionKey(requestContext), pathForMainRequest, request, tokenFetchingMethod);
+    }
+
+    void invalidate(RequestContext requestContext) {
+        sessions.remove(getSessionKey(requestContext));
+    }
+
+    private <R> R executeWithNewToken(
+            String sessionKey,
+            String pathForMainRequest,
+            SessionRequest<R> request,
+            Function<SessionRequest<R>, R> tokenFetchingMethod
+    ) {
+        return tokenFetchingMethod.apply((url, token, restTemplate) -> {
+            R result = request.execute(url, token, restTemplate);
+            // the session can be reused only if the url is built as host + path
+            if (url.endsWith(pathForMainRequest) && StringUtils.isNotEmpty(token)) {
+                sessions.put(sessionKey, new CsrfSession(url.substring(0, url.length() - pathForMainRequest.length()), token, restTemplate));
+            }
+            return result;
+        });
+    }
+
+    private static String getSessionKey(RequestContext requestContext) {
+        // the tenant key can be restTemplateWrapperKey, so host and user are added explicitly
+        return format("%s|%s|%s", getTenantKey(requestContext), getHost(requestContext), getUser(requestContext));
+    }
+
+    private static boolean isSessionRejected(RuntimeException ex) {
+        Throwable cause = ex instanceof HttpStatusCodeException ? ex : ex.getCause();
+        if (!(cause instanceof HttpStatusCodeException)) {
+            return false;
+        }
+        HttpStatusCodeException httpStatusCodeException = (HttpStatusCodeException) cause;
+        int statusCode = httpStatusCodeException.getStatusCode().value();
+        if (statusCode == HttpStatus.UNAUTHORIZED.value()) {
+            return true;
+        }
+        if (statusCode != HttpStatus.FORBIDDEN.value()) {
+            return false;
+        }
+        String csrfTokenHeader = httpStatusCodeException.getResponseHeaders() != null
+                ? httpStatusCodeException.getResponseHeaders().getFirst(CSRF_TOKEN_HEADER)
+                : null;
+        return CSRF_TOKEN_REQUIRED.equalsIgnoreCase(csrfTokenHeader) ||
+                StringUtils.containsIgnoreCase(httpStatusCodeException.getResponseBodyAsString(), CSRF_TOKEN_VALIDATION_FAILED);
+    }
+
+    @FunctionalInterface
+    interface SessionRequest<R> {
+
+        R execute(String url, String token, RestTemplate restTemplate);
+    }
+
+    @AllArgsConstructor
+    private static class CsrfSession {
+
+        private final String host;
+        private final String token;
+        private final RestTemplate restTemplate;
+
+        private boolean isOpenedTo(String requestHost) {
+            if (requestHost == null) {
+                return true;
+            }
+            try {
+                return requestHost.equalsIgnoreCase(URI.create(host).getHost());
+            } catch (IllegalArgumentException ex) {
+                return false;
+            }
+        }
+    }
+}
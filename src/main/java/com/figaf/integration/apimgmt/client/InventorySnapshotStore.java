@@ -0,0 +1,317 @@
+package com.figaf.integration.apimgmt.client;
+
+import com.figaf.integration.apimgmt.entity.*;
+import com.figaf.integration.apimgmt.utils.ExecutorUtils;
+import com.figaf.integration.apimgmt.utils.InventorySnapshotFormat;
+import com.figaf.integration.common.entity.RequestContext;
+import com.figaf.integration.common.exception.ClientIntegrationException;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static com.figaf.integration.apimgmt.utils.RequestContextUtils.getTenantKey;
+import static java.lang.String.format;
+
+/**
+ * Keeps API proxies, key map entries and their values of every tenant in a local file, so that an application can
+ * answer from the last known state right after the start and refresh it in the background.
+ * <p>
+ * {@link #getSnapshot(RequestContext)} never sends requests, it returns the snapshot from memory or reads it from
+ * {@code directory}. {@link #refreshAsync(RequestContext)} requests only objects changed after the watermarks of
+ * the snapshot and merges them into it. Deletions are noticed by comparing the merged listing with the total count
+ * on the server, in that case the listing is reloaded completely. Values are reloaded for changed key map entries only.
+ * The first refresh of a tenant without a snapshot loads everything.
+ * <p>
+ * Snapshots are shared between callers and must not be modified.
+ */
+@Slf4j
+public class InventorySnapshotStore {
+
+    private static final String SNAPSHOT_FILE_EXTENSION = ".snapshot";
+    // values of a few changed key map entries are requested one by one, otherwise together by getKeyToValueMaps
+    private static final int MAX_SEPARATELY_LOADED_KEY_MAP_ENTRIES = 8;
+
+    private final ApiProxyObjectClient apiProxyObjectClient;
+    private final KeyMapEntriesClient keyMapEntriesClient;
+    private final Path directory;
+    private final Executor executor;
+    private final ConcurrentMap<String, InventorySnapshot> tenantToSnapshot = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<InventorySnapshot>> tenantToRefresh = new ConcurrentHashMap<>();
+
+    public InventorySnapshotStore(ApiProxyObjectClient apiProxyObjectClient, KeyMapEntriesClient keyMapEntriesClient, Path directory) {
+        this(apiProxyObjectClient, keyMapEntriesClient, directory, ExecutorUtils.getDefaultExecutor());
+    }
+
+    public InventorySnapshotStore(
+            ApiProxyObjectClient apiProxyObjectClient,
+            KeyMapEntriesClient keyMapEntriesClient,
+            Path directory,
+            Executor executor
+    ) {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory must not be null");
+        }
+        this.apiProxyObjectClient = apiProxyObjectClient;
+        this.keyMapEntriesClient = keyMapEntriesClient;
+        this.directory = directory;
+        this.executor = executor;
+    }
+
+    /**
+     * @return the last refreshed snapshot of the tenant, {@code null} if the tenant has never been refreshed
+     * or its file can't be read
+     */
+    public InventorySnapshot getSnapshot(RequestContext requestContext) {
+        return tenantToSnapshot.computeIfAbsent(getTenantKey(requestContext), this::readSnapshot);
+    }
+
+    /**
+     * Refreshes the snapshot of the tenant on the executor. If the tenant is already being refreshed, the running refresh is returned.
+     */
+    public CompletableFuture<InventorySnapshot> refreshAsync(RequestContext requestContext) {
+        String tenantKey = getTenantKey(requestContext);
+        CompletableFuture<InventorySnapshot> newRefresh = new CompletableFuture<>();
+        CompletableFuture<InventorySnapshot> runningRefresh = tenantToRefresh.putIfAbsent(tenantKey, newRefresh);
+        if (runningRefresh != null) {
+            log.debug("Snapshot of {} is already being refreshed", tenantKey);
+            return runningRefresh;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    InventorySnapshot inventorySnapshot = refreshSnapshot(requestContext);
+                    tenantToRefresh.remove(tenantKey, newRefresh);
+                    newRefresh.complete(inventorySnapshot);
+                } catch (Throwable ex) {
+                    tenantToRefresh.remove(tenantKey, newRefresh);
+                    newRefresh.completeExceptionally(ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            tenantToRefresh.remove(tenantKey, newRefresh);
+            throw ex;
+        }
+        return newRefresh;
+    }
+
+    public InventorySnapshot refresh(RequestContext requestContext) {
+        try {
+            return refreshAsync(requestContext).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    public void deleteSnapshot(RequestContext requestContext) {
+        String tenantKey = getTenantKey(requestContext);
+        tenantToSnapshot.remove(tenantKey);
+        try {
+            Files.deleteIfExists(getSnapshotFile(tenantKey));
+        } catch (IOException ex) {
+            throw new ClientIntegrationException(format("Couldn't delete snapshot of %s: %s", tenantKey, ex.getMessage()), ex);
+        }
+    }
+
+    private InventorySnapshot refreshSnapshot(RequestContext requestContext) {
+        String tenantKey = getTenantKey(requestContext);
+        long startTime = System.nanoTime();
+        Instant refreshedAt = Instant.now();
+        InventorySnapshot previousSnapshot = getSnapshot(requestContext);
+
+        ListingRefresh<ApiProxyMetaData> apiProxiesRefresh = refreshListing(
+                previousSnapshot != null ? previousSnapshot.getApiProxies() : null,
+                previousSnapshot != null ? previousSnapshot.getApiProxiesWatermark() : null,
+                watermark -> apiProxyObjectClient.getApiObjectMetaDataChangedSince(requestContext, watermark),
+                () -> apiProxyObjectClient.getApiObjectCount(requestContext),
+                ApiProxyMetaData::getName,
+                format("API proxies of %s", tenantKey)
+        );
+        ListingRefresh<KeyMapEntryMetaData> keyMapEntriesRefresh = refreshListing(
+                previousSnapshot != null ? previousSnapshot.getKeyMapEntries() : null,
+                previousSnapshot != null ? previousSnapshot.getKeyMapEntriesWatermark() : null,
+                watermark -> keyMapEntriesClient.getKeyMapEntryMetaDataChangedSince(requestContext, watermark),
+                () -> keyMapEntriesClient.getKeyMapEntryCount(requestContext),
+                KeyMapEntryMetaData::getName,
+                format("key map entries of %s", tenantKey)
+        );
+        Map<String, List<KeyMapEntryValue>> keyMapEntryToValues = refreshKeyMapEntryValues(
+                requestContext,
+                keyMapEntriesRefresh,
+                previousSnapshot != null ? previousSnapshot.getKeyMapEntryToValues() : Collections.emptyMap()
+        );
+
+        InventorySnapshot inventorySnapshot = new InventorySnapshot(
+                tenantKey,
+                Collections.unmodifiableList(apiProxiesRefresh.items),
+                Collections.unmodifiableList(keyMapEntriesRefresh.items),
+                Collections.unmodifiableMap(keyMapEntryToValues),
+                apiProxiesRefresh.watermark,
+                keyMapEntriesRefresh.watermark,
+                refreshedAt
+        );
+        tenantToSnapshot.put(tenantKey, inventorySnapshot);
+        writeSnapshot(inventorySnapshot);
+        log.debug("Snapshot of {} is refreshed in {} ms: {} API proxies, {} key map entries",
+                tenantKey, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), inventorySnapshot.getApiProxies().size(), inventorySnapshot.getKeyMapEntries().size());
+        return inventorySnapshot;
+    }
+
+    /**
+     * @param previousItems {@code null} if there is no snapshot yet, then the listing is loaded completely
+     */
+    private static <T> ListingRefresh<T> refreshListing(
+            List<T> previousItems,
+            Instant watermark,
+            Function<Instant, MetaDataChanges<T>> changesLoader,
+            Supplier<Long> countLoader,
+            Function<T, String> nameGetter,
+            String listing
+    ) {
+        if (previousItems != null) {
+            MetaDataChanges<T> changes = changesLoader.apply(watermark);
+            Map<String, T> nameToItem = new LinkedHashMap<>();
+            for (T item : previousItems) {
+                nameToItem.put(nameGetter.apply(item), item);
+            }
+            Set<String> changedNames = new HashSet<>();
+            for (T changedItem : changes.getChangedItems()) {
+                nameToItem.put(nameGetter.apply(changedItem), changedItem);
+                changedNames.add(nameGetter.apply(changedItem));
+            }
+            // changed objects can only add names, so more names than on the server means that something was deleted
+            Long count = countLoader.get();
+            if (count != null && count == nameToItem.size()) {
+                log.debug("{} {} are changed since {}", changedNames.size(), listing, watermark);
+                return new ListingRefresh<>(new ArrayList<>(nameToItem.values()), changes.getWatermark(), changedNames);
+            }
+            log.debug("{} has {} elements on the server and {} in the snapshot, it's reloaded completely", listing, count, nameToItem.size());
+        }
+        MetaDataChanges<T> allItems = changesLoader.apply(null);
+        return new ListingRefresh<>(allItems.getChangedItems(), allItems.getWatermark(), null);
+    }
+
+    private Map<String, List<KeyMapEntryValue>> refreshKeyMapEntryValues(
+            RequestContext requestContext,
+            ListingRefresh<KeyMapEntryMetaData> keyMapEntriesRefresh,
+            Map<String, List<KeyMapEntryValue>> previousKeyMapEntryToValues
+    ) {
+        Map<String, List<KeyMapEntryValue>> keyMapEntryToValues = new HashMap<>();
+        Set<String> keyMapEntriesToLoad = new LinkedHashSet<>();
+        for (KeyMapEntryMetaData keyMapEntryMetaData : keyMapEntriesRefresh.items) {
+            String keyMapEntry = keyMapEntryMetaData.getName();
+            List<KeyMapEntryValue> previousKeyMapEntryValues = previousKeyMapEntryToValues.get(keyMapEntry);
+            boolean changed = keyMapEntriesRefresh.changedNames == null || keyMapEntriesRefresh.changedNames.contains(keyMapEntry);
+            if (changed || previousKeyMapEntryValues == null) {
+                keyMapEntriesToLoad.add(keyMapEntry);
+            } else {
+                keyMapEntryToValues.put(keyMapEntry, previousKeyMapEntryValues);
+            }
+        }
+        if (keyMapEntriesToLoad.isEmpty()) {
+            return keyMapEntryToValues;
+        }
+        if (keyMapEntriesToLoad.size() <= MAX_SEPARATELY_LOADED_KEY_MAP_ENTRIES) {
+            for (String keyMapEntry : keyMapEntriesToLoad) {
+                keyMapEntryToValues.put(keyMapEntry, Collections.unmodifiableList(keyMapEntriesClient.getKeyMapEntryValues(keyMapEntry, requestContext)));
+            }
+            return keyMapEntryToValues;
+        }
+        // entries deleted after the listing was loaded are absent, their values are loaded by the next refresh if they reappear
+        Map<String, Map<String, String>> keyToValueMaps = keyMapEntriesClient.getKeyToValueMaps(keyMapEntriesToLoad, requestContext);
+        for (Map.Entry<String, Map<String, String>> keyToValueMapEntry : keyToValueMaps.entrySet()) {
+            keyMapEntryToValues.put(keyToValueMapEntry.getKey(), Collections.unmodifiableList(keyToValueMapEntry.getValue().entrySet().stream()
+                    .map(keyToValue -> new KeyMapEntryValue(keyToValueMapEntry.getKey(), keyToValue.getKey(), keyToValue.getValue()))
+                    .collect(Collectors.toList())));
+        }
+        return keyMapEntryToValues;
+    }
+
+    private InventorySnapshot readSnapshot(String tenantKey) {
+        Path snapshotFile = getSnapshotFile(tenantKey);
+        long startTime = System.nanoTime();
+        try (InputStream inputStream = Files.newInputStream(snapshotFile)) {
+            InventorySnapshot inventorySnapshot = InventorySnapshotFormat.read(inputStream);
+            if (!tenantKey.equals(inventorySnapshot.getTenantKey())) {
+                log.warn("Snapshot {} belongs to {} instead of {}, it's ignored", snapshotFile, inventorySnapshot.getTenantKey(), tenantKey);
+                return null;
+            }
+            log.debug("Snapshot of {} refreshed at {} is read in {} ms", tenantKey, inventorySnapshot.getRefreshedAt(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            return inventorySnapshot;
+        } catch (NoSuchFileException ex) {
+            return null;
+        } catch (IOException | RuntimeException ex) {
+            // a broken snapshot is replaced by the next refresh
+            log.warn("Couldn't read snapshot {} of {}: {}", snapshotFile, tenantKey, ex.toString());
+            return null;
+        }
+    }
+
+    private void writeSnapshot(InventorySnapshot inventorySnapshot) {
+        Path snapshotFile = getSnapshotFile(inventorySnapshot.getTenantKey());
+        Path temporaryFile = null;
+        try {
+            Files.createDirectories(directory);
+            // the snapshot is replaced at once, so a crash during the writing leaves the previous one readable
+            temporaryFile = Files.createTempFile(directory, snapshotFile.getFileName().toString(), ".tmp");
+            try (OutputStream outputStream = Files.newOutputStream(temporaryFile)) {
+                InventorySnapshotFormat.write(inventorySnapshot, outputStream);
+            }
+            try {
+                Files.move(temporaryFile, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            // the refreshed snapshot is still kept in memory
+            log.warn("Couldn't write snapshot {} of {}: {}", snapshotFile, inventorySnapshot.getTenantKey(), ex.toString());
+            if (temporaryFile != null) {
+                try {
+                    Files.deleteIfExists(temporaryFile);
+                } catch (IOException deleteException) {
+                    log.debug("Couldn't delete {}: {}", temporaryFile, deleteException.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Tenant keys can contain characters which aren't allowed in file names, so the file is named by the hash of the key.
+     */
+    private Path getSnapshotFile(String tenantKey) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(tenantKey.getBytes(StandardCharsets.UTF_8));
+            StringBuilder fileName = new StringBuilder(hash.length * 2 + SNAPSHOT_FILE_EXTENSION.length());
+            for (byte hashByte : hash) {
+                fileName.append(Character.forDigit((hashByte >> 4) & 0xF, 16)).append(Character.forDigit(hashByte & 0xF, 16));
+            }
+            return directory.resolve(fileName.append(SNAPSHOT_FILE_EXTENSION).toString());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not supported", ex);
+        }
+    }
+
+    @AllArgsConstructor
+    private static class ListingRefresh<T> {
+
+        private final List<T> items;
+        private final Instant watermark;
+        // null if the listing was loaded completely
+        private final Set<String> changedNames;
+    }
+}
@@ -1,23 +1,39 @@
 package com.figaf.integration.apimgmt.client;
 
-import com.figaf.integration.apimgmt.entity.KeyMapEntryMetaData;
-import com.figaf.integration.apimgmt.entity.KeyMapEntryValue;
+import com.figaf.integration.apimgmt.entity.*;
 import com.figaf.integration.apimgmt.response_parser.KeyMapEntriesParser;
+import com.figaf.integration.apimgmt.response_parser.ODataBatchResponseParser;
+import com.figaf.integration.apimgmt.utils.ExecutorUtils;
+import com.figaf.integration.apimgmt.utils.ODataBatchRequestBody;
+import com.figaf.integration.apimgmt.utils.ODataBatchWriter;
 import com.figaf.integration.common.client.BaseClient;
 import com.figaf.integration.common.entity.RequestContext;
 import com.figaf.integration.common.exception.ClientIntegrationException;
 import com.figaf.integration.common.factory.HttpClientsFactory;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.ListUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.core.io.Resource;
 import org.springframework.http.*;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriUtils;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.*;
-
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.figaf.integration.apimgmt.utils.RequestContextUtils.getTenantKey;
 import static com.figaf.integration.common.entity.AuthenticationType.OAUTH;
 import static java.lang.String.format;
 import static org.springframework.http.HttpMethod.DELETE;
@@ -31,160 +47,285 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8;
 @Slf4j
 public class KeyMapEntriesClient extends BaseClient {
 
+    private static final String MANAGEMENT_SERVICE_ROOT = "/apiportal/api/1.0/Management.svc/";
+    private static final String KEY_MAP_ENTRIES_WITH_VALUES = "/apiportal/api/1.0/Management.svc/KeyMapEntries?forceUpdateFromRT=true&$expand=keyMapEntryValues&$format=json";
+    private static final String KEY_MAP_ENTRIES_WITH_VALUES_FILTERED = KEY_MAP_ENTRIES_WITH_VALUES + "&$filter=%s";
     private static final String BATCH_REQUEST = "/apiportal/api/1.0/Management.svc/$batch";
     private static final String KEY_MAP_ENTRIES_WITH_PARAMETERS = "/apiportal/api/1.0/Management.svc/KeyMapEntries?forceUpdateFromRT=true&$format=json";
+    // $top/$skip pages are stable only in a fixed order
+    private static final String KEY_MAP_ENTRIES_WITH_PARAMETERS_ORDERED_BY_NAME = KEY_MAP_ENTRIES_WITH_PARAMETERS + "&$orderby=name";
     private static final String KEY_MAP_ENTRIES = "/apiportal/api/1.0/Management.svc/KeyMapEntries";
+    private static final String KEY_MAP_ENTRIES_LATEST_CHANGE = "/apiportal/api/1.0/Management.svc/KeyMapEntries?forceUpdateFromRT=true&$format=json&$top=1&$orderby=life_cycle/changed_at desc&$inlinecount=allpages";
+    // small request which is used only to get CSRF token and session for calls which need response headers
+    private static final String KEY_MAP_ENTRIES_TOKEN = "/apiportal/api/1.0/Management.svc/KeyMapEntries?$top=1&$format=json";
     private static final String KEY_MAP_ENTRY_VALUES_WITH_PARAMETERS = "/apiportal/api/1.0/Management.svc/KeyMapEntries('%s')/keyMapEntryValues?forceUpdateFromRT=true&$format=json";
     private static final String KEY_MAP_ENTRY = "/apiportal/api/1.0/Management.svc/KeyMapEntries('%s')?forceUpdateFromRT=true&$format=json";
     private static final String KEY_MAP_ENTRY_VALUES = "/apiportal/api/1.0/Management.svc/KeyMapEntryValues";
     private static final String KEY_MAP_ENTRY_VALUE = "/apiportal/api/1.0/Management.svc/KeyMapEntryValues(map_name='%s',name='%s')";
+    private static final String KEY_MAP_ENTRY_VALUE_WITH_PARAMETERS = "/apiportal/api/1.0/Management.svc/KeyMapEntryValues(map_name='%s',name='%s')?forceUpdateFromRT=true&$format=json";
     private static final String KEY_MAP_ENTRIES_WITH_NAME = "/apiportal/api/1.0/Management.svc/KeyMapEntries('%s')";
+    private static final String KEY_MAP_ENTRY_VALUE_IN_BATCH = "KeyMapEntryValues(map_name='%s',name='%s')";
 
-    // according to HTTP spec https://tools.ietf.org/html/rfc2616#section-2.2, CRLF is a correct line break for HTTP protocol
-    private static final String BATCH_REQUEST_LINE_SEPARATOR = "\r\n";
-
-    private static final String BATCH_UPDATE_BODY_TEMPLATE = "--%s" + BATCH_REQUEST_LINE_SEPARATOR +
-            "Content-Type: multipart/mixed; boundary=%s" + BATCH_REQUEST_LINE_SEPARATOR + BATCH_REQUEST_LINE_SEPARATOR +
-            "%s" +
-            "--%s--" + BATCH_REQUEST_LINE_SEPARATOR;
+    // names of key maps in one $filter, so that the request url stays short
+    private static final int KEY_MAP_ENTRIES_PER_FILTERED_REQUEST = 20;
 
-    private static final String BATCH_UPDATE_CHANGE_SET_START_TEMPLATE = "--%s" + BATCH_REQUEST_LINE_SEPARATOR +
-            "Content-Type: application/http" + BATCH_REQUEST_LINE_SEPARATOR +
-            "Content-Transfer-Encoding: binary" + BATCH_REQUEST_LINE_SEPARATOR + BATCH_REQUEST_LINE_SEPARATOR;
+    private volatile MetaDataCache metaDataCache;
+    private final ChangedSinceLoader changedSinceLoader = new ChangedSinceLoader();
+    private final ClientCallRecorder clientCallRecorder = new ClientCallRecorder();
+    private final Set<String> tenantsWithoutNameFilterSupport = ConcurrentHashMap.newKeySet();
+    private final CsrfTokenCache csrfTokenCache = new CsrfTokenCache();
+    private volatile TenantRateLimiter tenantRateLimiter = new TenantRateLimiter();
+    private volatile RequestCoalescer requestCoalescer;
+    private volatile Executor batchExecutor = ExecutorUtils.getDefaultExecutor();
 
-    private static final String BATCH_UPDATE_CHANGE_SET_END_TEMPLATE = "--%s--" + BATCH_REQUEST_LINE_SEPARATOR + BATCH_REQUEST_LINE_SEPARATOR;
-
-    private static final String COMMON_PART_OF_BODY = "RequestId: %s" + BATCH_REQUEST_LINE_SEPARATOR +
-            "Accept-Language: en" + BATCH_REQUEST_LINE_SEPARATOR +
-            "Accept: application/json" + BATCH_REQUEST_LINE_SEPARATOR +
-            "MaxDataServiceVersion: 2.0" + BATCH_REQUEST_LINE_SEPARATOR +
-            "DataServiceVersion: 2.0" + BATCH_REQUEST_LINE_SEPARATOR;
+    public KeyMapEntriesClient(HttpClientsFactory httpClientsFactory) {
+        super(httpClientsFactory);
+    }
 
-    private static final String BATCH_UPDATE_CHANGE_SET_BODY_FOR_ADDING_VALUE_TEMPLATE = "POST KeyMapEntryValues HTTP/1.1" + BATCH_REQUEST_LINE_SEPARATOR +
-            COMMON_PART_OF_BODY +
-            "Content-Type: application/json" + BATCH_REQUEST_LINE_SEPARATOR +
-            "Content-Length: %d" + BATCH_REQUEST_LINE_SEPARATOR + BATCH_REQUEST_LINE_SEPARATOR +
-            "%s" + BATCH_REQUEST_LINE_SEPARATOR;
+    /**
+     * Enables caching of {@link #getKeyMapEntryMetaDataList(RequestContext)} results, {@code null} disables it.
+     */
+    public void setMetaDataCache(MetaDataCache metaDataCache) {
+        this.metaDataCache = metaDataCache;
+    }
 
-    private static final String PAYLOAD_FOR_ADDING_VALUE_TEMPLATE = "{\"name\":\"%s\",\"value\":\"%s\",\"map_name\":\"%s\",\"keyMapEntry\":{\"__metadata\":{\"uri\":\"KeyMapEntries('%s')\"}}}";
+    /**
+     * Reports latency, response size, parse time, retries and status code of every call, {@code null} disables the measuring.
+     */
+    public void setClientMetricsListener(ClientMetricsListener clientMetricsListener) {
+        clientCallRecorder.setClientMetricsListener(clientMetricsListener);
+    }
 
-    private static final String BATCH_UPDATE_CHANGE_SET_BODY_FOR_UPDATING_VALUE_TEMPLATE = "PUT KeyMapEntryValues(map_name='%s',name='%s') HTTP/1.1" + BATCH_REQUEST_LINE_SEPARATOR +
-            COMMON_PART_OF_BODY +
-            "Content-Type: application/json" + BATCH_REQUEST_LINE_SEPARATOR +
-            "Content-Length: %s" + BATCH_REQUEST_LINE_SEPARATOR + BATCH_REQUEST_LINE_SEPARATOR +
-            "{\"value\":\"%s\"}" + BATCH_REQUEST_LINE_SEPARATOR;
+    /**
+     * Replaces the default rate limiter of this client, one limiter can be shared by clients working with the same tenants.
+     * {@code null} disables the rate limiting and retries of throttled requests.
+     */
+    public void setTenantRateLimiter(TenantRateLimiter tenantRateLimiter) {
+        this.tenantRateLimiter = tenantRateLimiter;
+    }
 
-    private static final String BATCH_UPDATE_CHANGE_SET_BODY_FOR_DELETION_VALUE_TEMPLATE = "DELETE KeyMapEntryValues(map_name='%s',name='%s') HTTP/1.1" + BATCH_REQUEST_LINE_SEPARATOR +
-            COMMON_PART_OF_BODY + BATCH_REQUEST_LINE_SEPARATOR + BATCH_REQUEST_LINE_SEPARATOR;
+    /**
+     * Enables sharing of in-flight metadata and value reads between concurrent identical calls, {@code null} disables it.
+     */
+    public void setRequestCoalescer(RequestCoalescer requestCoalescer) {
+        this.requestCoalescer = requestCoalescer;
+    }
 
-    public KeyMapEntriesClient(HttpClientsFactory httpClientsFactory) {
-        super(httpClientsFactory);
+    /**
+     * Replaces the executor which sends $batch requests of key map updates in parallel,
+     * {@code null} restores the shared default one. The executor is not shut down by the client.
+     */
+    public void setBatchExecutor(Executor batchExecutor) {
+        this.batchExecutor = batchExecutor != null ? batchExecutor : ExecutorUtils.getDefaultExecutor();
     }
 
     public List<String> getKeyMapEntries(RequestContext requestContext) {
         log.debug("#getKeyMapEntries(RequestContext requestContext): {}", requestContext);
-        if (OAUTH.equals(requestContext.getAuthenticationType())) {
-            return executeGetPublicApiAndReturnResponseBody(requestContext, KEY_MAP_ENTRIES_WITH_PARAMETERS, KeyMapEntriesParser::buildKeyMapEntryList);
-        }
-        return executeGet(requestContext, KEY_MAP_ENTRIES_WITH_PARAMETERS, KeyMapEntriesParser::buildKeyMapEntryList);
+        return clientCallRecorder.record("getKeyMapEntries", requestContext, () -> executeCoalesced(
+                requestContext,
+                "getKeyMapEntries",
+                KEY_MAP_ENTRIES_WITH_PARAMETERS,
+                () -> {
+                    if (OAUTH.equals(requestContext.getAuthenticationType())) {
+                        return executeThrottled(requestContext, HttpMethod.GET, () -> executeGetPublicApiAndReturnResponseBody(requestContext, KEY_MAP_ENTRIES_WITH_PARAMETERS, clientCallRecorder.parsing(KeyMapEntriesParser::buildKeyMapEntryList)));
+                    }
+                    return executeThrottled(requestContext, HttpMethod.GET, () -> executeGet(requestContext, KEY_MAP_ENTRIES_WITH_PARAMETERS, clientCallRecorder.parsing(KeyMapEntriesParser::buildKeyMapEntryList)));
+                },
+                ArrayList::new
+        ));
     }
 
     public List<KeyMapEntryMetaData> getKeyMapEntryMetaDataList(RequestContext requestContext) {
         log.debug("#getKeyMapEntriesList(RequestContext requestContext): {}", requestContext);
-        if (OAUTH.equals(requestContext.getAuthenticationType())) {
-            return executeMethodPublicApi(
-                    requestContext,
-                    KEY_MAP_ENTRIES_WITH_PARAMETERS,
-                    null,
-                    HttpMethod.GET,
-                    x -> KeyMapEntriesParser.buildKeyMapEntryMetaDataList(x.getBody())
-            );
-        }
-        return executeGet(
+        return clientCallRecorder.record("getKeyMapEntryMetaDataList", requestContext, () -> executeCoalesced(
                 requestContext,
+                "getKeyMapEntryMetaDataList",
                 KEY_MAP_ENTRIES_WITH_PARAMETERS,
-                KeyMapEntriesParser::buildKeyMapEntryMetaDataList
+                () -> {
+                    MetaDataCache metaDataCache = this.metaDataCache;
+                    if (metaDataCache != null) {
+                        return metaDataCache.get(
+                                requestContext,
+                                KEY_MAP_ENTRIES_WITH_PARAMETERS,
+                                eTag -> getKeyMapEntryMetaDataListing(requestContext, eTag),
+                                () -> getLatestChangedKeyMapEntryMetaData(requestContext),
+                                KeyMapEntryMetaData::getModificationDate,
+                                KeyMapEntryMetaData::new
+                        );
+                    }
+                    return getKeyMapEntryMetaDataList(requestContext, KEY_MAP_ENTRIES_WITH_PARAMETERS);
+                },
+                KeyMapEntriesClient::copyKeyMapEntryMetaDataList
+        ));
+    }
+
+    /**
+     * Returns key map entries changed after the {@code watermark} ({@code null} returns all of them) together with the new watermark.
+     * The filter is executed by the server if it supports {@code $filter} on {@code life_cycle/changed_at}, otherwise on the client side.
+     */
+    public MetaDataChanges<KeyMapEntryMetaData> getKeyMapEntryMetaDataChangedSince(RequestContext requestContext, Instant watermark) {
+        log.debug("#getKeyMapEntryMetaDataChangedSince(RequestContext requestContext, Instant watermark): {}, {}", requestContext, watermark);
+        return clientCallRecorder.record("getKeyMapEntryMetaDataChangedSince", requestContext, () -> changedSinceLoader.load(
+                requestContext,
+                KEY_MAP_ENTRIES_WITH_PARAMETERS,
+                watermark,
+                path -> getKeyMapEntryMetaDataList(requestContext, path),
+                KeyMapEntryMetaData::getModificationDate
+        ));
+    }
+
+    /**
+     * @return total count of key map entries, {@code null} if the server doesn't return it
+     */
+    Long getKeyMapEntryCount(RequestContext requestContext) {
+        return clientCallRecorder.record("getKeyMapEntryCount", requestContext, () -> getLatestChangedKeyMapEntryMetaData(requestContext).getTotalCount());
+    }
+
+    public Stream<KeyMapEntryMetaData> streamKeyMapEntryMetaData(RequestContext requestContext, int pageSize) {
+        return streamKeyMapEntryMetaData(requestContext, pageSize, ExecutorUtils.getDefaultExecutor());
+    }
+
+    /**
+     * Returns a lazily evaluated stream of key map entries which are loaded from the server by pages of {@code pageSize} elements.
+     * The next page is prefetched on the {@code executor} while the current one is being consumed.
+     * The stream should be closed if it's not consumed till the end, so that the pending prefetch is cancelled.
+     */
+    public Stream<KeyMapEntryMetaData> streamKeyMapEntryMetaData(RequestContext requestContext, int pageSize, Executor executor) {
+        log.debug("#streamKeyMapEntryMetaData(RequestContext requestContext, int pageSize, Executor executor): {}, {}", requestContext, pageSize);
+        return ODataPageSpliterator.stream(
+                KEY_MAP_ENTRIES_WITH_PARAMETERS_ORDERED_BY_NAME,
+                MANAGEMENT_SERVICE_ROOT,
+                pageSize,
+                path -> clientCallRecorder.record("streamKeyMapEntryMetaData", requestContext, () -> getKeyMapEntryMetaDataPage(requestContext, path)),
+                executor
         );
     }
 
     public KeyMapEntryMetaData getKeyMapEntryMetaData(String keyMapEntry, RequestContext requestContext) {
         log.debug("#getKeyMapEntryMetaData(RequestContext requestContext): {}", requestContext);
-        KeyMapEntryMetaData keyMapEntryMetaData = null;
-        try {
-            String encodedEntry = URLEncoder.encode(keyMapEntry, StandardCharsets.UTF_8.name()).replace("+", "%20");
-            String url = format(KEY_MAP_ENTRY, encodedEntry);
-            if (OAUTH.equals(requestContext.getAuthenticationType())) {
-                keyMapEntryMetaData = executeMethodPublicApi(
-                        requestContext,
-                        url,
-                        null,
-                        HttpMethod.GET,
-                        x -> KeyMapEntriesParser.buildKeyMapEntryMetaData(x.getBody())
-                );
-            } else {
-                keyMapEntryMetaData = executeGet(requestContext, url, KeyMapEntriesParser::buildKeyMapEntryMetaData);
-            }
-        } catch (UnsupportedEncodingException ex) {
-            throw new ClientIntegrationException("Couldn't get key map entry meta data: " + ex.getMessage(), ex);
-        } catch (HttpStatusCodeException ex) {
-            //this case happens when we try to get non existing object on cloud foundry system and
-            //we didn't make Auth request for current 'restTemplateWrapperKey' before
-            if (!NOT_FOUND.equals(ex.getStatusCode())) {
-                throw ex;
-            }
-        } catch (ClientIntegrationException ex) {
-            //this case happens when we try to get non existing object on cloud foundry system and
-            //we made Auth request for current 'restTemplateWrapperKey' before
-            if (!(ex.getCause() instanceof HttpStatusCodeException) ||
-                    !NOT_FOUND.equals(((HttpStatusCodeException) ex.getCause()).getStatusCode())
-            ) {
-                throw ex;
-            }
-        }
-        return keyMapEntryMetaData;
+        return clientCallRecorder.record("getKeyMapEntryMetaData", requestContext, () -> executeCoalesced(
+                requestContext,
+                "getKeyMapEntryMetaData",
+                format(KEY_MAP_ENTRY, keyMapEntry),
+                () -> {
+                    KeyMapEntryMetaData keyMapEntryMetaData = null;
+                    try {
+                        String encodedEntry = URLEncoder.encode(keyMapEntry, StandardCharsets.UTF_8.name()).replace("+", "%20");
+                        String url = format(KEY_MAP_ENTRY, encodedEntry);
+                        if (OAUTH.equals(requestContext.getAuthenticationType())) {
+                            keyMapEntryMetaData = executeThrottled(requestContext, HttpMethod.GET, () -> executeMethodPublicApi(
+                                    requestContext,
+                                    url,
+                                    null,
+                                    HttpMethod.GET,
+                                    clientCallRecorder.parsing(x -> KeyMapEntriesParser.buildKeyMapEntryMetaData(x.getBody()))
+                            ));
+                        } else {
+                            keyMapEntryMetaData = executeThrottled(requestContext, HttpMethod.GET, () -> executeGet(requestContext, url, clientCallRecorder.parsing(KeyMapEntriesParser::buildKeyMapEntryMetaData)));
+                        }
+                    } catch (UnsupportedEncodingException ex) {
+                        throw new ClientIntegrationException("Couldn't get key map entry meta data: " + ex.getMessage(), ex);
+                    } catch (HttpStatusCodeException ex) {
+                        //this case happens when we try to get non existing object on cloud foundry system and
+                        //we didn't make Auth request for current 'restTemplateWrapperKey' before
+                        if (!NOT_FOUND.equals(ex.getStatusCode())) {
+                            throw ex;
+                        }
+                    } catch (ClientIntegrationException ex) {
+                        //this case happens when we try to get non existing object on cloud foundry system and
+                        //we made Auth request for current 'restTemplateWrapperKey' before
+                        if (!(ex.getCause() instanceof HttpStatusCodeException) ||
+                                !NOT_FOUND.equals(((HttpStatusCodeException) ex.getCause()).getStatusCode())
+                        ) {
+                            throw ex;
+                        }
+                    }
+                    return keyMapEntryMetaData;
+                },
+                KeyMapEntryMetaData::new
+        ));
+    }
+
+    /**
+     * Checks the key map by requesting only this entry, so the cost doesn't depend on the number of key maps on the tenant.
+     */
+    public boolean isKeyMapEntryExist(String keyMapEntry, RequestContext requestContext) {
+        log.debug("#isKeyMapEntryExist(String keyMapEntry, RequestContext requestContext): {}, {}", keyMapEntry, requestContext);
+        return clientCallRecorder.record("isKeyMapEntryExist", requestContext, () -> getKeyMapEntryMetaData(keyMapEntry, requestContext) != null);
     }
 
     public List<KeyMapEntryValue> getKeyMapEntryValues(String keyMapEntry, RequestContext requestContext) {
         log.debug("#getKeyMapEntryValues(String keyMapEntry, RequestContext requestContext): {}, {}", keyMapEntry, requestContext);
+        return clientCallRecorder.record("getKeyMapEntryValues", requestContext, () -> executeCoalesced(
+                requestContext,
+                "getKeyMapEntryValues",
+                format(KEY_MAP_ENTRY_VALUES_WITH_PARAMETERS, keyMapEntry),
+                () -> {
+                    List<KeyMapEntryValue> keyMapEntryValues = new ArrayList<>();
+                    forEachKeyMapEntryValue(keyMapEntry, keyMapEntryValues::add, requestContext);
+                    return keyMapEntryValues;
+                },
+                KeyMapEntriesClient::copyKeyMapEntryValues
+        ));
+    }
 
-        try {
-            String encodedKeyMapEntry = URLEncoder.encode(keyMapEntry, StandardCharsets.UTF_8.name()).replace("+", "%20");
-            String path = format(KEY_MAP_ENTRY_VALUES_WITH_PARAMETERS, encodedKeyMapEntry);
-            if (OAUTH.equals(requestContext.getAuthenticationType())) {
-                return executeMethodPublicApi(
-                        requestContext,
-                        path,
-                        null,
-                        HttpMethod.GET,
-                        response -> KeyMapEntriesParser.buildKeyMapEntryValuesList(keyMapEntry, response.getBody())
-                );
+    /**
+     * Parses values of the key map incrementally and passes them to the consumer one by one
+     * without collecting them, so huge key maps can be processed with flat memory usage.
+     */
+    public void forEachKeyMapEntryValue(String keyMapEntry, Consumer<KeyMapEntryValue> keyMapEntryValueConsumer, RequestContext requestContext) {
+        log.debug("#forEachKeyMapEntryValue(String keyMapEntry, Consumer<KeyMapEntryValue> keyMapEntryValueConsumer, RequestContext requestContext): {}, {}",
+                keyMapEntry, requestContext);
+        clientCallRecorder.record("forEachKeyMapEntryValue", requestContext, () -> {
+            try {
+                String encodedKeyMapEntry = URLEncoder.encode(keyMapEntry, StandardCharsets.UTF_8.name()).replace("+", "%20");
+                String path = format(KEY_MAP_ENTRY_VALUES_WITH_PARAMETERS, encodedKeyMapEntry);
+                if (OAUTH.equals(requestContext.getAuthenticationType())) {
+                    executeThrottled(requestContext, HttpMethod.GET, () -> executeMethodPublicApi(
+                            requestContext,
+                            path,
+                            null,
+                            HttpMethod.GET,
+                            clientCallRecorder.parsing(response -> {
+                                KeyMapEntriesParser.parseKeyMapEntryValues(keyMapEntry, response.getBody(), keyMapEntryValueConsumer);
+                                return null;
+                            }),
+                            byte[].class
+                    ));
+                } else {
+                    executeThrottled(requestContext, HttpMethod.GET, () -> executeGet(
+                            requestContext,
+                            path,
+                            clientCallRecorder.parsing(body -> {
+                                KeyMapEntriesParser.parseKeyMapEntryValues(keyMapEntry, body, keyMapEntryValueConsumer);
+                                return null;
+                            }),
+                            byte[].class
+                    ));
+                }
+            } catch (UnsupportedEncodingException ex) {
+                throw new ClientIntegrationException("Couldn't get key map entry values: " + ex.getMessage(), ex);
             }
-            return executeGet(
-                    requestContext,
-                    format(
-                            KEY_MAP_ENTRY_VALUES_WITH_PARAMETERS,
-                            URLEncoder.encode(keyMapEntry, StandardCharsets.UTF_8.name()).replace("+", "%20")
-                    ),
-                    body -> KeyMapEntriesParser.buildKeyMapEntryValuesList(keyMapEntry, body)
-            );
-        } catch (UnsupportedEncodingException ex) {
-            throw new ClientIntegrationException("Couldn't get key map entry values: " + ex.getMessage(), ex);
-        }
+        });
     }
 
     public Map<String, String> getKeyToValueMap(String keyMapEntry, RequestContext requestContext) {
         log.debug("#getKeyToValueMap(String keyMapEntry, RequestContext requestContext): {}, {}", keyMapEntry, requestContext);
-        List<KeyMapEntryValue> keyMapEntryValues = getKeyMapEntryValues(keyMapEntry, requestContext);
-
-        Map<String, String> keyToValueMap = new HashMap<>();
-        for (KeyMapEntryValue keyMapEntryValue : keyMapEntryValues) {
-            keyToValueMap.put(
-                    keyMapEntryValue.getName(),
-                    keyMapEntryValue.getValue()
-            );
-        }
-
-        return keyToValueMap;
+        return clientCallRecorder.record("getKeyToValueMap", requestContext, () -> executeCoalesced(
+                requestContext,
+                "getKeyToValueMap",
+                format(KEY_MAP_ENTRY_VALUES_WITH_PARAMETERS, keyMapEntry),
+                () -> {
+                    Map<String, String> keyToValueMap = new HashMap<>();
+                    forEachKeyMapEntryValue(
+                            keyMapEntry,
+                            keyMapEntryValue -> keyToValueMap.put(keyMapEntryValue.getName(), keyMapEntryValue.getValue()),
+                            requestContext
+                    );
+                    return keyToValueMap;
+                },
+                HashMap::new
+        ));
     }
 
     public void createNewKeyMapEntry(KeyMapEntryMetaData keyMapEntryMetaData, RequestContext requestContext) {
@@ -196,297 +337,637 @@ public class KeyMapEntriesClient extends BaseClient {
                     keyMapEntryMetaData.getName(), requestContext);
         }
 
-        if (OAUTH.equals(requestContext.getAuthenticationType())) {
-            executeMethodPublicApi(
-                    requestContext,
-                    KEY_MAP_ENTRIES,
-                    keyMapEntryMetaData,
-                    HttpMethod.POST,
-                    response -> {
-                        if (!HttpStatus.CREATED.equals(response.getStatusCode())) {
-                            throw new ClientIntegrationException(String.format(
-                                    "Couldn't create key map entry %s: Code: %d, Message: %s",
-                                    keyMapEntryMetaData.getName(),
-                                    response.getStatusCode().value(),
-                                    response.getBody())
-                            );
+        clientCallRecorder.record("createNewKeyMapEntry", requestContext, () -> {
+            if (OAUTH.equals(requestContext.getAuthenticationType())) {
+                executeThrottled(requestContext, HttpMethod.POST, () -> executeMethodPublicApi(
+                        requestContext,
+                        KEY_MAP_ENTRIES,
+                        keyMapEntryMetaData,
+                        HttpMethod.POST,
+                        clientCallRecorder.parsing(response -> {
+                            if (!HttpStatus.CREATED.equals(response.getStatusCode())) {
+                                throw new ClientIntegrationException(String.format(
+                                        "Couldn't create key map entry %s: Code: %d, Message: %s",
+                                        keyMapEntryMetaData.getName(),
+                                        response.getStatusCode().value(),
+                                        response.getBody())
+                                );
+                            }
+                            return null;
+                        })
+                ));
+            } else {
+                executeThrottled(requestContext, HttpMethod.POST, () -> executeMethodWithCachedToken(
+                        requestContext,
+                        KEY_MAP_ENTRY_VALUES,
+                        KEY_MAP_ENTRIES,
+                        (url, token, restTemplate) -> {
+                            createNewKeyMapEntryMetadata(keyMapEntryMetaData, url, token, restTemplate);
+                            return null;
                         }
-                        return null;
-                    }
-            );
-        } else {
-            executeMethod(
-                    requestContext,
-                    KEY_MAP_ENTRY_VALUES,
-                    KEY_MAP_ENTRIES,
-                    (url, token, restTemplateWrapper) -> {
-                        createNewKeyMapEntryMetadata(keyMapEntryMetaData, url, token, restTemplateWrapper.getRestTemplate());
-                        return null;
-                    }
-            );
-        }
+                ));
+            }
+        });
     }
 
     public void deleteKeyMapEntry(String keyMapEntryId, RequestContext requestContext) {
         log.debug("#deleteKeyMapEntry(String keyMapEntryId, RequestContext requestContext): {}, {}", keyMapEntryId, requestContext);
-        if (OAUTH.equals(requestContext.getAuthenticationType())) {
-            executeDeletePublicApi(
-                    requestContext,
-                    format(KEY_MAP_ENTRIES_WITH_NAME, keyMapEntryId),
-                    response -> {
-                        if (!HttpStatus.NO_CONTENT.equals(response.getStatusCode())) {
-                            throw new ClientIntegrationException(format(
-                                    "Couldn't delete key map entry %s: Code: %d, Message: %s",
-                                    keyMapEntryId,
-                                    response.getStatusCode().value(),
-                                    response.getBody())
-                            );
+        clientCallRecorder.record("deleteKeyMapEntry", requestContext, () -> {
+            if (OAUTH.equals(requestContext.getAuthenticationType())) {
+                executeThrottled(requestContext, HttpMethod.DELETE, () -> executeDeletePublicApi(
+                        requestContext,
+                        format(KEY_MAP_ENTRIES_WITH_NAME, keyMapEntryId),
+                        clientCallRecorder.parsing(response -> {
+                            if (!HttpStatus.NO_CONTENT.equals(response.getStatusCode())) {
+                                throw new ClientIntegrationException(format(
+                                        "Couldn't delete key map entry %s: Code: %d, Message: %s",
+                                        keyMapEntryId,
+                                        response.getStatusCode().value(),
+                                        response.getBody())
+                                );
+                            }
+                            return null;
+                        })
+                ));
+            } else {
+                executeThrottled(requestContext, HttpMethod.DELETE, () -> executeMethodWithCachedToken(
+                        requestContext,
+                        KEY_MAP_ENTRY_VALUES,
+                        format(KEY_MAP_ENTRIES_WITH_NAME, keyMapEntryId),
+                        (url, token, restTemplate) -> {
+                            deleteKeyMapEntry(keyMapEntryId, url, token, restTemplate);
+                            return null;
                         }
-                        return null;
-                    }
-            );
-        } else {
-            executeMethod(
-                    requestContext,
-                    KEY_MAP_ENTRY_VALUES,
-                    format(KEY_MAP_ENTRIES_WITH_NAME, keyMapEntryId),
-                    (url, token, restTemplateWrapper) -> {
-                        deleteKeyMapEntry(keyMapEntryId, url, token, restTemplateWrapper.getRestTemplate());
-                        return null;
-                    }
-            );
-        }
+                ));
+            }
+        });
     }
 
     public void updateKeyMapEntry(String keyMapEntry, Map<String, String> keyToValueMap, RequestContext requestContext) {
         log.debug("#updateKeyMapEntry(String keyMapEntry, Map<String, String> keyToValueMap, RequestContext requestContext): {}, {}",
                 keyMapEntry, requestContext);
 
-        List<String> keyMapEntries = getKeyMapEntries(requestContext);
-
-        if (!keyMapEntries.contains(keyMapEntry)) {
-            throw new ClientIntegrationException(format(
-                    "Couldn't update key map entry %s, because it's not exist",
-                    keyMapEntry
-            ));
+        KeyMapEntryUpdateResult keyMapEntryUpdateResult = updateKeyMapEntry(
+                keyMapEntry,
+                keyToValueMap,
+                requestContext,
+                KeyMapBatchUpdateSettings.singleBatch()
+        );
+        for (BatchChunkResult chunkResult : keyMapEntryUpdateResult.getChunkResults()) {
+            if (!chunkResult.isSuccessful()) {
+                throw new ClientIntegrationException(format(
+                        "Couldn't update key map entry %s: Code: %d, Message: %s",
+                        keyMapEntry,
+                        chunkResult.getStatusCode(),
+                        chunkResult.getErrorMessage())
+                );
+            }
         }
+    }
+
+    /**
+     * Synchronizes values of the key map with {@code keyToValueMap}. Changes are split into chunks
+     * of {@link KeyMapBatchUpdateSettings#getMaxOperationsPerBatch()} operations, every chunk is sent as
+     * a separate $batch request, and up to {@link KeyMapBatchUpdateSettings#getMaxParallelRequests()} requests are executed in parallel.
+     * Failed chunks don't stop the others, they are reported in the result.
+     */
+    public KeyMapEntryUpdateResult updateKeyMapEntry(
+            String keyMapEntry,
+            Map<String, String> keyToValueMap,
+            RequestContext requestContext,
+            KeyMapBatchUpdateSettings keyMapBatchUpdateSettings
+    ) {
+        log.debug("#updateKeyMapEntry(String keyMapEntry, Map<String, String> keyToValueMap, RequestContext requestContext, " +
+                "KeyMapBatchUpdateSettings keyMapBatchUpdateSettings): {}, {}, {}", keyMapEntry, requestContext, keyMapBatchUpdateSettings);
+        return clientCallRecorder.record("updateKeyMapEntry", requestContext, () -> {
+            if (!isKeyMapEntryExist(keyMapEntry, requestContext)) {
+                throw new ClientIntegrationException(format(
+                        "Couldn't update key map entry %s, because it's not exist",
+                        keyMapEntry
+                ));
+            }
 
-        Map<String, String> remoteKeyToValueMap = getKeyToValueMap(keyMapEntry, requestContext);
+            Map<String, String> remoteKeyToValueMap = getKeyToValueMap(keyMapEntry, requestContext);
+            List<KeyMapEntryValueOperation> keyMapEntryValueOperations = discoverOperations(keyMapEntry, keyToValueMap, remoteKeyToValueMap);
+            return executeKeyMapEntryValueOperations(keyMapEntry, keyMapEntryValueOperations, requestContext, keyMapBatchUpdateSettings);
+        });
+    }
 
-        if (OAUTH.equals(requestContext.getAuthenticationType())) {
-            String bodySeparator = format("batch_%s", UUID.randomUUID());
-            Optional<String> requestBody = prepareRequestBodyForUpdatingKeyMap(
-                    keyMapEntry,
-                    bodySeparator,
-                    keyToValueMap,
-                    remoteKeyToValueMap
-            );
-            if (!requestBody.isPresent()) {
-                return;
+    /**
+     * Sends the operations using chunked $batch requests. Can be used to resend
+     * {@link KeyMapEntryUpdateResult#getFailedOperations()} of a previous update.
+     * Every chunk is a separate changeset, so the operations are applied atomically only if they fit into one chunk,
+     * see {@link KeyMapEntryUpdateResult#isAppliedAtomically()}.
+     */
+    public KeyMapEntryUpdateResult executeKeyMapEntryValueOperations(
+            String keyMapEntry,
+            List<KeyMapEntryValueOperation> keyMapEntryValueOperations,
+            RequestContext requestContext,
+            KeyMapBatchUpdateSettings keyMapBatchUpdateSettings
+    ) {
+        log.debug("#executeKeyMapEntryValueOperations(String keyMapEntry, List<KeyMapEntryValueOperation> keyMapEntryValueOperations, " +
+                        "RequestContext requestContext, KeyMapBatchUpdateSettings keyMapBatchUpdateSettings): {}, {}, {}, {}",
+                keyMapEntry, keyMapEntryValueOperations.size(), requestContext, keyMapBatchUpdateSettings);
+        return clientCallRecorder.record("executeKeyMapEntryValueOperations", requestContext, () -> {
+            List<List<List<KeyMapEntryValueOperation>>> batches = new ArrayList<>();
+            for (List<KeyMapEntryValueOperation> chunk : ListUtils.partition(keyMapEntryValueOperations, getMaxOperationsPerBatch(keyMapBatchUpdateSettings))) {
+                batches.add(Collections.singletonList(chunk));
             }
-            HttpHeaders httpHeaders = new HttpHeaders();
-            httpHeaders.add("Content-Type", format("multipart/mixed;boundary=%s", bodySeparator));
+            return new KeyMapEntryUpdateResult(keyMapEntry, executeBatches(batches, requestContext, keyMapBatchUpdateSettings));
+        });
+    }
 
-            executeMethodPublicApiWithCustomHeaders(
-                    requestContext,
-                    BATCH_REQUEST,
-                    requestBody.get(),
-                    HttpMethod.POST,
-                    httpHeaders,
-                    response -> {
-                        if (!HttpStatus.ACCEPTED.equals(response.getStatusCode())) {
-                            throw new ClientIntegrationException(format(
-                                    "Couldn't update key map entry %s: Code: %d, Message: %s",
-                                    keyMapEntry,
-                                    response.getStatusCode().value(),
-                                    response.getBody())
-                            );
-                        }
-                        return null;
+    public Map<String, KeyMapEntryUpdateResult> updateKeyMapEntries(Map<String, Map<String, String>> keyMapEntryToKeyToValueMap, RequestContext requestContext) {
+        return updateKeyMapEntries(keyMapEntryToKeyToValueMap, requestContext, new KeyMapBatchUpdateSettings());
+    }
+
+    /**
+     * Synchronizes values of several key maps at once. Remote values of all key maps are read by one request,
+     * then changes of every key map are put into a separate changeset, and changesets are packed into as few $batch requests
+     * as {@link KeyMapBatchUpdateSettings#getMaxOperationsPerBatch()} allows.
+     * A changeset is applied atomically, but changes of a key map with more than {@code maxOperationsPerBatch} operations
+     * are split into several changesets (and $batch requests), so such key map can be updated partially
+     * if one of them fails, see {@link KeyMapEntryUpdateResult#isAppliedAtomically()}.
+     *
+     * @return key map entry name to the results of the $batch requests which contained its changes
+     */
+    public Map<String, KeyMapEntryUpdateResult> updateKeyMapEntries(
+            Map<String, Map<String, String>> keyMapEntryToKeyToValueMap,
+            RequestContext requestContext,
+            KeyMapBatchUpdateSettings keyMapBatchUpdateSettings
+    ) {
+        log.debug("#updateKeyMapEntries(Map<String, Map<String, String>> keyMapEntryToKeyToValueMap, RequestContext requestContext, " +
+                        "KeyMapBatchUpdateSettings keyMapBatchUpdateSettings): {}, {}, {}",
+                keyMapEntryToKeyToValueMap.keySet(), requestContext, keyMapBatchUpdateSettings);
+        return clientCallRecorder.record("updateKeyMapEntries", requestContext, () -> {
+            Map<String, Map<String, String>> remoteKeyToValueMaps = getKeyToValueMaps(keyMapEntryToKeyToValueMap.keySet(), requestContext);
+
+            List<String> notExistingKeyMapEntries = new ArrayList<>(keyMapEntryToKeyToValueMap.keySet());
+            notExistingKeyMapEntries.removeAll(remoteKeyToValueMaps.keySet());
+            if (!notExistingKeyMapEntries.isEmpty()) {
+                throw new ClientIntegrationException(format(
+                        "Couldn't update key map entries %s, because they are not exist",
+                        notExistingKeyMapEntries
+                ));
+            }
+
+            int maxOperationsPerBatch = getMaxOperationsPerBatch(keyMapBatchUpdateSettings);
+            Map<String, KeyMapEntryUpdateResult> keyMapEntryToUpdateResult = new LinkedHashMap<>();
+            List<List<List<KeyMapEntryValueOperation>>> batches = new ArrayList<>();
+            List<List<KeyMapEntryValueOperation>> currentBatch = new ArrayList<>();
+            int currentBatchSize = 0;
+            for (Map.Entry<String, Map<String, String>> keyMapEntryWithValues : keyMapEntryToKeyToValueMap.entrySet()) {
+                String keyMapEntry = keyMapEntryWithValues.getKey();
+                keyMapEntryToUpdateResult.put(keyMapEntry, new KeyMapEntryUpdateResult(keyMapEntry, new ArrayList<>()));
+                List<KeyMapEntryValueOperation> keyMapEntryValueOperations = discoverOperations(
+                        keyMapEntry,
+                        keyMapEntryWithValues.getValue(),
+                        remoteKeyToValueMaps.get(keyMapEntry)
+                );
+                for (List<KeyMapEntryValueOperation> changeSet : ListUtils.partition(keyMapEntryValueOperations, maxOperationsPerBatch)) {
+                    if (currentBatchSize + changeSet.size() > maxOperationsPerBatch) {
+                        batches.add(currentBatch);
+                        currentBatch = new ArrayList<>();
+                        currentBatchSize = 0;
                     }
-            );
-        } else {
-            executeMethod(
-                    requestContext,
-                    KEY_MAP_ENTRY_VALUES,
-                    BATCH_REQUEST,
-                    (url, token, restTemplateWrapper) -> {
-                        updateKeyMapEntry(
-                                keyMapEntry,
-                                keyToValueMap,
-                                remoteKeyToValueMap,
-                                url,
-                                token,
-                                restTemplateWrapper.getRestTemplate()
+                    currentBatch.add(changeSet);
+                    currentBatchSize += changeSet.size();
+                }
+            }
+            if (!currentBatch.isEmpty()) {
+                batches.add(currentBatch);
+            }
+
+            List<BatchChunkResult> batchResults = executeBatches(batches, requestContext, keyMapBatchUpdateSettings);
+            for (int batchIndex = 0; batchIndex < batches.size(); batchIndex++) {
+                BatchChunkResult batchResult = batchResults.get(batchIndex);
+                List<KeyMapEntryValueOperationResult> batchOperationResults = batchResult.getOperationResults();
+                int operationOffset = 0;
+                for (List<KeyMapEntryValueOperation> changeSet : batches.get(batchIndex)) {
+                    BatchChunkResult changeSetResult;
+                    if (batchOperationResults.isEmpty()) {
+                        changeSetResult = new BatchChunkResult(
+                                batchResult.getChunkIndex(),
+                                batchResult.isSuccessful(),
+                                batchResult.getStatusCode(),
+                                batchResult.getErrorMessage(),
+                                changeSet,
+                                new ArrayList<>()
+                        );
+                    } else {
+                        changeSetResult = createBatchChunkResult(
+                                batchResult.getChunkIndex(),
+                                batchResult.getStatusCode(),
+                                changeSet,
+                                batchOperationResults.subList(operationOffset, operationOffset + changeSet.size())
                         );
-                        return null;
                     }
-            );
-        }
+                    operationOffset += changeSet.size();
+                    keyMapEntryToUpdateResult.get(changeSet.get(0).getMapName()).getChunkResults().add(changeSetResult);
+                }
+            }
+            return keyMapEntryToUpdateResult;
+        });
     }
 
-    public void createOrUpdateKeyMapEntry(KeyMapEntryMetaData keyMapEntryMetaData, RequestContext requestContext) {
-        String keyMapEntry = keyMapEntryMetaData.getName();
-        if (!keyMapEntryMetaData.isEncrypted()) {
-            log.debug("#createOrUpdateKeyMapEntry(KeyMapEntryMetaData keyMapEntryMetaData, RequestContext requestContext): {}, {}",
-                    keyMapEntryMetaData, requestContext);
-        } else {
-            log.debug("#createOrUpdateKeyMapEntry(KeyMapEntryMetaData keyMapEntryMetaData, RequestContext requestContext): {}, {}",
-                    keyMapEntry, requestContext);
-        }
-        List<String> keyMapEntries = getKeyMapEntries(requestContext);
-        if (!keyMapEntries.contains(keyMapEntry)) {
-            createNewKeyMapEntry(keyMapEntryMetaData, requestContext);
-        } else {
-            Map<String, String> keyToValueMap = new HashMap<>();
-            List<KeyMapEntryValue> keyMapEntryValues = keyMapEntryMetaData.getKeyMapEntryValues();
-            if (CollectionUtils.isEmpty(keyMapEntryValues)) {
-                return;
+    /**
+     * Reads values of several key maps. Only the requested key maps are expanded, {@code $filter} on their names is sent
+     * in requests of {@value #KEY_MAP_ENTRIES_PER_FILTERED_REQUEST} names. If the requested key maps are at least half
+     * of the tenant (or the server doesn't support the filter), values of all key maps are read by one request instead.
+     *
+     * @return key map entry name to its key-to-value map, not existing key map entries are absent in the result
+     */
+    public Map<String, Map<String, String>> getKeyToValueMaps(Collection<String> keyMapEntries, RequestContext requestContext) {
+        log.debug("#getKeyToValueMaps(Collection<String> keyMapEntries, RequestContext requestContext): {}, {}", keyMapEntries, requestContext);
+        return clientCallRecorder.record("getKeyToValueMaps", requestContext, () -> {
+            Set<String> requestedKeyMapEntries = new LinkedHashSet<>(keyMapEntries);
+            if (requestedKeyMapEntries.isEmpty()) {
+                return new HashMap<>();
             }
-            for (KeyMapEntryValue keyMapEntryValue : keyMapEntryValues) {
-                keyToValueMap.put(keyMapEntryValue.getName(), keyMapEntryValue.getValue());
+            Map<String, Map<String, String>> keyToValueMaps = isMostOfKeyMapEntries(requestContext, requestedKeyMapEntries.size())
+                    ? getExpandedKeyToValueMaps(requestContext, KEY_MAP_ENTRIES_WITH_VALUES, requestedKeyMapEntries)
+                    : getFilteredKeyToValueMaps(requestContext, requestedKeyMapEntries);
+            // if the server didn't expand values of some entry, they are requested separately
+            for (Map.Entry<String, Map<String, String>> keyToValueMapEntry : keyToValueMaps.entrySet()) {
+                if (keyToValueMapEntry.getValue() == null) {
+                    keyToValueMapEntry.setValue(getKeyToValueMap(keyToValueMapEntry.getKey(), requestContext));
+                }
             }
-            updateKeyMapEntry(keyMapEntry, keyToValueMap, requestContext);
+            return keyToValueMaps;
+        });
+    }
+
+    private boolean isMostOfKeyMapEntries(RequestContext requestContext, int keyMapEntryCount) {
+        // a single filtered request is never bigger than the request which expands all key maps
+        if (keyMapEntryCount <= KEY_MAP_ENTRIES_PER_FILTERED_REQUEST) {
+            return false;
+        }
+        if (tenantsWithoutNameFilterSupport.contains(getTenantKey(requestContext))) {
+            return true;
         }
+        Long totalCount = getLatestChangedKeyMapEntryMetaData(requestContext).getTotalCount();
+        return totalCount == null || 2L * keyMapEntryCount >= totalCount;
     }
 
-    public void createOrUpdateKeyMapEntryValue(String keyMapEntry, String keyMapEntryValueName, String newKeyMapEntryValue, RequestContext requestContext) {
-        List<KeyMapEntryValue> keyMapEntryValues = getKeyMapEntryValues(keyMapEntry, requestContext);
-        for (KeyMapEntryValue currentKeyMapEntryValue : keyMapEntryValues) {
-            if (currentKeyMapEntryValue.getName().equals(keyMapEntryValueName)) {
-                if (!newKeyMapEntryValue.equals(currentKeyMapEntryValue.getValue())) {
-                    updateKeyMapEntryValue(keyMapEntry, keyMapEntryValueName, newKeyMapEntryValue, requestContext);
+    private Map<String, Map<String, String>> getFilteredKeyToValueMaps(RequestContext requestContext, Set<String> requestedKeyMapEntries) {
+        String tenantKey = getTenantKey(requestContext);
+        if (tenantsWithoutNameFilterSupport.contains(tenantKey)) {
+            return getExpandedKeyToValueMaps(requestContext, KEY_MAP_ENTRIES_WITH_VALUES, requestedKeyMapEntries);
+        }
+        Map<String, Map<String, String>> keyToValueMaps = new HashMap<>();
+        for (List<String> keyMapEntries : ListUtils.partition(new ArrayList<>(requestedKeyMapEntries), KEY_MAP_ENTRIES_PER_FILTERED_REQUEST)) {
+            String nameFilter = keyMapEntries.stream()
+                    .map(keyMapEntry -> format("name eq '%s'", keyMapEntry.replace("'", "''")))
+                    .collect(Collectors.joining(" or "));
+            // names can contain '&', '#' or '%', which would break the query string, '+' is left as is and would be read as a space
+            nameFilter = UriUtils.encodeQueryParam(nameFilter, StandardCharsets.UTF_8).replace("+", "%2B");
+            try {
+                keyToValueMaps.putAll(getExpandedKeyToValueMaps(
+                        requestContext,
+                        format(KEY_MAP_ENTRIES_WITH_VALUES_FILTERED, nameFilter),
+                        new HashSet<>(keyMapEntries)
+                ));
+            } catch (HttpStatusCodeException | ClientIntegrationException ex) {
+                if (!ChangedSinceLoader.isFilterRejected(ex)) {
+                    throw ex;
                 }
-                return;
+                log.warn("$filter on name of key map entries is not supported by {}, values of all key maps will be loaded: {}", tenantKey, ex.getMessage());
+                tenantsWithoutNameFilterSupport.add(tenantKey);
+                ClientCallRecorder.recordRetry();
+                return getExpandedKeyToValueMaps(requestContext, KEY_MAP_ENTRIES_WITH_VALUES, requestedKeyMapEntries);
             }
         }
+        return keyToValueMaps;
+    }
+
+    private Map<String, Map<String, String>> getExpandedKeyToValueMaps(RequestContext requestContext, String path, Set<String> requestedKeyMapEntries) {
+        if (OAUTH.equals(requestContext.getAuthenticationType())) {
+            return executeThrottled(requestContext, HttpMethod.GET, () -> executeMethodPublicApi(
+                    requestContext,
+                    path,
+                    null,
+                    HttpMethod.GET,
+                    clientCallRecorder.parsing(response -> KeyMapEntriesParser.buildKeyToValueMaps(response.getBody(), requestedKeyMapEntries)),
+                    byte[].class
+            ));
+        }
+        return executeThrottled(requestContext, HttpMethod.GET, () -> executeGet(
+                requestContext,
+                path,
+                clientCallRecorder.parsing(body -> KeyMapEntriesParser.buildKeyToValueMaps(body, requestedKeyMapEntries)),
+                byte[].class
+        ));
+    }
+
+    public void createOrUpdateKeyMapEntry(KeyMapEntryMetaData keyMapEntryMetaData, RequestContext requestContext) {
+        clientCallRecorder.record("createOrUpdateKeyMapEntry", requestContext, () -> {
+            String keyMapEntry = keyMapEntryMetaData.getName();
+            if (!keyMapEntryMetaData.isEncrypted()) {
+                log.debug("#createOrUpdateKeyMapEntry(KeyMapEntryMetaData keyMapEntryMetaData, RequestContext requestContext): {}, {}",
+                        keyMapEntryMetaData, requestContext);
+            } else {
+                log.debug("#createOrUpdateKeyMapEntry(KeyMapEntryMetaData keyMapEntryMetaData, RequestContext requestContext): {}, {}",
+                        keyMapEntry, requestContext);
+            }
+            if (!isKeyMapEntryExist(keyMapEntry, requestContext)) {
+                createNewKeyMapEntry(keyMapEntryMetaData, requestContext);
+            } else {
+                Map<String, String> keyToValueMap = new HashMap<>();
+                List<KeyMapEntryValue> keyMapEntryValues = keyMapEntryMetaData.getKeyMapEntryValues();
+                if (CollectionUtils.isEmpty(keyMapEntryValues)) {
+                    return;
+                }
+                for (KeyMapEntryValue keyMapEntryValue : keyMapEntryValues) {
+                    keyToValueMap.put(keyMapEntryValue.getName(), keyMapEntryValue.getValue());
+                }
+                updateKeyMapEntry(keyMapEntry, keyToValueMap, requestContext);
+            }
+        });
+    }
 
-        addKeyMapEntryValue(keyMapEntry, keyMapEntryValueName, newKeyMapEntryValue, requestContext);
+    /**
+     * Addresses the value directly, so the cost doesn't depend on the size of the key map.
+     *
+     * @return the value or {@code null} if the key map doesn't have it
+     */
+    public KeyMapEntryValue getKeyMapEntryValue(String keyMapEntry, String keyMapEntryValueName, RequestContext requestContext) {
+        log.debug("#getKeyMapEntryValue(String keyMapEntry, String keyMapEntryValueName, RequestContext requestContext): {}, {}, {}",
+                keyMapEntry, keyMapEntryValueName, requestContext);
+        return clientCallRecorder.record("getKeyMapEntryValue", requestContext, () -> {
+            KeyMapEntryValue keyMapEntryValue = null;
+            try {
+                String url = format(
+                        KEY_MAP_ENTRY_VALUE_WITH_PARAMETERS,
+                        URLEncoder.encode(keyMapEntry, StandardCharsets.UTF_8.name()).replace("+", "%20"),
+                        URLEncoder.encode(keyMapEntryValueName, StandardCharsets.UTF_8.name()).replace("+", "%20")
+                );
+                if (OAUTH.equals(requestContext.getAuthenticationType())) {
+                    keyMapEntryValue = executeThrottled(requestContext, HttpMethod.GET, () -> executeMethodPublicApi(
+                            requestContext,
+                            url,
+                            null,
+                            HttpMethod.GET,
+                            clientCallRecorder.parsing(response -> KeyMapEntriesParser.buildKeyMapEntryValue(keyMapEntry, response.getBody()))
+                    ));
+                } else {
+                    keyMapEntryValue = executeThrottled(requestContext, HttpMethod.GET, () -> executeGet(requestContext, url, clientCallRecorder.parsing(body -> KeyMapEntriesParser.buildKeyMapEntryValue(keyMapEntry, body))));
+                }
+            } catch (UnsupportedEncodingException ex) {
+                throw new ClientIntegrationException("Couldn't get key map entry value: " + ex.getMessage(), ex);
+            } catch (HttpStatusCodeException ex) {
+                //this case happens when we try to get non existing object on cloud foundry system and
+                //we didn't make Auth request for current 'restTemplateWrapperKey' before
+                if (!NOT_FOUND.equals(ex.getStatusCode())) {
+                    throw ex;
+                }
+            } catch (ClientIntegrationException ex) {
+                //this case happens when we try to get non existing object on cloud foundry system and
+                //we made Auth request for current 'restTemplateWrapperKey' before
+                if (!(ex.getCause() instanceof HttpStatusCodeException) ||
+                        !NOT_FOUND.equals(((HttpStatusCodeException) ex.getCause()).getStatusCode())
+                ) {
+                    throw ex;
+                }
+            }
+            return keyMapEntryValue;
+        });
+    }
+
+    /**
+     * Reads the single value and then adds or updates it if needed, so the call costs at most two small requests.
+     */
+    public void createOrUpdateKeyMapEntryValue(String keyMapEntry, String keyMapEntryValueName, String newKeyMapEntryValue, RequestContext requestContext) {
+        clientCallRecorder.record("createOrUpdateKeyMapEntryValue", requestContext, () -> {
+            KeyMapEntryValue currentKeyMapEntryValue = getKeyMapEntryValue(keyMapEntry, keyMapEntryValueName, requestContext);
+            if (currentKeyMapEntryValue == null) {
+                addKeyMapEntryValue(keyMapEntry, keyMapEntryValueName, newKeyMapEntryValue, requestContext);
+            } else if (!newKeyMapEntryValue.equals(currentKeyMapEntryValue.getValue())) {
+                updateKeyMapEntryValue(keyMapEntry, keyMapEntryValueName, newKeyMapEntryValue, requestContext);
+            }
+        });
     }
 
     public void addKeyMapEntryValue(String keyMapEntry, String keyMapEntryValueName, String keyMapEntryValue, RequestContext requestContext) {
         log.debug("#addKeyMapEntryValue(String keyMapEntry, String keyMapEntryValueName, String keyMapEntryValue, RequestContext requestContext): {}, {}, {}",
                 keyMapEntry, keyMapEntryValueName, requestContext);
-
-        if (OAUTH.equals(requestContext.getAuthenticationType())) {
-            String requestBody = prepareRequestBodyForNewEntryValue(keyMapEntry, keyMapEntryValueName, keyMapEntryValue);
-            executeMethodPublicApi(
-                    requestContext,
-                    KEY_MAP_ENTRY_VALUES,
-                    requestBody,
-                    HttpMethod.POST,
-                    response -> {
-                        if (!HttpStatus.CREATED.equals(response.getStatusCode())) {
-                            throw new ClientIntegrationException(format(
-                                    "Couldn't create key value entry %s in key map entry %s: Code: %d, Message: %s",
-                                    keyMapEntryValueName,
+        clientCallRecorder.record("addKeyMapEntryValue", requestContext, () -> {
+            if (OAUTH.equals(requestContext.getAuthenticationType())) {
+                String requestBody = prepareRequestBodyForNewEntryValue(keyMapEntry, keyMapEntryValueName, keyMapEntryValue);
+                executeThrottled(requestContext, HttpMethod.POST, () -> executeMethodPublicApi(
+                        requestContext,
+                        KEY_MAP_ENTRY_VALUES,
+                        requestBody,
+                        HttpMethod.POST,
+                        clientCallRecorder.parsing(response -> {
+                            if (!HttpStatus.CREATED.equals(response.getStatusCode())) {
+                                throw new ClientIntegrationException(format(
+                                        "Couldn't create key value entry %s in key map entry %s: Code: %d, Message: %s",
+                                        keyMapEntryValueName,
+                                        keyMapEntry,
+                                        response.getStatusCode().value(),
+                                        response.getBody())
+                                );
+                            }
+                            return null;
+                        })
+                ));
+            } else {
+                executeThrottled(requestContext, HttpMethod.POST, () -> executeMethodWithCachedToken(
+                        requestContext,
+                        KEY_MAP_ENTRY_VALUES,
+                        KEY_MAP_ENTRY_VALUES,
+                        (url, token, restTemplate) -> {
+                            addKeyMapEntryValue(
                                     keyMapEntry,
-                                    response.getStatusCode().value(),
-                                    response.getBody())
+                                    keyMapEntryValueName,
+                                    keyMapEntryValue,
+                                    url,
+                                    token,
+                                    restTemplate
                             );
+                            return null;
                         }
-                        return null;
-                    }
-            );
-        } else {
-            executeMethod(
-                    requestContext,
-                    KEY_MAP_ENTRY_VALUES,
-                    KEY_MAP_ENTRY_VALUES,
-                    (url, token, restTemplateWrapper) -> {
-                        addKeyMapEntryValue(
-                                keyMapEntry,
-                                keyMapEntryValueName,
-                                keyMapEntryValue,
-                                url,
-                                token,
-                                restTemplateWrapper.getRestTemplate()
-                        );
-                        return null;
-                    }
-            );
-        }
+                ));
+            }
+        });
     }
 
     public void updateKeyMapEntryValue(String keyMapEntry, String keyMapEntryValueName, String newKeyMapEntryValue, RequestContext requestContext) {
         log.debug("#updateKeyMapEntryValue(String keyMapEntry, String keyMapEntryValueName, String newKeyMapEntryValue, RequestContext requestContext): {}, {}, {}",
                 keyMapEntry, keyMapEntryValueName, requestContext);
+        clientCallRecorder.record("updateKeyMapEntryValue", requestContext, () -> {
+            String pathForMainRequest = format(KEY_MAP_ENTRY_VALUE, keyMapEntry, keyMapEntryValueName);
 
-        String pathForMainRequest = format(KEY_MAP_ENTRY_VALUE, keyMapEntry, keyMapEntryValueName);
-
-        if (OAUTH.equals(requestContext.getAuthenticationType())) {
-            String body = format("{ \"value\": \"%s\" }", newKeyMapEntryValue);
-            executeMethodPublicApi(
-                    requestContext,
-                    pathForMainRequest,
-                    body,
-                    HttpMethod.PUT,
-                    response -> {
-                        if (!HttpStatus.NO_CONTENT.equals(response.getStatusCode())) {
-                            throw new ClientIntegrationException(format(
-                                    "Couldn't update key value entry %s in key map entry %s: Code: %d, Message: %s",
-                                    keyMapEntryValueName,
+            if (OAUTH.equals(requestContext.getAuthenticationType())) {
+                String body = format("{ \"value\": \"%s\" }", newKeyMapEntryValue);
+                executeThrottled(requestContext, HttpMethod.PUT, () -> executeMethodPublicApi(
+                        requestContext,
+                        pathForMainRequest,
+                        body,
+                        HttpMethod.PUT,
+                        clientCallRecorder.parsing(response -> {
+                            if (!HttpStatus.NO_CONTENT.equals(response.getStatusCode())) {
+                                throw new ClientIntegrationException(format(
+                                        "Couldn't update key value entry %s in key map entry %s: Code: %d, Message: %s",
+                                        keyMapEntryValueName,
+                                        keyMapEntry,
+                                        response.getStatusCode().value(),
+                                        response.getBody())
+                                );
+                            }
+                            return null;
+                        })
+                ));
+            } else {
+                executeThrottled(requestContext, HttpMethod.PUT, () -> executeMethodWithCachedToken(
+                        requestContext,
+                        KEY_MAP_ENTRY_VALUES,
+                        pathForMainRequest,
+                        (url, token, restTemplate) -> {
+                            updateKeyMapEntryValue(
                                     keyMapEntry,
-                                    response.getStatusCode().value(),
-                                    response.getBody())
+                                    keyMapEntryValueName,
+                                    newKeyMapEntryValue,
+                                    url,
+                                    token,
+                                    restTemplate
                             );
+                            return null;
                         }
-                        return null;
-                    }
-            );
-        } else {
-            executeMethod(
-                    requestContext,
-                    KEY_MAP_ENTRY_VALUES,
-                    pathForMainRequest,
-                    (url, token, restTemplateWrapper) -> {
-                        updateKeyMapEntryValue(
-                                keyMapEntry,
-                                keyMapEntryValueName,
-                                newKeyMapEntryValue,
-                                url,
-                                token,
-                                restTemplateWrapper.getRestTemplate()
-                        );
-                        return null;
-                    }
-            );
-        }
+                ));
+            }
+        });
     }
 
     public void deleteKeyMapEntryValue(String keyMapEntry, String keyMapEntryValueName, RequestContext requestContext) {
         log.debug("#deleteKeyMapEntryValue(String keyMapEntry, String keyMapEntryValueName, RequestContext requestContext): {}, {}, {}",
                 keyMapEntry, keyMapEntryValueName, requestContext);
-        String pathForMainRequest = format(KEY_MAP_ENTRY_VALUE, keyMapEntry, keyMapEntryValueName);
+        clientCallRecorder.record("deleteKeyMapEntryValue", requestContext, () -> {
+            String pathForMainRequest = format(KEY_MAP_ENTRY_VALUE, keyMapEntry, keyMapEntryValueName);
 
+            if (OAUTH.equals(requestContext.getAuthenticationType())) {
+                executeThrottled(requestContext, HttpMethod.DELETE, () -> executeDeletePublicApi(
+                        requestContext,
+                        pathForMainRequest,
+                        clientCallRecorder.parsing(response -> {
+                            if (!HttpStatus.NO_CONTENT.equals(response.getStatusCode())) {
+                                throw new ClientIntegrationException(format(
+                                        "Couldn't delete key map entry value %s in key map entry %s: Code: %d, Message: %s",
+                                        keyMapEntryValueName,
+                                        keyMapEntry,
+                                        response.getStatusCode().value(),
+                                        response.getBody())
+                                );
+                            }
+                            return null;
+                        })
+                ));
+            } else {
+                executeThrottled(requestContext, HttpMethod.DELETE, () -> executeMethodWithCachedToken(
+                        requestContext,
+                        KEY_MAP_ENTRY_VALUES,
+                        pathForMainRequest,
+                        (url, token, restTemplate) -> {
+                            deleteKeyMapEntryValue(keyMapEntry, keyMapEntryValueName, url, token, restTemplate);
+                            return null;
+                        }
+                ));
+            }
+        });
+    }
+
+    private List<KeyMapEntryMetaData> getKeyMapEntryMetaDataList(RequestContext requestContext, String path) {
         if (OAUTH.equals(requestContext.getAuthenticationType())) {
-            executeDeletePublicApi(
+            return executeThrottled(requestContext, HttpMethod.GET, () -> executeMethodPublicApi(
                     requestContext,
-                    pathForMainRequest,
-                    response -> {
-                        if (!HttpStatus.NO_CONTENT.equals(response.getStatusCode())) {
-                            throw new ClientIntegrationException(format(
-                                    "Couldn't delete key map entry value %s in key map entry %s: Code: %d, Message: %s",
-                                    keyMapEntryValueName,
-                                    keyMapEntry,
-                                    response.getStatusCode().value(),
-                                    response.getBody())
-                            );
-                        }
-                        return null;
-                    }
-            );
+                    path,
+                    null,
+                    HttpMethod.GET,
+                    clientCallRecorder.parsing(x -> KeyMapEntriesParser.buildKeyMapEntryMetaDataList(x.getBody()))
+            ));
+        }
+        return executeThrottled(requestContext, HttpMethod.GET, () -> executeGet(
+                requestContext,
+                path,
+                clientCallRecorder.parsing(KeyMapEntriesParser::buildKeyMapEntryMetaDataList)
+        ));
+    }
+
+    private ODataPageSpliterator.Page<KeyMapEntryMetaData> getKeyMapEntryMetaDataPage(RequestContext requestContext, String path) {
+        List<KeyMapEntryMetaData> keyMapEntries = new ArrayList<>();
+        String nextLink;
+        if (OAUTH.equals(requestContext.getAuthenticationType())) {
+            nextLink = executeThrottled(requestContext, HttpMethod.GET, () -> executeMethodPublicApi(
+                    requestContext,
+                    path,
+                    null,
+                    HttpMethod.GET,
+                    clientCallRecorder.parsing(response -> KeyMapEntriesParser.parseKeyMapEntryMetaDataPage(response.getBody(), keyMapEntries::add)),
+                    byte[].class
+            ));
         } else {
-            executeMethod(
+            nextLink = executeThrottled(requestContext, HttpMethod.GET, () -> executeGet(
                     requestContext,
-                    KEY_MAP_ENTRY_VALUES,
-                    pathForMainRequest,
-                    (url, token, restTemplateWrapper) -> {
-                        deleteKeyMapEntryValue(keyMapEntry, keyMapEntryValueName, url, token, restTemplateWrapper.getRestTemplate());
-                        return null;
-                    }
-            );
+                    path,
+                    clientCallRecorder.parsing(body -> KeyMapEntriesParser.parseKeyMapEntryMetaDataPage(body, keyMapEntries::add)),
+                    byte[].class
+            ));
+        }
+        return new ODataPageSpliterator.Page<>(keyMapEntries, nextLink);
+    }
+
+    private MetaDataCache.Listing<KeyMapEntryMetaData> getKeyMapEntryMetaDataListing(RequestContext requestContext, String eTag) {
+        HttpHeaders httpHeaders = new HttpHeaders();
+        if (eTag != null) {
+            httpHeaders.setIfNoneMatch(eTag);
+        }
+        if (OAUTH.equals(requestContext.getAuthenticationType())) {
+            return executeThrottled(requestContext, HttpMethod.GET, () -> executeMethodPublicApiWithCustomHeaders(
+                    requestContext,
+                    KEY_MAP_ENTRIES_WITH_PARAMETERS,
+                    null,
+                    HttpMethod.GET,
+                    httpHeaders,
+                    response -> MetaDataCache.toListing(response, clientCallRecorder.parsing(KeyMapEntriesParser::buildKeyMapEntryMetaDataList))
+            ));
+        }
+        // executeGet doesn't expose response headers, so the request is sent directly to get the ETag
+        return executeThrottled(requestContext, HttpMethod.GET, () -> executeMethodWithCachedToken(
+                requestContext,
+                KEY_MAP_ENTRIES_TOKEN,
+                KEY_MAP_ENTRIES_WITH_PARAMETERS,
+                (url, token, restTemplate) -> MetaDataCache.toListing(
+                        restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(httpHeaders), byte[].class),
+                        clientCallRecorder.parsing(body -> {
+                            List<KeyMapEntryMetaData> keyMapEntries = new ArrayList<>();
+                            KeyMapEntriesParser.parseKeyMapEntryMetaDataPage(body, keyMapEntries::add);
+                            return keyMapEntries;
+                        })
+                )
+        ));
+    }
+
+    private MetaDataCache.Listing<KeyMapEntryMetaData> getLatestChangedKeyMapEntryMetaData(RequestContext requestContext) {
+        List<KeyMapEntryMetaData> keyMapEntries = new ArrayList<>();
+        Long[] totalCount = new Long[1];
+        if (OAUTH.equals(requestContext.getAuthenticationType())) {
+            executeThrottled(requestContext, HttpMethod.GET, () -> executeMethodPublicApi(
+                    requestContext,
+                    KEY_MAP_ENTRIES_LATEST_CHANGE,
+                    null,
+                    HttpMethod.GET,
+                    clientCallRecorder.parsing(response -> KeyMapEntriesParser.parseKeyMapEntryMetaDataPage(response.getBody(), keyMapEntries::add, count -> totalCount[0] = count)),
+                    byte[].class
+            ));
+        } else {
+            executeThrottled(requestContext, HttpMethod.GET, () -> executeGet(
+                    requestContext,
+                    KEY_MAP_ENTRIES_LATEST_CHANGE,
+                    clientCallRecorder.parsing(body -> KeyMapEntriesParser.parseKeyMapEntryMetaDataPage(body, keyMapEntries::add, count -> totalCount[0] = count)),
+                    byte[].class
+            ));
         }
+        return new MetaDataCache.Listing<>(keyMapEntries, null, totalCount[0]);
     }
 
     private void updateKeyMapEntryValue(
@@ -628,40 +1109,263 @@ public class KeyMapEntriesClient extends BaseClient {
         }
     }
 
-    private void updateKeyMapEntry(
-            String keyMapEntry,
-            Map<String, String> keyToValueMap,
-            Map<String, String> remoteKeyToValueMap,
-            String url,
-            String token,
-            RestTemplate restTemplate
+    private List<BatchChunkResult> executeBatches(
+            List<List<List<KeyMapEntryValueOperation>>> batches,
+            RequestContext requestContext,
+            KeyMapBatchUpdateSettings keyMapBatchUpdateSettings
+    ) {
+        List<BatchChunkResult> batchResults = new ArrayList<>();
+        if (batches.isEmpty()) {
+            return batchResults;
+        }
+        int parallelism = Math.min(Math.max(1, keyMapBatchUpdateSettings.getMaxParallelRequests()), batches.size());
+
+        if (parallelism == 1) {
+            for (int batchIndex = 0; batchIndex < batches.size(); batchIndex++) {
+                batchResults.add(executeBatch(batchIndex, batches.get(batchIndex), requestContext));
+            }
+            return batchResults;
+        }
+
+        // the executor can be shared and unbounded, so the number of requests in flight is limited by the permits
+        Semaphore batchPermits = new Semaphore(parallelism);
+        Executor batchExecutor = this.batchExecutor;
+        List<CompletableFuture<BatchChunkResult>> batchResultFutures = new ArrayList<>();
+        for (int batchIndex = 0; batchIndex < batches.size(); batchIndex++) {
+            int currentBatchIndex = batchIndex;
+            batchResultFutures.add(CompletableFuture.supplyAsync(
+                    clientCallRecorder.inCurrentCall(() -> executeBatch(currentBatchIndex, batches.get(currentBatchIndex), requestContext, batchPermits)),
+                    batchExecutor
+            ));
+        }
+        try {
+            for (int batchIndex = 0; batchIndex < batches.size(); batchIndex++) {
+                batchResults.add(getBatchResult(batchIndex, batches.get(batchIndex), batchResultFutures.get(batchIndex)));
+            }
+        } catch (InterruptedException ex) {
+            // batches which haven't been started yet are skipped
+            batchResultFutures.forEach(batchResultFuture -> batchResultFuture.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new ClientIntegrationException("Key map entry update was interrupted", ex);
+        }
+        return batchResults;
+    }
+
+    /**
+     * A failed batch doesn't abort the update, the results of the other batches are already committed on the server.
+     */
+    private BatchChunkResult getBatchResult(
+            int batchIndex,
+            List<List<KeyMapEntryValueOperation>> changeSets,
+            CompletableFuture<BatchChunkResult> batchResultFuture
+    ) throws InterruptedException {
+        try {
+            return batchResultFuture.get();
+        } catch (ExecutionException ex) {
+            log.error("Couldn't execute $batch request {}: {}", batchIndex, ex.getCause().toString());
+            List<KeyMapEntryValueOperation> batchOperations = new ArrayList<>();
+            changeSets.forEach(batchOperations::addAll);
+            return new BatchChunkResult(batchIndex, false, null, ex.getCause().toString(), batchOperations, new ArrayList<>());
+        }
+    }
+
+    private BatchChunkResult executeBatch(
+            int batchIndex,
+            List<List<KeyMapEntryValueOperation>> changeSets,
+            RequestContext requestContext,
+            Semaphore batchPermits
     ) {
+        try {
+            batchPermits.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ClientIntegrationException("Key map entry update was interrupted", ex);
+        }
+        try {
+            return executeBatch(batchIndex, changeSets, requestContext);
+        } finally {
+            batchPermits.release();
+        }
+    }
+
+    private BatchChunkResult executeBatch(int batchIndex, List<List<KeyMapEntryValueOperation>> changeSets, RequestContext requestContext) {
+        List<KeyMapEntryValueOperation> batchOperations = new ArrayList<>();
+        changeSets.forEach(batchOperations::addAll);
         String bodySeparator = format("batch_%s", UUID.randomUUID());
-        HttpHeaders httpHeaders = createHttpHeadersWithCSRFToken(token);
-        httpHeaders.add("Content-Type", format("multipart/mixed;boundary=%s", bodySeparator));
-        Optional<String> body = prepareRequestBodyForUpdatingKeyMap(keyMapEntry, bodySeparator, keyToValueMap, remoteKeyToValueMap);
-        if (!body.isPresent()) {
-            return;
+        ODataBatchRequestBody<KeyMapEntryValueOperation> body = prepareRequestBodyForUpdatingKeyMap(bodySeparator, changeSets);
+        try {
+            ResponseEntity<String> responseEntity = executeBatchRequest(body, requestContext);
+            int statusCode = responseEntity.getStatusCode().value();
+            if (!HttpStatus.ACCEPTED.equals(responseEntity.getStatusCode())) {
+                return new BatchChunkResult(batchIndex, false, statusCode, responseEntity.getBody(), batchOperations, new ArrayList<>());
+            }
+            List<KeyMapEntryValueOperationResult> operationResults;
+            try {
+                operationResults = buildOperationResults(changeSets, responseEntity);
+            } catch (ClientIntegrationException ex) {
+                // the request is accepted, so without parsed responses it's handled as before, as a successful one
+                log.warn("Couldn't parse response of $batch request {}: {}", batchIndex, ex.getMessage());
+                return new BatchChunkResult(batchIndex, true, statusCode, null, batchOperations, new ArrayList<>());
+            }
+            return createBatchChunkResult(batchIndex, statusCode, batchOperations, operationResults);
+        } catch (HttpStatusCodeException ex) {
+            log.error("Couldn't execute $batch request {}: {}", batchIndex, ex.getMessage());
+            return new BatchChunkResult(batchIndex, false, ex.getStatusCode().value(), ex.getResponseBodyAsString(), batchOperations, new ArrayList<>());
+        } catch (ClientIntegrationException ex) {
+            log.error("Couldn't execute $batch request {}: {}", batchIndex, ex.getMessage());
+            Integer statusCode = ex.getCause() instanceof HttpStatusCodeException
+                    ? ((HttpStatusCodeException) ex.getCause()).getStatusCode().value()
+                    : null;
+            return new BatchChunkResult(batchIndex, false, statusCode, ex.getMessage(), batchOperations, new ArrayList<>());
+        } catch (RuntimeException ex) {
+            // e.g. ResourceAccessException on a timeout, the other batches are still executed
+            log.error("Couldn't execute $batch request {}: {}", batchIndex, ex.toString());
+            return new BatchChunkResult(batchIndex, false, null, ex.toString(), batchOperations, new ArrayList<>());
         }
-        HttpEntity<String> httpEntity = new HttpEntity<>(body.get(), httpHeaders);
-        ResponseEntity<String> responseEntity = restTemplate.exchange(url, HttpMethod.POST, httpEntity, String.class);
-        if (!HttpStatus.ACCEPTED.equals(responseEntity.getStatusCode())) {
+    }
+
+    static List<KeyMapEntryValueOperationResult> buildOperationResults(
+            List<List<KeyMapEntryValueOperation>> changeSets,
+            ResponseEntity<String> responseEntity
+    ) {
+        MediaType contentType = responseEntity.getHeaders().getContentType();
+        String boundary = contentType != null ? StringUtils.strip(contentType.getParameter("boundary"), "\"") : null;
+        List<List<ODataBatchResponseParser.OperationResponse>> changeSetResponses = ODataBatchResponseParser.parseBatchResponse(
+                responseEntity.getBody(),
+                boundary
+        );
+        if (changeSetResponses.size() != changeSets.size()) {
             throw new ClientIntegrationException(format(
-                    "Couldn't update key map entry %s: Code: %d, Message: %s",
-                    keyMapEntry,
-                    responseEntity.getStatusCode().value(),
-                    responseEntity.getBody())
-            );
+                    "$batch response contains %d parts, but %d changesets were sent",
+                    changeSetResponses.size(),
+                    changeSets.size()
+            ));
         }
+
+        List<KeyMapEntryValueOperationResult> operationResults = new ArrayList<>();
+        for (int changeSetIndex = 0; changeSetIndex < changeSets.size(); changeSetIndex++) {
+            List<KeyMapEntryValueOperation> changeSet = changeSets.get(changeSetIndex);
+            List<ODataBatchResponseParser.OperationResponse> operationResponses = changeSetResponses.get(changeSetIndex);
+            // a failed changeset is rolled back and answered with a single error
+            boolean changeSetRejected = operationResponses.size() == 1 && changeSet.size() > 1;
+            if (!changeSetRejected && operationResponses.size() != changeSet.size()) {
+                throw new ClientIntegrationException(format(
+                        "$batch response contains %d responses for changeset %d with %d operations",
+                        operationResponses.size(),
+                        changeSetIndex,
+                        changeSet.size()
+                ));
+            }
+            for (int operationIndex = 0; operationIndex < changeSet.size(); operationIndex++) {
+                ODataBatchResponseParser.OperationResponse operationResponse = operationResponses.get(changeSetRejected ? 0 : operationIndex);
+                operationResults.add(new KeyMapEntryValueOperationResult(
+                        changeSet.get(operationIndex),
+                        operationResponse.isSuccessful(),
+                        operationResponse.getStatusCode(),
+                        operationResponse.getErrorMessage()
+                ));
+            }
+        }
+        return operationResults;
+    }
+
+    private static BatchChunkResult createBatchChunkResult(
+            int batchIndex,
+            Integer statusCode,
+            List<KeyMapEntryValueOperation> operations,
+            List<KeyMapEntryValueOperationResult> operationResults
+    ) {
+        List<KeyMapEntryValueOperationResult> failedOperationResults = operationResults.stream()
+                .filter(operationResult -> !operationResult.isSuccessful())
+                .collect(Collectors.toList());
+        String errorMessage = failedOperationResults.isEmpty()
+                ? null
+                : format(
+                "%d of %d operations failed, first error: Code: %d, Message: %s",
+                failedOperationResults.size(),
+                operationResults.size(),
+                failedOperationResults.get(0).getStatusCode(),
+                failedOperationResults.get(0).getErrorMessage()
+        );
+        return new BatchChunkResult(
+                batchIndex,
+                failedOperationResults.isEmpty(),
+                statusCode,
+                errorMessage,
+                operations,
+                new ArrayList<>(operationResults)
+        );
+    }
+
+    private ResponseEntity<String> executeBatchRequest(ODataBatchRequestBody<?> body, RequestContext requestContext) {
+        String bodySeparator = body.getBatchBoundary();
+        if (OAUTH.equals(requestContext.getAuthenticationType())) {
+            HttpHeaders httpHeaders = new HttpHeaders();
+            httpHeaders.add("Content-Type", format("multipart/mixed;boundary=%s", bodySeparator));
+            return executeThrottled(requestContext, HttpMethod.POST, () -> executeMethodPublicApiWithCustomHeaders(
+                    requestContext,
+                    BATCH_REQUEST,
+                    body,
+                    HttpMethod.POST,
+                    httpHeaders,
+                    clientCallRecorder.parsing(response -> response)
+            ));
+        }
+        return executeThrottled(requestContext, HttpMethod.POST, () -> executeMethodWithCachedToken(
+                requestContext,
+                KEY_MAP_ENTRY_VALUES,
+                BATCH_REQUEST,
+                (url, token, restTemplate) -> {
+                    HttpHeaders httpHeaders = createHttpHeadersWithCSRFToken(token);
+                    httpHeaders.add("Content-Type", format("multipart/mixed;boundary=%s", bodySeparator));
+                    HttpEntity<Resource> httpEntity = new HttpEntity<>(body, httpHeaders);
+                    return restTemplate.exchange(url, HttpMethod.POST, httpEntity, String.class);
+                }
+        ));
+    }
+
+    private static List<KeyMapEntryMetaData> copyKeyMapEntryMetaDataList(List<KeyMapEntryMetaData> keyMapEntryMetaDataList) {
+        return keyMapEntryMetaDataList.stream().map(KeyMapEntryMetaData::new).collect(Collectors.toList());
     }
 
-    private Optional<String> prepareRequestBodyForUpdatingKeyMap(
+    private static List<KeyMapEntryValue> copyKeyMapEntryValues(List<KeyMapEntryValue> keyMapEntryValues) {
+        return keyMapEntryValues.stream().map(KeyMapEntryValue::new).collect(Collectors.toList());
+    }
+
+    private <T> T executeCoalesced(RequestContext requestContext, String operation, String path, Supplier<T> request, UnaryOperator<T> resultCopier) {
+        RequestCoalescer requestCoalescer = this.requestCoalescer;
+        return requestCoalescer != null ? requestCoalescer.execute(requestContext, operation, path, request, resultCopier) : request.get();
+    }
+
+    private <R> R executeThrottled(RequestContext requestContext, HttpMethod httpMethod, Supplier<R> request) {
+        TenantRateLimiter tenantRateLimiter = this.tenantRateLimiter;
+        return tenantRateLimiter != null ? tenantRateLimiter.execute(requestContext, httpMethod, request) : request.get();
+    }
+
+    private <R> R executeMethodWithCachedToken(
+            RequestContext requestContext,
+            String pathForToken,
+            String pathForMainRequest,
+            CsrfTokenCache.SessionRequest<R> request
+    ) {
+        return csrfTokenCache.execute(
+                requestContext,
+                pathForMainRequest,
+                request,
+                sessionRequest -> executeMethod(
+                        requestContext,
+                        pathForToken,
+                        pathForMainRequest,
+                        (url, token, restTemplateWrapper) -> sessionRequest.execute(url, token, restTemplateWrapper.getRestTemplate())
+                )
+        );
+    }
+
+    private static List<KeyMapEntryValueOperation> discoverOperations(
             String keyMapEntry,
-            String bodySeparator,
             Map<String, String> keyToValueMap,
             Map<String, String> remoteKeyToValueMap
     ) {
-
         Map<String, String> valuesForAdding = new HashMap<>();
         Map<String, String> valuesForUpdating = new HashMap<>();
         Map<String, String> valuesForDeletion = new HashMap<>();
@@ -674,32 +1378,36 @@ public class KeyMapEntriesClient extends BaseClient {
                 valuesForDeletion
         );
 
-        if (valuesForAdding.isEmpty() && valuesForUpdating.isEmpty() && valuesForDeletion.isEmpty()) {
-            return Optional.empty();
+        List<KeyMapEntryValueOperation> keyMapEntryValueOperations = new ArrayList<>(
+                valuesForAdding.size() + valuesForUpdating.size() + valuesForDeletion.size()
+        );
+        for (Map.Entry<String, String> valueForAdding : valuesForAdding.entrySet()) {
+            keyMapEntryValueOperations.add(new KeyMapEntryValueOperation(KeyMapEntryValueOperation.Type.ADD, keyMapEntry, valueForAdding.getKey(), valueForAdding.getValue()));
         }
-
-        String changeSetSeparator = format("changeset_%s", UUID.randomUUID());
-        String requestId = UUID.randomUUID().toString();
-        StringBuilder changeSets = new StringBuilder();
-
-        try {
-            addChangeSetsForAddedValues(changeSets, keyMapEntry, valuesForAdding, changeSetSeparator, requestId);
-            addChangeSetsForUpdatedValues(changeSets, keyMapEntry, valuesForUpdating, changeSetSeparator, requestId);
-            addChangeSetsForDeletedValues(changeSets, keyMapEntry, valuesForDeletion, changeSetSeparator, requestId);
-        } catch (UnsupportedEncodingException ex) {
-            throw new ClientIntegrationException("Couldn't get key map entry values: " + ex.getMessage(), ex);
+        for (Map.Entry<String, String> valueForUpdating : valuesForUpdating.entrySet()) {
+            keyMapEntryValueOperations.add(new KeyMapEntryValueOperation(KeyMapEntryValueOperation.Type.UPDATE, keyMapEntry, valueForUpdating.getKey(), valueForUpdating.getValue()));
+        }
+        for (String keyForDeletion : valuesForDeletion.keySet()) {
+            keyMapEntryValueOperations.add(new KeyMapEntryValueOperation(KeyMapEntryValueOperation.Type.DELETE, keyMapEntry, keyForDeletion, null));
         }
+        return keyMapEntryValueOperations;
+    }
 
-        changeSets.append(format(BATCH_UPDATE_CHANGE_SET_END_TEMPLATE, changeSetSeparator));
-        String body = format(
-                BATCH_UPDATE_BODY_TEMPLATE,
+    // package-private for the benchmarks
+    static ODataBatchRequestBody<KeyMapEntryValueOperation> prepareRequestBodyForUpdatingKeyMap(
+            String bodySeparator,
+            List<List<KeyMapEntryValueOperation>> changeSets
+    ) {
+        String requestId = UUID.randomUUID().toString();
+        return new ODataBatchRequestBody<>(
                 bodySeparator,
-                changeSetSeparator,
                 changeSets,
-                bodySeparator
+                (batchWriter, keyMapEntryValueOperation) -> writeKeyMapEntryValueOperation(batchWriter, keyMapEntryValueOperation, requestId)
         );
+    }
 
-        return Optional.of(body);
+    private static int getMaxOperationsPerBatch(KeyMapBatchUpdateSettings keyMapBatchUpdateSettings) {
+        return Math.max(1, keyMapBatchUpdateSettings.getMaxOperationsPerBatch());
     }
 
     private static void discoverValuesToBeChanged(
@@ -726,69 +1434,45 @@ public class KeyMapEntriesClient extends BaseClient {
         valuesForDeletion.putAll(remoteKeyToValueMap);
     }
 
-    private static void addChangeSetsForDeletedValues(
-            StringBuilder changeSets,
-            String keyMapEntry,
-            Map<String, String> valuesForDeletion,
-            String changeSetSeparator,
+    private static void writeKeyMapEntryValueOperation(
+            ODataBatchWriter batchWriter,
+            KeyMapEntryValueOperation keyMapEntryValueOperation,
             String requestId
-    ) throws UnsupportedEncodingException {
-        for (Map.Entry<String, String> valueForDeletion : valuesForDeletion.entrySet()) {
-            changeSets.append(format(BATCH_UPDATE_CHANGE_SET_START_TEMPLATE, changeSetSeparator));
-            changeSets.append(format(
-                    BATCH_UPDATE_CHANGE_SET_BODY_FOR_DELETION_VALUE_TEMPLATE,
-                    URLEncoder.encode(keyMapEntry, StandardCharsets.UTF_8.name()).replace("+", "%20"),
-                    URLEncoder.encode(valueForDeletion.getKey(), StandardCharsets.UTF_8.name()).replace("+", "%20"),
-                    requestId
-            ));
-        }
-    }
-
-    private void addChangeSetsForUpdatedValues(
-            StringBuilder changeSets,
-            String keyMapEntry,
-            Map<String, String> valuesForUpdating,
-            String changeSetSeparator,
-            String requestId
-    ) throws UnsupportedEncodingException {
-        for (Map.Entry<String, String> valueForUpdating : valuesForUpdating.entrySet()) {
-            changeSets.append(format(BATCH_UPDATE_CHANGE_SET_START_TEMPLATE, changeSetSeparator));
-
-            changeSets.append(format(
-                    BATCH_UPDATE_CHANGE_SET_BODY_FOR_UPDATING_VALUE_TEMPLATE,
-                    URLEncoder.encode(keyMapEntry, StandardCharsets.UTF_8.name()).replace("+", "%20"),
-                    URLEncoder.encode(valueForUpdating.getKey(), StandardCharsets.UTF_8.name()).replace("+", "%20"),
-                    requestId,
-                    valueForUpdating.getValue().length() + 12,
-                    valueForUpdating.getValue()
-            ));
+    ) throws IOException {
+        String encodedMapName = URLEncoder.encode(keyMapEntryValueOperation.getMapName(), StandardCharsets.UTF_8.name()).replace("+", "%20");
+        switch (keyMapEntryValueOperation.getType()) {
+            case ADD:
+                StringBuilder payloadForAdding = new StringBuilder("{\"name\":");
+                ODataBatchWriter.appendJsonString(payloadForAdding, keyMapEntryValueOperation.getName()).append(",\"value\":");
+                ODataBatchWriter.appendJsonString(payloadForAdding, keyMapEntryValueOperation.getValue()).append(",\"map_name\":");
+                ODataBatchWriter.appendJsonString(payloadForAdding, keyMapEntryValueOperation.getMapName()).append(",\"keyMapEntry\":{\"__metadata\":{\"uri\":");
+                ODataBatchWriter.appendJsonString(payloadForAdding, format("KeyMapEntries('%s')", encodedMapName)).append("}}}");
+                batchWriter.writeRequest("POST", "KeyMapEntryValues", requestId, payloadForAdding.toString());
+                break;
+            case UPDATE:
+                StringBuilder payloadForUpdating = new StringBuilder("{\"value\":");
+                ODataBatchWriter.appendJsonString(payloadForUpdating, keyMapEntryValueOperation.getValue()).append('}');
+                batchWriter.writeRequest(
+                        "PUT",
+                        format(KEY_MAP_ENTRY_VALUE_IN_BATCH, encodedMapName, encodeKeyMapEntryValueName(keyMapEntryValueOperation)),
+                        requestId,
+                        payloadForUpdating.toString()
+                );
+                break;
+            case DELETE:
+                batchWriter.writeRequest(
+                        "DELETE",
+                        format(KEY_MAP_ENTRY_VALUE_IN_BATCH, encodedMapName, encodeKeyMapEntryValueName(keyMapEntryValueOperation)),
+                        requestId,
+                        null
+                );
+                break;
+            default:
+                throw new IllegalArgumentException("Unexpected operation type: " + keyMapEntryValueOperation.getType());
         }
     }
 
-    private static void addChangeSetsForAddedValues(
-            StringBuilder changeSets,
-            String keyMapEntry,
-            Map<String, String> valuesForAdding,
-            String changeSetSeparator,
-            String requestId
-    ) throws UnsupportedEncodingException {
-        for (Map.Entry<String, String> valueForAdding : valuesForAdding.entrySet()) {
-            changeSets.append(format(BATCH_UPDATE_CHANGE_SET_START_TEMPLATE, changeSetSeparator));
-
-            String payload = format(
-                    PAYLOAD_FOR_ADDING_VALUE_TEMPLATE,
-                    valueForAdding.getKey(),
-                    valueForAdding.getValue(),
-                    keyMapEntry,
-                    URLEncoder.encode(keyMapEntry, StandardCharsets.UTF_8.name()).replace("+", "%20")
-            );
-
-            changeSets.append(format(
-                    BATCH_UPDATE_CHANGE_SET_BODY_FOR_ADDING_VALUE_TEMPLATE,
-                    requestId,
-                    payload.length(),
-                    payload
-            ));
-        }
+    private static String encodeKeyMapEntryValueName(KeyMapEntryValueOperation keyMapEntryValueOperation) throws UnsupportedEncodingException {
+        return URLEncoder.encode(keyMapEntryValueOperation.getName(), StandardCharsets.UTF_8.name()).replace("+", "%20");
     }
 }
@@ -0,0 +1,148 @@
+package com.figaf.integration.apimgmt.client;
+
+import com.figaf.integration.apimgmt.entity.ApiProxyMetaData;
+import com.figaf.integration.apimgmt.entity.KeyMapEntryMetaData;
+import com.figaf.integration.apimgmt.entity.LandscapeInventory;
+import com.figaf.integration.apimgmt.entity.TenantInventory;
+import com.figaf.integration.apimgmt.utils.ExecutorUtils;
+import com.figaf.integration.common.entity.RequestContext;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static com.figaf.integration.apimgmt.utils.RequestContextUtils.getTenantKey;
+import static java.lang.String.format;
+
+/**
+ * Collects API proxies and key map entries of many tenants at once. All tenants (and both listings of a tenant)
+ * are loaded in parallel on the executor, so the scan takes about as long as the slowest tenant.
+ * A failure of one tenant is reported in its {@link TenantInventory} and doesn't affect others.
+ * <p>
+ * Tenants which aren't scanned within {@code tenantTimeout} after the start of the scan are reported as timed out,
+ * their requests aren't interrupted and complete in the background. With a bounded executor the timeout includes
+ * the time the tenant waits for a free thread.
+ */
+@Slf4j
+public class LandscapeScanner {
+
+    private final ApiProxyObjectClient apiProxyObjectClient;
+    private final KeyMapEntriesClient keyMapEntriesClient;
+    private final Duration tenantTimeout;
+    private final Executor executor;
+
+    public LandscapeScanner(ApiProxyObjectClient apiProxyObjectClient, KeyMapEntriesClient keyMapEntriesClient, Duration tenantTimeout) {
+        this(apiProxyObjectClient, keyMapEntriesClient, tenantTimeout, ExecutorUtils.getDefaultExecutor());
+    }
+
+    public LandscapeScanner(
+            ApiProxyObjectClient apiProxyObjectClient,
+            KeyMapEntriesClient keyMapEntriesClient,
+            Duration tenantTimeout,
+            Executor executor
+    ) {
+        if (tenantTimeout == null || tenantTimeout.isNegative() || tenantTimeout.isZero()) {
+            throw new IllegalArgumentException("tenantTimeout must be positive: " + tenantTimeout);
+        }
+        this.apiProxyObjectClient = apiProxyObjectClient;
+        this.keyMapEntriesClient = keyMapEntriesClient;
+        this.tenantTimeout = tenantTimeout;
+        this.executor = executor;
+    }
+
+    /**
+     * @param requestContexts one context per tenant, tenants are identified by
+     *                        {@link com.figaf.integration.apimgmt.utils.RequestContextUtils#getTenantKey(RequestContext)}
+     */
+    public LandscapeInventory scan(Collection<RequestContext> requestContexts) {
+        log.debug("#scan(Collection<RequestContext> requestContexts): {}", requestContexts.size());
+        Set<String> tenantKeys = new HashSet<>();
+        for (RequestContext requestContext : requestContexts) {
+            if (!tenantKeys.add(getTenantKey(requestContext))) {
+                throw new IllegalArgumentException(format("Request context of tenant %s is passed twice, every tenant must be scanned once", getTenantKey(requestContext)));
+            }
+        }
+
+        long startTime = System.nanoTime();
+        long deadline = startTime + tenantTimeout.toNanos();
+        List<TenantScan> tenantScans = new ArrayList<>(requestContexts.size());
+        for (RequestContext requestContext : requestContexts) {
+            tenantScans.add(new TenantScan(requestContext));
+        }
+        List<TenantInventory> tenantInventories = new ArrayList<>(tenantScans.size());
+        for (TenantScan tenantScan : tenantScans) {
+            TenantInventory tenantInventory = tenantScan.await(startTime, deadline);
+            if (tenantInventory.isSuccessful()) {
+                log.debug("Tenant {} is scanned in {} ms", tenantInventory.getTenantKey(), tenantInventory.getDurationMillis());
+            } else {
+                log.warn("Couldn't scan tenant {} in {} ms: {}", tenantInventory.getTenantKey(), tenantInventory.getDurationMillis(), tenantInventory.getErrorMessage());
+            }
+            tenantInventories.add(tenantInventory);
+        }
+        return new LandscapeInventory(tenantInventories, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    }
+
+    private static String getErrorMessage(String listing, CompletableFuture<?> listingFuture) {
+        if (!listingFuture.isDone()) {
+            return format("%s weren't loaded in time", listing);
+        }
+        try {
+            listingFuture.join();
+            return null;
+        } catch (CompletionException | CancellationException ex) {
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            return format("Couldn't load %s: %s", listing, cause.getMessage());
+        }
+    }
+
+    private class TenantScan {
+
+        private final String tenantKey;
+        private final AtomicLong finishTime = new AtomicLong();
+        private final CompletableFuture<List<ApiProxyMetaData>> apiProxiesFuture;
+        private final CompletableFuture<List<KeyMapEntryMetaData>> keyMapEntriesFuture;
+
+        private TenantScan(RequestContext requestContext) {
+            this.tenantKey = getTenantKey(requestContext);
+            this.apiProxiesFuture = load(() -> apiProxyObjectClient.getApiObjectMetaData(requestContext));
+            this.keyMapEntriesFuture = load(() -> keyMapEntriesClient.getKeyMapEntryMetaDataList(requestContext));
+        }
+
+        private <T> CompletableFuture<T> load(Supplier<T> listingLoader) {
+            return CompletableFuture.supplyAsync(listingLoader, executor)
+                    .whenComplete((result, ex) -> finishTime.accumulateAndGet(System.nanoTime(), Math::max));
+        }
+
+        private TenantInventory await(long startTime, long deadline) {
+            boolean timedOut = false;
+            try {
+                CompletableFuture.allOf(apiProxiesFuture, keyMapEntriesFuture).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException ex) {
+                timedOut = true;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                timedOut = true;
+            } catch (ExecutionException ex) {
+                // failures are reported separately for every listing
+            }
+            long durationNanos = (timedOut ? System.nanoTime() : finishTime.get()) - startTime;
+
+            String apiProxiesErrorMessage = getErrorMessage("API proxies", apiProxiesFuture);
+            String keyMapEntriesErrorMessage = getErrorMessage("key map entries", keyMapEntriesFuture);
+            String errorMessage = apiProxiesErrorMessage != null && keyMapEntriesErrorMessage != null
+                    ? apiProxiesErrorMessage + "; " + keyMapEntriesErrorMessage
+                    : (apiProxiesErrorMessage != null ? apiProxiesErrorMessage : keyMapEntriesErrorMessage);
+            return new TenantInventory(
+                    tenantKey,
+                    apiProxiesErrorMessage == null ? apiProxiesFuture.join() : null,
+                    keyMapEntriesErrorMessage == null ? keyMapEntriesFuture.join() : null,
+                    TimeUnit.NANOSECONDS.toMillis(durationNanos),
+                    timedOut,
+                    errorMessage
+            );
+        }
+    }
+}
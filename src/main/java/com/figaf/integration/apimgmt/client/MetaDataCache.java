@@ -0,0 +1,180 @@
+package com.figaf.integration.apimgmt.client;
+
+import com.figaf.integration.common.entity.RequestContext;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import static com.figaf.integration.apimgmt.utils.RequestContextUtils.getTenantKey;
+import static java.lang.String.format;
+
+/**
+ * Opt-in cache of the metadata listings ({@code getApiObjectMetaData}, {@code getKeyMapEntryMetaDataList}),
+ * enabled by passing it to {@code setMetaDataCache} of the clients. One instance can be shared by several clients:
+ * entries are keyed by the tenant of the request context and the request path.
+ * <p>
+ * A cached listing is revalidated on every call. If the server returned an ETag, the listing is requested with
+ * {@code If-None-Match} and {@code 304 Not Modified} is answered from the cache. Otherwise a one-element request returns
+ * the total count and the latest {@code life_cycle/changed_at} of the collection, and the listing is downloaded
+ * only if any of them has changed. Entries older than {@code timeToLive} are downloaded again unconditionally,
+ * at most {@code maxSize} listings are kept, the least recently used one is evicted first.
+ * <p>
+ * Entities are mutable, so the cache keeps its own copies of them and every call returns new copies.
+ */
+@Slf4j
+public class MetaDataCache {
+
+    private final long timeToLiveNanos;
+    private final Map<String, Entry<?>> entries;
+
+    public MetaDataCache(Duration timeToLive, int maxSize) {
+        if (timeToLive == null || timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("timeToLive must be positive: " + timeToLive);
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.entries = new LinkedHashMap<String, Entry<?>>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<?>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void invalidate(RequestContext requestContext) {
+        String tenantKeyPrefix = getTenantKey(requestContext) + "|";
+        entries.keySet().removeIf(key -> key.startsWith(tenantKeyPrefix));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @param listingLoader          loads the listing, sending {@code If-None-Match} with the passed ETag if it's not {@code null}.
+     *                               Returns {@code null} when the server answered {@code 304 Not Modified}
+     * @param latestChangeLoader     loads the most recently changed element of the collection together with the total count
+     * @param modificationDateGetter returns {@code life_cycle/changed_at} of the element
+     * @param itemCopier             returns a deep copy of the element
+     */
+    <T> List<T> get(
+            RequestContext requestContext,
+            String path,
+            Function<String, Listing<T>> listingLoader,
+            Supplier<Listing<T>> latestChangeLoader,
+            Function<T, Date> modificationDateGetter,
+            UnaryOperator<T> itemCopier
+    ) {
+        String key = format("%s|%s", getTenantKey(requestContext), path);
+        Entry<T> entry = getNotExpiredEntry(key);
+        if (entry != null) {
+            if (entry.getETag() != null) {
+                Listing<T> listing = listingLoader.apply(entry.getETag());
+                if (listing == null) {
+                    log.debug("Listing {} is not modified, cached value is returned", key);
+                    return copyItems(entry.getItems(), itemCopier);
+                }
+                return store(key, listing, modificationDateGetter, itemCopier);
+            }
+            String latestChange = buildLatestChange(latestChangeLoader.get(), modificationDateGetter);
+            if (latestChange != null && latestChange.equals(entry.getLatestChange())) {
+                log.debug("Listing {} is not changed since {}, cached value is returned", key, latestChange);
+                return copyItems(entry.getItems(), itemCopier);
+            }
+        }
+        return store(key, listingLoader.apply(null), modificationDateGetter, itemCopier);
+    }
+
+    /**
+     * Converts the response of a conditional request to a listing, {@code 304 Not Modified} is converted to {@code null}.
+     */
+    static <T, B> Listing<T> toListing(ResponseEntity<B> response, Function<B, List<T>> bodyParser) {
+        if (HttpStatus.NOT_MODIFIED.equals(response.getStatusCode())) {
+            return null;
+        }
+        return new Listing<>(bodyParser.apply(response.getBody()), response.getHeaders().getETag(), null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <T> Entry<T> getNotExpiredEntry(String key) {
+        Entry<T> entry = (Entry<T>) entries.get(key);
+        if (entry != null && System.nanoTime() - entry.getLoadedAt() > timeToLiveNanos) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    private <T> List<T> store(String key, Listing<T> listing, Function<T, Date> modificationDateGetter, UnaryOperator<T> itemCopier) {
+        if (listing == null) {
+            // can't happen for unconditional requests, but a misbehaving proxy could still answer 304
+            throw new IllegalStateException(format("Listing %s wasn't returned by the server", key));
+        }
+        // the loaded entities are returned to the caller, the cache keeps copies of them
+        List<T> items = Collections.unmodifiableList(copyItems(listing.getItems(), itemCopier));
+        String latestChange = listing.getETag() == null
+                ? buildLatestChange(new Listing<>(items, null, (long) items.size()), modificationDateGetter)
+                : null;
+        synchronized (this) {
+            entries.put(key, new Entry<>(items, listing.getETag(), latestChange, System.nanoTime()));
+        }
+        return new ArrayList<>(listing.getItems());
+    }
+
+    private static <T> List<T> copyItems(List<T> items, UnaryOperator<T> itemCopier) {
+        List<T> copiedItems = new ArrayList<>(items.size());
+        for (T item : items) {
+            copiedItems.add(itemCopier.apply(item));
+        }
+        return copiedItems;
+    }
+
+    private static <T> String buildLatestChange(Listing<T> listing, Function<T, Date> modificationDateGetter) {
+        // without the total count deletions can't be noticed, so such listing is never considered as not changed
+        if (listing.getTotalCount() == null) {
+            return null;
+        }
+        long latestModificationTime = 0;
+        for (T item : listing.getItems()) {
+            Date modificationDate = modificationDateGetter.apply(item);
+            if (modificationDate != null) {
+                latestModificationTime = Math.max(latestModificationTime, modificationDate.getTime());
+            }
+        }
+        return format("%d|%d", listing.getTotalCount(), latestModificationTime);
+    }
+
+    @AllArgsConstructor
+    @Getter
+    static class Listing<T> {
+
+        private final List<T> items;
+        private final String eTag;
+        private final Long totalCount;
+    }
+
+    @AllArgsConstructor
+    @Getter
+    private static class Entry<T> {
+
+        private final List<T> items;
+        private final String eTag;
+        private final String latestChange;
+        private final long loadedAt;
+    }
+}
@@ -0,0 +1,163 @@
+package com.figaf.integration.apimgmt.client;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.lang.String.format;
+
+/**
+ * Lazily walks through an OData v2 collection page by page using {@code $top}/{@code $skip}
+ * and follows server-driven {@code __next} links when the server returns them.
+ * The first page is loaded on the first access; every next page is requested in the background
+ * as soon as the previous one is handed over, so the caller processes page N while page N+1 is being loaded.
+ */
+class ODataPageSpliterator<T> implements Spliterator<T> {
+
+    private static final String SERVICE_ROOT_MARKER = "/apiportal/";
+
+    private final String collectionPath;
+    private final String serviceRootPath;
+    private final int pageSize;
+    private final Function<String, Page<T>> pageLoader;
+    private final Executor executor;
+
+    private boolean started;
+    private int skip;
+    private int loadedInCurrentWindow;
+    private CompletableFuture<Page<T>> nextPage;
+    private Iterator<T> currentPageIterator = Collections.emptyIterator();
+
+    /**
+     * @param collectionPath  path of the collection which already has a query part, e.g. {@code ...APIProxies?$format=json}
+     * @param serviceRootPath path of the OData service, used to resolve relative {@code __next} links
+     * @param pageLoader      loads and parses a page for the given path
+     */
+    ODataPageSpliterator(String collectionPath, String serviceRootPath, int pageSize, Function<String, Page<T>> pageLoader, Executor executor) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive: " + pageSize);
+        }
+        this.collectionPath = collectionPath;
+        this.serviceRootPath = serviceRootPath;
+        this.pageSize = pageSize;
+        this.pageLoader = pageLoader;
+        this.executor = executor;
+    }
+
+    static <T> Stream<T> stream(String collectionPath, String serviceRootPath, int pageSize, Function<String, Page<T>> pageLoader, Executor executor) {
+        ODataPageSpliterator<T> spliterator = new ODataPageSpliterator<>(collectionPath, serviceRootPath, pageSize, pageLoader, executor);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (!currentPageIterator.hasNext()) {
+            if (!started) {
+                started = true;
+                nextPage = CompletableFuture.completedFuture(pageLoader.apply(buildWindowPath()));
+            }
+            if (nextPage == null) {
+                return false;
+            }
+            Page<T> page = join(nextPage);
+            loadedInCurrentWindow += page.getItems().size();
+            String nextPagePath = resolveNextPagePath(page);
+            nextPage = nextPagePath != null
+                    ? CompletableFuture.supplyAsync(() -> pageLoader.apply(nextPagePath), executor)
+                    : null;
+            currentPageIterator = page.getItems().iterator();
+        }
+        action.accept(currentPageIterator.next());
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    void close() {
+        if (nextPage != null) {
+            nextPage.cancel(true);
+            nextPage = null;
+        }
+        currentPageIterator = Collections.emptyIterator();
+        started = true;
+    }
+
+    private String resolveNextPagePath(Page<T> page) {
+        if (page.getNextLink() != null) {
+            return toRequestPath(page.getNextLink(), serviceRootPath);
+        }
+        if (loadedInCurrentWindow < pageSize) {
+            return null;
+        }
+        skip += pageSize;
+        loadedInCurrentWindow = 0;
+        return buildWindowPath();
+    }
+
+    private String buildWindowPath() {
+        return format("%s&$top=%d&$skip=%d", collectionPath, pageSize, skip);
+    }
+
+    /**
+     * Converts the {@code __next} link (absolute or relative to the service root) to a request path.
+     */
+    static String toRequestPath(String nextLink, String serviceRootPath) {
+        int serviceRootIndex = nextLink.indexOf(SERVICE_ROOT_MARKER);
+        String path;
+        if (serviceRootIndex >= 0) {
+            path = nextLink.substring(serviceRootIndex);
+        } else {
+            path = serviceRootPath + (nextLink.startsWith("/") ? nextLink.substring(1) : nextLink);
+        }
+        if (!path.contains("$format=json")) {
+            path += path.contains("?") ? "&$format=json" : "?$format=json";
+        }
+        return path;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        } catch (CancellationException ex) {
+            throw new IllegalStateException("Page loading was cancelled", ex);
+        }
+    }
+
+    @AllArgsConstructor
+    @Getter
+    static class Page<T> {
+
+        private final List<T> items;
+        private final String nextLink;
+    }
+}
@@ -0,0 +1,81 @@
+package com.figaf.integration.apimgmt.client;
+
+import com.figaf.integration.common.entity.RequestContext;
+import com.figaf.integration.common.exception.ClientIntegrationException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import static com.figaf.integration.apimgmt.utils.RequestContextUtils.getTenantKey;
+import static java.lang.String.format;
+
+/**
+ * Opt-in single-flight coalescing of identical reads, enabled by passing it to {@code setRequestCoalescer} of the clients.
+ * One instance can be shared by several clients: concurrent calls of the same operation with the same tenant
+ * and request path share one in-flight request, the first caller executes it and the others wait for its result
+ * or its exception.
+ * Every caller gets its own copy of the result, so callers can modify it independently.
+ * Nothing is kept after the request is completed, a call which comes later sends a new request.
+ */
+@Slf4j
+public class RequestCoalescer {
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlightRequests = new ConcurrentHashMap<>();
+
+    public int getInFlightRequestCount() {
+        return inFlightRequests.size();
+    }
+
+    /**
+     * @param operation    distinguishes calls which send the same request but return different results
+     * @param resultCopier creates an independent copy of the result, it's never called for {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    <T> T execute(RequestContext requestContext, String operation, String path, Supplier<T> request, UnaryOperator<T> resultCopier) {
+        String key = format("%s|%s|%s", getTenantKey(requestContext), operation, path);
+        CompletableFuture<Object> newRequest = new CompletableFuture<>();
+        CompletableFuture<Object> inFlightRequest = inFlightRequests.putIfAbsent(key, newRequest);
+        if (inFlightRequest != null) {
+            log.debug("Request {} is already in flight, its result is shared", key);
+            return copy((T) await(key, inFlightRequest), resultCopier);
+        }
+        try {
+            T result = request.get();
+            newRequest.complete(result);
+            // the result itself is shared with the waiting callers, so the caller gets a copy as well
+            return copy(result, resultCopier);
+        } catch (RuntimeException | Error ex) {
+            newRequest.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlightRequests.remove(key, newRequest);
+        }
+    }
+
+    private static <T> T copy(T result, UnaryOperator<T> resultCopier) {
+        return result != null ? resultCopier.apply(result) : null;
+    }
+
+    private static Object await(String key, CompletableFuture<Object> inFlightRequest) {
+        try {
+            return inFlightRequest.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ClientIntegrationException(format("Interrupted while waiting for request %s", key), ex);
+        } catch (ExecutionException ex) {
+            // the caller gets the same exception as the one who executed the request, e.g. to handle 404
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+            }
+            throw new ClientIntegrationException(format("Request %s failed: %s", key, ex.getMessage()), ex);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.figaf.integration.apimgmt.client;
+
+import com.figaf.integration.apimgmt.entity.RateLimitSettings;
+import com.figaf.integration.common.entity.RequestContext;
+import com.figaf.integration.common.exception.ClientIntegrationException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static com.figaf.integration.apimgmt.utils.RequestContextUtils.getTenantKey;
+
+/**
+ * Client-side rate limiter with a token bucket per tenant. The rate adapts to the tenant: every 429 or 503 response
+ * decreases it (at most once per second, so that parallel requests rejected together don't collapse it),
+ * successful requests slowly increase it again, and {@code Retry-After} pauses all requests to the tenant.
+ * Throttled GET requests are retried with a jittered exponential backoff, other requests fail as before.
+ * <p>
+ * One instance can be shared by several clients, so that they all respect the same limit of the tenant.
+ */
+@Slf4j
+public class TenantRateLimiter {
+
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final RateLimitSettings rateLimitSettings;
+    private final ConcurrentMap<String, TokenBucket> tenantToTokenBucket = new ConcurrentHashMap<>();
+
+    public TenantRateLimiter() {
+        this(new RateLimitSettings());
+    }
+
+    public TenantRateLimiter(RateLimitSettings rateLimitSettings) {
+        if (rateLimitSettings.getMinRequestsPerSecond() <= 0) {
+            throw new IllegalArgumentException("minRequestsPerSecond must be positive: " + rateLimitSettings.getMinRequestsPerSecond());
+        }
+        if (rateLimitSettings.getDecreaseFactor() <= 0 || rateLimitSettings.getDecreaseFactor() >= 1) {
+            throw new IllegalArgumentException("decreaseFactor must be between 0 and 1: " + rateLimitSettings.getDecreaseFactor());
+        }
+        if (rateLimitSettings.getMaxRetries() < 0) {
+            throw new IllegalArgumentException("maxRetries must not be negative: " + rateLimitSettings.getMaxRetries());
+        }
+        this.rateLimitSettings = rateLimitSettings;
+    }
+
+    /**
+     * @return current limit of requests per second for the tenant, 0 if requests aren't limited
+     */
+    public double getRequestsPerSecond(RequestContext requestContext) {
+        TokenBucket tokenBucket = tenantToTokenBucket.get(getTenantKey(requestContext));
+        return tokenBucket != null ? tokenBucket.getRate() : rateLimitSettings.getInitialRequestsPerSecond();
+    }
+
+    <R> R execute(RequestContext requestContext, HttpMethod httpMethod, Supplier<R> request) {
+        String tenantKey = getTenantKey(requestContext);
+        TokenBucket tokenBucket = tenantToTokenBucket.computeIfAbsent(tenantKey, key -> new TokenBucket());
+        boolean retryable = HttpMethod.GET.equals(httpMethod) || HttpMethod.HEAD.equals(httpMethod);
+        for (int attempt = 0; ; attempt++) {
+            sleep(tokenBucket.reserve(), tenantKey);
+            try {
+                R result = request.get();
+                tokenBucket.onSuccess();
+                return result;
+            } catch (HttpStatusCodeException | ClientIntegrationException ex) {
+                HttpStatusCodeException throttlingException = getThrottlingException(ex);
+                if (throttlingException == null) {
+                    throw ex;
+                }
+                long retryAfterNanos = getRetryAfterNanos(throttlingException);
+                long maxBackoffNanos = TimeUnit.MILLISECONDS.toNanos(rateLimitSettings.getMaxBackoffMillis());
+                tokenBucket.onThrottled(Math.min(retryAfterNanos, maxBackoffNanos));
+                if (!retryable || attempt >= rateLimitSettings.getMaxRetries() || retryAfterNanos > maxBackoffNanos) {
+                    throw ex;
+                }
+                // with Retry-After the token bucket itself waits until the tenant accepts requests again
+                long backoffNanos = retryAfterNanos > 0 ? 0 : getJitteredBackoffNanos(attempt);
+                log.debug("{} is throttled with {}, request is retried in {} ms, limit is {} requests per second",
+                        tenantKey, throttlingException.getStatusCode(), TimeUnit.NANOSECONDS.toMillis(Math.max(backoffNanos, retryAfterNanos)), tokenBucket.getRate());
+                ClientCallRecorder.recordRetry();
+                sleep(backoffNanos, tenantKey);
+            }
+        }
+    }
+
+    private long getJitteredBackoffNanos(int attempt) {
+        long backoffMillis = Math.min(
+                rateLimitSettings.getMaxBackoffMillis(),
+                rateLimitSettings.getInitialBackoffMillis() << Math.min(attempt, 20)
+        );
+        // equal jitter: at least half of the backoff, so that retries of parallel requests are spread but not immediate
+        long halfBackoffMillis = backoffMillis / 2;
+        return TimeUnit.MILLISECONDS.toNanos(halfBackoffMillis + ThreadLocalRandom.current().nextLong(backoffMillis - halfBackoffMillis + 1));
+    }
+
+    private static HttpStatusCodeException getThrottlingException(RuntimeException ex) {
+        Throwable cause = ex instanceof HttpStatusCodeException ? ex : ex.getCause();
+        if (!(cause instanceof HttpStatusCodeException)) {
+            return null;
+        }
+        HttpStatusCodeException httpStatusCodeException = (HttpStatusCodeException) cause;
+        int statusCode = httpStatusCodeException.getStatusCode().value();
+        return statusCode == HttpStatus.TOO_MANY_REQUESTS.value() || statusCode == HttpStatus.SERVICE_UNAVAILABLE.value()
+                ? httpStatusCodeException
+                : null;
+    }
+
+    /**
+     * Supports both forms of the header: delay in seconds and HTTP date.
+     */
+    private static long getRetryAfterNanos(HttpStatusCodeException ex) {
+        HttpHeaders responseHeaders = ex.getResponseHeaders();
+        String retryAfter = responseHeaders != null ? StringUtils.trimToNull(responseHeaders.getFirst(RETRY_AFTER_HEADER)) : null;
+        if (retryAfter == null) {
+            return 0;
+        }
+        try {
+            if (StringUtils.isNumeric(retryAfter)) {
+                return TimeUnit.SECONDS.toNanos(Long.parseLong(retryAfter));
+            }
+            long delayMillis = ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        } catch (NumberFormatException | DateTimeParseException parseException) {
+            log.debug("Couldn't parse {} header: {}", RETRY_AFTER_HEADER, retryAfter);
+            return 0;
+        }
+    }
+
+    private static void sleep(long nanos, String tenantKey) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ClientIntegrationException("Interrupted while waiting for the rate limit of " + tenantKey, ex);
+        }
+    }
+
+    /**
+     * Tokens can go below zero: every request takes its token immediately and waits until the debt is refilled,
+     * so the waiting happens outside of the lock.
+     */
+    private class TokenBucket {
+
+        // 0 means that requests aren't limited
+        private double rate = rateLimitSettings.getInitialRequestsPerSecond();
+        private double tokens = Math.max(1, rate);
+        private long lastRefillNanos = System.nanoTime();
+        private long blockedUntilNanos = lastRefillNanos;
+        private long lastDecreaseNanos = lastRefillNanos - WINDOW_NANOS;
+
+        // sliding window of the actual request rate, it's the starting point of the first decrease
+        private long windowStartNanos = lastRefillNanos;
+        private int windowRequests;
+        private int previousWindowRequests;
+
+        private synchronized double getRate() {
+            return rate;
+        }
+
+        private synchronized long reserve() {
+            long now = System.nanoTime();
+            rollWindow(now);
+            windowRequests++;
+            long waitNanos = Math.max(0, blockedUntilNanos - now);
+            if (rate > 0) {
+                refill(now);
+                tokens -= 1;
+                if (tokens < 0) {
+                    waitNanos = Math.max(waitNanos, lastRefillNanos + (long) (-tokens / rate * WINDOW_NANOS) - now);
+                }
+            }
+            return waitNanos;
+        }
+
+        private synchronized void onSuccess() {
+            if (rate <= 0) {
+                return;
+            }
+            // every request adds its share, so the rate grows by increasePerSecond per second
+            rate += rateLimitSettings.getIncreasePerSecond() / rate;
+            if (rateLimitSettings.getMaxRequestsPerSecond() > 0) {
+                rate = Math.min(rate, rateLimitSettings.getMaxRequestsPerSecond());
+            }
+        }
+
+        private synchronized void onThrottled(long pauseNanos) {
+            long now = System.nanoTime();
+            if (now - lastDecreaseNanos >= WINDOW_NANOS) {
+                rollWindow(now);
+                double measuredRate = windowRequests + previousWindowRequests * (1 - (double) (now - windowStartNanos) / WINDOW_NANOS);
+                double currentRate = rate > 0 ? Math.min(rate, measuredRate) : measuredRate;
+                refill(now);
+                rate = Math.max(rateLimitSettings.getMinRequestsPerSecond(), currentRate * rateLimitSettings.getDecreaseFactor());
+                tokens = Math.min(tokens, 0);
+                lastDecreaseNanos = now;
+            }
+            if (pauseNanos > 0) {
+                blockedUntilNanos = Math.max(blockedUntilNanos, now + pauseNanos);
+                // tokens aren't collected during the pause
+                lastRefillNanos = Math.max(lastRefillNanos, blockedUntilNanos);
+                tokens = Math.min(tokens, 0);
+            }
+        }
+
+        private void refill(long now) {
+            if (now > lastRefillNanos) {
+                tokens = Math.min(Math.max(1, rate), tokens + (double) (now - lastRefillNanos) * rate / WINDOW_NANOS);
+                lastRefillNanos = now;
+            }
+        }
+
+        private void rollWindow(long now) {
+            long elapsedNanos = now - windowStartNanos;
+            if (elapsedNanos >= 2 * WINDOW_NANOS) {
+                previousWindowRequests = 0;
+                windowRequests = 0;
+                windowStartNanos = now;
+            } else if (elapsedNanos >= WINDOW_NANOS) {
+                previousWindowRequests = windowRequests;
+                windowRequests = 0;
+                windowStartNanos += WINDOW_NANOS;
+            }
+        }
+    }
+}
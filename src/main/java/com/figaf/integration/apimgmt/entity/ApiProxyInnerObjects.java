@@ -0,0 +1,33 @@
+package com.figaf.integration.apimgmt.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Metadata of the inner objects (endpoints, policies, resources) of one API proxy, grouped by the inner object type
+ * (the navigation property of the API proxy, e.g. {@code proxyEndPoints}) and then by the name of the inner object.
+ */
+@AllArgsConstructor
+@Getter
+@ToString
+public class ApiProxyInnerObjects {
+
+    private final String apiProxyName;
+    private final Map<String, Map<String, ApiProxyMetaData>> innerObjectTypeToNameToMetaData;
+
+    /**
+     * @return metadata of the inner objects of the type by name, empty if the API proxy doesn't have such objects
+     */
+    public Map<String, ApiProxyMetaData> getInnerObjects(String innerObjectType) {
+        return innerObjectTypeToNameToMetaData.getOrDefault(innerObjectType, Collections.emptyMap());
+    }
+
+    public ApiProxyMetaData getInnerObject(String innerObjectType, String name) {
+        return getInnerObjects(innerObjectType).get(name);
+    }
+
+}
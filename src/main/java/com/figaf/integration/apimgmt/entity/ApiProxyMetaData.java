@@ -1,11 +1,14 @@
 package com.figaf.integration.apimgmt.entity;
 
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.apache.commons.lang3.ObjectUtils;
 
 import java.util.Date;
 
+@NoArgsConstructor
 @Getter
 @Setter
 @ToString
@@ -23,4 +26,18 @@ public class ApiProxyMetaData {
     private boolean isChanged;
     private boolean isVersioned;
 
+    public ApiProxyMetaData(ApiProxyMetaData apiProxyMetaData) {
+        this.name = apiProxyMetaData.name;
+        this.title = apiProxyMetaData.title;
+        this.version = apiProxyMetaData.version;
+        this.state = apiProxyMetaData.state;
+        this.apiType = apiProxyMetaData.apiType;
+        this.creationDate = ObjectUtils.clone(apiProxyMetaData.creationDate);
+        this.createdBy = apiProxyMetaData.createdBy;
+        this.modificationDate = ObjectUtils.clone(apiProxyMetaData.modificationDate);
+        this.modifiedBy = apiProxyMetaData.modifiedBy;
+        this.isChanged = apiProxyMetaData.isChanged;
+        this.isVersioned = apiProxyMetaData.isVersioned;
+    }
+
 }
@@ -0,0 +1,31 @@
+package com.figaf.integration.apimgmt.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of one $batch request. Failed chunks keep their operations, so they can be resent as is.
+ * {@link #operationResults} are filled when the $batch request was accepted and its response could be parsed,
+ * a chunk is successful only if all its operations are successful.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@ToString
+public class BatchChunkResult {
+
+    private int chunkIndex;
+    private boolean successful;
+    private Integer statusCode;
+    private String errorMessage;
+    private List<KeyMapEntryValueOperation> operations;
+    private List<KeyMapEntryValueOperationResult> operationResults = new ArrayList<>();
+
+}
@@ -0,0 +1,23 @@
+package com.figaf.integration.apimgmt.entity;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.*;
+
+/**
+ * Result of a bulk operation over named objects. A failure of one object doesn't affect others,
+ * so every object ends up either in {@code succeededItems} or in {@code failedItems}.
+ */
+@Getter
+@ToString
+public class BulkOperationResult {
+
+    private final List<String> succeededItems = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, String> failedItems = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    public boolean isSuccessful() {
+        return failedItems.isEmpty();
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.figaf.integration.apimgmt.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Metrics of one public client call. A call can consist of several requests (token fetching, paging, retries),
+ * {@code responseBytes} and {@code parseNanos} are summed up over all parsed responses of the call.
+ * Calls made by other calls (like the existence check of an update) are reported separately under their own operations,
+ * and their numbers are also included into the numbers of the outer call. The {@code own*} fields exclude such nested calls,
+ * so summing them up over all reported calls counts every response, retry and token reuse once.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@ToString
+public class ClientCallMetrics {
+
+    private String operation;
+    //host of the tenant or a hash of the tenant key, never contains the user
+    private String tenant;
+    private long durationNanos;
+    //-1 if the call didn't parse any response
+    private long responseBytes;
+    private long parseNanos;
+    private int retries;
+    //token fetching requests which weren't sent because the cached CSRF token was reused
+    private int csrfTokenReuses;
+    //null if the status wasn't exposed to the client, successful calls via executeGet always have 2xx status
+    private Integer statusCode;
+    private boolean successful;
+    //same as above without the numbers of nested calls
+    private long ownResponseBytes;
+    private long ownParseNanos;
+    private int ownRetries;
+    private int ownCsrfTokenReuses;
+
+}
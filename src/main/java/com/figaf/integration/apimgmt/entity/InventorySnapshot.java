@@ -0,0 +1,28 @@
+package com.figaf.integration.apimgmt.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * API proxies, key map entries and their values of one tenant kept by the snapshot store.
+ * Watermarks are the latest {@code life_cycle/changed_at} of the listings, the next refresh requests only objects changed after them.
+ */
+@AllArgsConstructor
+@Getter
+@ToString(exclude = {"apiProxies", "keyMapEntries", "keyMapEntryToValues"})
+public class InventorySnapshot {
+
+    private final String tenantKey;
+    private final List<ApiProxyMetaData> apiProxies;
+    private final List<KeyMapEntryMetaData> keyMapEntries;
+    private final Map<String, List<KeyMapEntryValue>> keyMapEntryToValues;
+    private final Instant apiProxiesWatermark;
+    private final Instant keyMapEntriesWatermark;
+    private final Instant refreshedAt;
+
+}
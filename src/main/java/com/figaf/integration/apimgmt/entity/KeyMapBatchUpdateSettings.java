@@ -0,0 +1,29 @@
+package com.figaf.integration.apimgmt.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Controls how changes of key map entries are split into $batch requests.
+ * Changes of a key map are sent in changesets of at most {@code maxOperationsPerBatch} operations, and one $batch request
+ * contains at most {@code maxOperationsPerBatch} operations. Every changeset is applied atomically and can be retried
+ * independently, so atomicity of a key map update ends at {@code maxOperationsPerBatch} operations.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@ToString
+public class KeyMapBatchUpdateSettings {
+
+    private int maxOperationsPerBatch = 500;
+    private int maxParallelRequests = 4;
+
+    public static KeyMapBatchUpdateSettings singleBatch() {
+        return new KeyMapBatchUpdateSettings(Integer.MAX_VALUE, 1);
+    }
+
+}
@@ -2,12 +2,16 @@ package com.figaf.integration.apimgmt.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.apache.commons.lang3.ObjectUtils;
 
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
 
+@NoArgsConstructor
 @Getter
 @Setter
 @ToString
@@ -29,4 +33,17 @@ public class KeyMapEntryMetaData {
     //for creating  new entry
     List<KeyMapEntryValue> keyMapEntryValues;
 
+    public KeyMapEntryMetaData(KeyMapEntryMetaData keyMapEntryMetaData) {
+        this.name = keyMapEntryMetaData.name;
+        this.scope = keyMapEntryMetaData.scope;
+        this.encrypted = keyMapEntryMetaData.encrypted;
+        this.creationDate = ObjectUtils.clone(keyMapEntryMetaData.creationDate);
+        this.createdBy = keyMapEntryMetaData.createdBy;
+        this.modificationDate = ObjectUtils.clone(keyMapEntryMetaData.modificationDate);
+        this.modifiedBy = keyMapEntryMetaData.modifiedBy;
+        this.keyMapEntryValues = keyMapEntryMetaData.keyMapEntryValues != null
+                ? keyMapEntryMetaData.keyMapEntryValues.stream().map(KeyMapEntryValue::new).collect(Collectors.toList())
+                : null;
+    }
+
 }
@@ -0,0 +1,66 @@
+package com.figaf.integration.apimgmt.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @see BatchChunkResult
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@ToString
+public class KeyMapEntryUpdateResult {
+
+    private String keyMapEntry;
+    private List<BatchChunkResult> chunkResults = new ArrayList<>();
+
+    public boolean isSuccessful() {
+        return chunkResults.stream().allMatch(BatchChunkResult::isSuccessful);
+    }
+
+    /**
+     * Changes are applied all or nothing only if they were sent in one changeset. Changes split into several chunks
+     * can be applied partially when some of the chunks fail.
+     */
+    public boolean isAppliedAtomically() {
+        return chunkResults.size() <= 1;
+    }
+
+    public List<BatchChunkResult> getFailedChunkResults() {
+        return chunkResults.stream().filter(chunkResult -> !chunkResult.isSuccessful()).collect(Collectors.toList());
+    }
+
+    /**
+     * Operations which can be resent. If the chunk has per-operation results, only failed operations are returned,
+     * otherwise all operations of the failed chunk.
+     */
+    public List<KeyMapEntryValueOperation> getFailedOperations() {
+        return chunkResults.stream()
+                .filter(chunkResult -> !chunkResult.isSuccessful())
+                .flatMap(chunkResult -> chunkResult.getOperationResults() == null || chunkResult.getOperationResults().isEmpty()
+                        ? chunkResult.getOperations().stream()
+                        : chunkResult.getOperationResults().stream()
+                        .filter(operationResult -> !operationResult.isSuccessful())
+                        .map(KeyMapEntryValueOperationResult::getOperation)
+                )
+                .collect(Collectors.toList());
+    }
+
+    public List<KeyMapEntryValueOperationResult> getFailedOperationResults() {
+        return chunkResults.stream()
+                .filter(chunkResult -> chunkResult.getOperationResults() != null)
+                .flatMap(chunkResult -> chunkResult.getOperationResults().stream())
+                .filter(operationResult -> !operationResult.isSuccessful())
+                .collect(Collectors.toList());
+    }
+
+}
@@ -23,4 +23,8 @@ public class KeyMapEntryValue implements Serializable {
     private String name;
     private String value;
 
+    public KeyMapEntryValue(KeyMapEntryValue keyMapEntryValue) {
+        this(keyMapEntryValue.mapName, keyMapEntryValue.name, keyMapEntryValue.value);
+    }
+
 }
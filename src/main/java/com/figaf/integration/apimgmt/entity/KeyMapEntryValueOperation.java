@@ -0,0 +1,31 @@
+package com.figaf.integration.apimgmt.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Single change of a key map entry value which is sent as a part of a $batch changeset.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@ToString(exclude = "value")
+public class KeyMapEntryValueOperation {
+
+    private Type type;
+    private String mapName;
+    private String name;
+    //not used for DELETE
+    private String value;
+
+    public enum Type {
+        ADD,
+        UPDATE,
+        DELETE
+    }
+
+}
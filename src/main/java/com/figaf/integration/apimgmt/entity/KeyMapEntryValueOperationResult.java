@@ -0,0 +1,25 @@
+package com.figaf.integration.apimgmt.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Response of a single operation parsed from the $batch response.
+ * When the whole changeset is rejected, all its operations get the status and the message of the changeset error.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@ToString
+public class KeyMapEntryValueOperationResult {
+
+    private KeyMapEntryValueOperation operation;
+    private boolean successful;
+    private Integer statusCode;
+    private String errorMessage;
+
+}
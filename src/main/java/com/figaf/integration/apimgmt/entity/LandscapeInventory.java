@@ -0,0 +1,60 @@
+package com.figaf.integration.apimgmt.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Result of a landscape scan: inventories of all scanned tenants in the order of the request contexts.
+ * A failure of one tenant doesn't affect others.
+ */
+@AllArgsConstructor
+@Getter
+@ToString
+public class LandscapeInventory {
+
+    private final List<TenantInventory> tenantInventories;
+    private final long durationMillis;
+
+    public boolean isSuccessful() {
+        return tenantInventories.stream().allMatch(TenantInventory::isSuccessful);
+    }
+
+    public List<TenantInventory> getFailedTenantInventories() {
+        return tenantInventories.stream()
+                .filter(tenantInventory -> !tenantInventory.isSuccessful())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * API proxies of all tenants where they were loaded, by tenant key.
+     */
+    public Map<String, List<ApiProxyMetaData>> getTenantKeyToApiProxies() {
+        Map<String, List<ApiProxyMetaData>> tenantKeyToApiProxies = new LinkedHashMap<>();
+        for (TenantInventory tenantInventory : tenantInventories) {
+            if (tenantInventory.getApiProxies() != null) {
+                tenantKeyToApiProxies.put(tenantInventory.getTenantKey(), tenantInventory.getApiProxies());
+            }
+        }
+        return tenantKeyToApiProxies;
+    }
+
+    /**
+     * Key map entries of all tenants where they were loaded, by tenant key.
+     */
+    public Map<String, List<KeyMapEntryMetaData>> getTenantKeyToKeyMapEntries() {
+        Map<String, List<KeyMapEntryMetaData>> tenantKeyToKeyMapEntries = new LinkedHashMap<>();
+        for (TenantInventory tenantInventory : tenantInventories) {
+            if (tenantInventory.getKeyMapEntries() != null) {
+                tenantKeyToKeyMapEntries.put(tenantInventory.getTenantKey(), tenantInventory.getKeyMapEntries());
+            }
+        }
+        return tenantKeyToKeyMapEntries;
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.figaf.integration.apimgmt.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Objects changed after the requested watermark. {@code watermark} is the latest {@code life_cycle/changed_at}
+ * among them (or the requested one if nothing has changed) and should be passed to the next call.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@ToString
+public class MetaDataChanges<T> {
+
+    private List<T> changedItems = new ArrayList<>();
+    private Instant watermark;
+    private boolean filteredOnServer;
+
+}
@@ -0,0 +1,33 @@
+package com.figaf.integration.apimgmt.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Controls the per-tenant rate limiter of the clients.
+ * The rate starts at {@code initialRequestsPerSecond} (0 means unlimited until the tenant throttles for the first time),
+ * is multiplied by {@code decreaseFactor} on every 429/503 response and grows back by {@code increasePerSecond}
+ * requests per second every second while requests succeed.
+ * Throttled GET requests are retried at most {@code maxRetries} times after {@code Retry-After}
+ * or a jittered exponential backoff.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@ToString
+public class RateLimitSettings {
+
+    private double initialRequestsPerSecond = 0;
+    private double minRequestsPerSecond = 1;
+    private double maxRequestsPerSecond = 0;
+    private double decreaseFactor = 0.5;
+    private double increasePerSecond = 1;
+    private int maxRetries = 3;
+    private long initialBackoffMillis = 500;
+    private long maxBackoffMillis = 30_000;
+
+}
@@ -0,0 +1,29 @@
+package com.figaf.integration.apimgmt.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Inventory of one tenant collected by the landscape scan.
+ * A list is {@code null} if it couldn't be loaded, the reason is described by {@code errorMessage}.
+ */
+@AllArgsConstructor
+@Getter
+@ToString(exclude = {"apiProxies", "keyMapEntries"})
+public class TenantInventory {
+
+    private final String tenantKey;
+    private final List<ApiProxyMetaData> apiProxies;
+    private final List<KeyMapEntryMetaData> keyMapEntries;
+    private final long durationMillis;
+    private final boolean timedOut;
+    private final String errorMessage;
+
+    public boolean isSuccessful() {
+        return errorMessage == null;
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.figaf.integration.apimgmt.metrics;
+
+import com.figaf.integration.apimgmt.client.ClientMetricsListener;
+import com.figaf.integration.apimgmt.entity.ClientCallMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes client call metrics to a Micrometer registry. Micrometer isn't a dependency of this library,
+ * so this class can be used only if the application has {@code micrometer-core} on the classpath.
+ * <p>
+ * Meters (tagged by {@code operation}, {@code tenant}, {@code status} and {@code outcome}), all except latency are built
+ * from the own numbers of the call, so responses and retries of nested calls are counted only under the nested operation:
+ * <ul>
+ *     <li>{@code <prefix>.calls} - call latency</li>
+ *     <li>{@code <prefix>.response.size} - size of parsed responses in bytes</li>
+ *     <li>{@code <prefix>.parse} - time spent in response parsing</li>
+ *     <li>{@code <prefix>.retries} - number of repeated requests</li>
+ *     <li>{@code <prefix>.csrf.token.reuses} - number of token fetching requests saved by reusing the CSRF token</li>
+ * </ul>
+ */
+public class MicrometerClientMetricsListener implements ClientMetricsListener {
+
+    public static final String DEFAULT_PREFIX = "apimgmt.client";
+
+    private final MeterRegistry meterRegistry;
+    private final String prefix;
+
+    public MicrometerClientMetricsListener(MeterRegistry meterRegistry) {
+        this(meterRegistry, DEFAULT_PREFIX);
+    }
+
+    public MicrometerClientMetricsListener(MeterRegistry meterRegistry, String prefix) {
+        this.meterRegistry = meterRegistry;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public void onCallCompleted(ClientCallMetrics clientCallMetrics) {
+        Tags tags = Tags.of(
+                "operation", clientCallMetrics.getOperation(),
+                "tenant", clientCallMetrics.getTenant(),
+                "status", clientCallMetrics.getStatusCode() != null ? String.valueOf(clientCallMetrics.getStatusCode()) : "NONE",
+                "outcome", clientCallMetrics.isSuccessful() ? "SUCCESS" : "ERROR"
+        );
+        Timer.builder(prefix + ".calls")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(clientCallMetrics.getDurationNanos(), TimeUnit.NANOSECONDS);
+
+        if (clientCallMetrics.getOwnResponseBytes() >= 0) {
+            DistributionSummary.builder(prefix + ".response.size")
+                    .baseUnit("bytes")
+                    .tags(tags)
+                    .register(meterRegistry)
+                    .record(clientCallMetrics.getOwnResponseBytes());
+            Timer.builder(prefix + ".parse")
+                    .tags(tags)
+                    .register(meterRegistry)
+                    .record(clientCallMetrics.getOwnParseNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        if (clientCallMetrics.getOwnRetries() > 0) {
+            Counter.builder(prefix + ".retries")
+                    .tags(tags)
+                    .register(meterRegistry)
+                    .increment(clientCallMetrics.getOwnRetries());
+        }
+
+        if (clientCallMetrics.getOwnCsrfTokenReuses() > 0) {
+            Counter.builder(prefix + ".csrf.token.reuses")
+                    .tags(tags)
+                    .register(meterRegistry)
+                    .increment(clientCallMetrics.getOwnCsrfTokenReuses());
+        }
+    }
+}
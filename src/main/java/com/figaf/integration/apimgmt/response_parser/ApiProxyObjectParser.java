@@ -1,14 +1,20 @@
 package com.figaf.integration.apimgmt.response_parser;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.figaf.integration.apimgmt.entity.ApiProxyInnerObjects;
 import com.figaf.integration.apimgmt.entity.ApiProxyMetaData;
+import com.figaf.integration.common.exception.ClientIntegrationException;
 import com.figaf.integration.common.utils.Utils;
 import org.apache.commons.lang3.StringUtils;
 import org.json.JSONArray;
-import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.sql.Timestamp;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
 /**
  * @author Arsenii Istlentev
@@ -16,24 +22,99 @@ import java.util.*;
 public class ApiProxyObjectParser {
 
     public static List<ApiProxyMetaData> buildApiProxyMetaDataList(String body) {
-        JSONObject response = new JSONObject(body);
-        JSONArray apiProxyJsonArray = response.getJSONObject("d").getJSONArray("results");
+        List<ApiProxyMetaData> apiProxyMetaDataList = new ArrayList<>();
+        try (JsonParser parser = ODataJsonReader.JSON_FACTORY.createParser(body)) {
+            parseApiProxyMetaDataList(parser, apiProxyMetaDataList::add);
+        } catch (IOException ex) {
+            throw new ClientIntegrationException("Couldn't parse api proxies: " + ex.getMessage(), ex);
+        }
+        return apiProxyMetaDataList;
+    }
 
+    public static List<ApiProxyMetaData> buildApiProxyMetaDataList(byte[] body) {
         List<ApiProxyMetaData> apiProxyMetaDataList = new ArrayList<>();
-        for (int ind = 0; ind < apiProxyJsonArray.length(); ind++) {
-            JSONObject apiProxyElement = apiProxyJsonArray.getJSONObject(ind);
-            apiProxyMetaDataList.add(parseApiProxyResponse(apiProxyElement));
+        try (JsonParser parser = ODataJsonReader.JSON_FACTORY.createParser(body)) {
+            parseApiProxyMetaDataList(parser, apiProxyMetaDataList::add);
+        } catch (IOException ex) {
+            throw new ClientIntegrationException("Couldn't parse api proxies: " + ex.getMessage(), ex);
         }
         return apiProxyMetaDataList;
     }
 
+    /**
+     * Reads {@code d.results[]} of the APIProxies collection directly from the stream and passes
+     * every parsed {@link ApiProxyMetaData} to the consumer as soon as it's complete.
+     */
+    public static void parseApiProxyMetaDataList(InputStream inputStream, Consumer<ApiProxyMetaData> apiProxyMetaDataConsumer) {
+        try (JsonParser parser = ODataJsonReader.JSON_FACTORY.createParser(inputStream)) {
+            parseApiProxyMetaDataList(parser, apiProxyMetaDataConsumer);
+        } catch (IOException ex) {
+            throw new ClientIntegrationException("Couldn't parse api proxies: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Parses one page of the APIProxies collection.
+     *
+     * @return {@code d.__next} link of the page or {@code null} if the server didn't return it
+     */
+    public static String parseApiProxyMetaDataPage(byte[] body, Consumer<ApiProxyMetaData> apiProxyMetaDataConsumer) {
+        return parseApiProxyMetaDataPage(body, apiProxyMetaDataConsumer, null);
+    }
+
+    /**
+     * Same as {@link #parseApiProxyMetaDataPage(byte[], Consumer)}, additionally reports {@code d.__count}
+     * of the {@code $inlinecount=allpages} requests.
+     */
+    public static String parseApiProxyMetaDataPage(byte[] body, Consumer<ApiProxyMetaData> apiProxyMetaDataConsumer, LongConsumer totalCountConsumer) {
+        try (JsonParser parser = ODataJsonReader.JSON_FACTORY.createParser(body)) {
+            return ODataJsonReader.readResults(parser, entityParser -> apiProxyMetaDataConsumer.accept(parseApiProxy(entityParser)), totalCountConsumer);
+        } catch (IOException ex) {
+            throw new ClientIntegrationException("Couldn't parse api proxies: " + ex.getMessage(), ex);
+        }
+    }
+
     public static ApiProxyMetaData buildApiProxyMetaData(String body) {
-        JSONObject response = new JSONObject(body);
-        JSONObject jsonObject = response.getJSONObject("d");
-        return parseApiProxyResponse(jsonObject);
+        ApiProxyMetaData[] apiProxyMetaData = new ApiProxyMetaData[1];
+        try (JsonParser parser = ODataJsonReader.JSON_FACTORY.createParser(body)) {
+            ODataJsonReader.readEntity(parser, entityParser -> apiProxyMetaData[0] = parseApiProxy(entityParser));
+        } catch (IOException ex) {
+            throw new ClientIntegrationException("Couldn't parse api proxy: " + ex.getMessage(), ex);
+        }
+        return apiProxyMetaData[0];
     }
 
+    private static String parseApiProxyMetaDataList(JsonParser parser, Consumer<ApiProxyMetaData> apiProxyMetaDataConsumer) throws IOException {
+        return ODataJsonReader.readResults(parser, entityParser -> apiProxyMetaDataConsumer.accept(parseApiProxy(entityParser)));
+    }
 
+    /**
+     * Parses one page of the APIProxies collection requested with {@code $expand} of the inner objects.
+     * Inner objects without name or life cycle are skipped, as in {@link #buildInnerObjectsNameToApiProxyMetaDataMap(String, Set)}.
+     *
+     * @param totalCountConsumer receives {@code d.__count} of the {@code $inlinecount=allpages} requests, can be {@code null}
+     * @return {@code d.__next} link of the page or {@code null} if the server didn't return it
+     */
+    public static String parseApiProxyInnerObjectsPage(
+            byte[] body,
+            Set<String> innerObjectNames,
+            Consumer<ApiProxyInnerObjects> apiProxyInnerObjectsConsumer,
+            LongConsumer totalCountConsumer
+    ) {
+        try (JsonParser parser = ODataJsonReader.JSON_FACTORY.createParser(body)) {
+            return ODataJsonReader.readResults(
+                    parser,
+                    entityParser -> apiProxyInnerObjectsConsumer.accept(parseApiProxyInnerObjects(entityParser, innerObjectNames)),
+                    totalCountConsumer
+            );
+        } catch (IOException ex) {
+            throw new ClientIntegrationException("Couldn't parse inner objects of api proxies: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Parses inner objects of a single API proxy, keys of the map are {@code <inner object type>|<name>}.
+     */
     public static Map<String, ApiProxyMetaData> buildInnerObjectsNameToApiProxyMetaDataMap(String body, Set<String> innerObjectNames) {
         JSONObject response = new JSONObject(body);
         JSONObject apiProxyObject = response.getJSONObject("d");
@@ -67,17 +148,11 @@ public class ApiProxyObjectParser {
                     }
 
                     String createdDateStr = Utils.optString(innerObjectLifeCycleElement, "created_at");
-                    apiProxyMetaData.setCreationDate(StringUtils.isNotBlank(createdDateStr)
-                            ? new Timestamp(Long.parseLong(createdDateStr.replaceAll("[^0-9]", "")))
-                            : null
-                    );
+                    apiProxyMetaData.setCreationDate(ODataDateParser.parseTimestamp(StringUtils.trimToNull(createdDateStr)));
                     String createdBy = Utils.optString(innerObjectLifeCycleElement, "created_by");
                     apiProxyMetaData.setCreatedBy(createdBy);
                     String changedDateStr = Utils.optString(innerObjectLifeCycleElement, "changed_at");
-                    apiProxyMetaData.setModificationDate(StringUtils.isNotBlank(changedDateStr)
-                            ? new Timestamp(Long.parseLong(changedDateStr.replaceAll("[^0-9]", "")))
-                            : null
-                    );
+                    apiProxyMetaData.setModificationDate(ODataDateParser.parseTimestamp(StringUtils.trimToNull(changedDateStr)));
                     String changedBy = Utils.optString(innerObjectLifeCycleElement, "changed_by");
                     apiProxyMetaData.setModifiedBy(changedBy);
 
@@ -89,31 +164,162 @@ public class ApiProxyObjectParser {
         return innerObjectsNameToApiProxyMetaDataMap;
     }
 
-    private static ApiProxyMetaData parseApiProxyResponse(JSONObject apiProxyJsonObject) throws JSONException {
-        ApiProxyMetaData apiProxyMetaData = new ApiProxyMetaData();
-        apiProxyMetaData.setName(apiProxyJsonObject.getString("name"));
-        apiProxyMetaData.setTitle(apiProxyJsonObject.getString("title"));
-        apiProxyMetaData.setVersion(apiProxyJsonObject.getString("version"));
-        apiProxyMetaData.setState(apiProxyJsonObject.getString("state"));
-        apiProxyMetaData.setApiType(apiProxyJsonObject.getString("service_code"));
-        apiProxyMetaData.setChanged(apiProxyJsonObject.getBoolean("hasChanges"));
-        String isVersioned = Utils.optString(apiProxyJsonObject, "isVersioned");
-        apiProxyMetaData.setVersioned(StringUtils.isNotBlank(isVersioned) && Boolean.parseBoolean(isVersioned));
+    private static ApiProxyMetaData parseApiProxy(JsonParser parser) throws IOException {
+        String name = null;
+        String title = null;
+        String version = null;
+        String state = null;
+        String serviceCode = null;
+        Boolean hasChanges = null;
+        String isVersioned = null;
+        ApiProxyMetaData apiProxyMetaData = null;
 
-        JSONObject apiProxyLifeCycleElement = apiProxyJsonObject.getJSONObject("life_cycle");
-        String createdAt = Utils.optString(apiProxyLifeCycleElement, "created_at");
-        apiProxyMetaData.setCreationDate(createdAt != null
-                ? new Timestamp(Long.parseLong(createdAt.replaceAll("[^0-9]", "")))
-                : null
-        );
-        apiProxyMetaData.setCreatedBy(Utils.optString(apiProxyLifeCycleElement, "created_by"));
-        String changedAt = Utils.optString(apiProxyLifeCycleElement, "changed_at");
-        apiProxyMetaData.setModificationDate(changedAt != null
-                ? new Timestamp(Long.parseLong(changedAt.replaceAll("[^0-9]", "")))
-                : null
-        );
-        apiProxyMetaData.setModifiedBy(Utils.optString(apiProxyLifeCycleElement, "changed_by"));
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+            switch (fieldName) {
+                case "name":
+                    name = ODataJsonReader.readString(parser);
+                    break;
+                case "title":
+                    title = ODataJsonReader.readString(parser);
+                    break;
+                case "version":
+                    version = ODataJsonReader.readString(parser);
+                    break;
+                case "state":
+                    state = ODataJsonReader.readString(parser);
+                    break;
+                case "service_code":
+                    serviceCode = ODataJsonReader.readString(parser);
+                    break;
+                case "hasChanges":
+                    hasChanges = ODataJsonReader.readBoolean(parser, fieldName);
+                    break;
+                case "isVersioned":
+                    isVersioned = ODataJsonReader.readString(parser);
+                    break;
+                case "life_cycle":
+                    if (valueToken == JsonToken.START_OBJECT) {
+                        apiProxyMetaData = new ApiProxyMetaData();
+                        parseLifeCycle(parser, apiProxyMetaData);
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if (apiProxyMetaData == null) {
+            throw new ClientIntegrationException("JSONObject[\"life_cycle\"] not found");
+        }
+        apiProxyMetaData.setName(ODataJsonReader.requireString(name, "name"));
+        apiProxyMetaData.setTitle(ODataJsonReader.requireString(title, "title"));
+        apiProxyMetaData.setVersion(ODataJsonReader.requireString(version, "version"));
+        apiProxyMetaData.setState(ODataJsonReader.requireString(state, "state"));
+        apiProxyMetaData.setApiType(ODataJsonReader.requireString(serviceCode, "service_code"));
+        if (hasChanges == null) {
+            throw new ClientIntegrationException("JSONObject[\"hasChanges\"] not found");
+        }
+        apiProxyMetaData.setChanged(hasChanges);
+        apiProxyMetaData.setVersioned(StringUtils.isNotBlank(isVersioned) && Boolean.parseBoolean(isVersioned));
 
         return apiProxyMetaData;
     }
+
+    private static ApiProxyInnerObjects parseApiProxyInnerObjects(JsonParser parser, Set<String> innerObjectNames) throws IOException {
+        String name = null;
+        Map<String, Map<String, ApiProxyMetaData>> innerObjectTypeToNameToMetaData = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+            if ("name".equals(fieldName)) {
+                name = ODataJsonReader.readString(parser);
+            } else if (innerObjectNames.contains(fieldName) && (valueToken == JsonToken.START_OBJECT || valueToken == JsonToken.START_ARRAY)) {
+                innerObjectTypeToNameToMetaData.put(fieldName, parseInnerObjects(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new ApiProxyInnerObjects(ODataJsonReader.requireString(name, "name"), innerObjectTypeToNameToMetaData);
+    }
+
+    // expanded navigation property is {"results": [...]} in OData v2 JSON, a plain array is accepted as well
+    private static Map<String, ApiProxyMetaData> parseInnerObjects(JsonParser parser) throws IOException {
+        Map<String, ApiProxyMetaData> nameToMetaData = new LinkedHashMap<>();
+        if (parser.currentToken() == JsonToken.START_ARRAY) {
+            parseInnerObjectArray(parser, nameToMetaData);
+            return nameToMetaData;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+            if ("results".equals(fieldName) && valueToken == JsonToken.START_ARRAY) {
+                parseInnerObjectArray(parser, nameToMetaData);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return nameToMetaData;
+    }
+
+    private static void parseInnerObjectArray(JsonParser parser, Map<String, ApiProxyMetaData> nameToMetaData) throws IOException {
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            ApiProxyMetaData innerObjectMetaData = parseInnerObject(parser);
+            if (innerObjectMetaData != null) {
+                nameToMetaData.put(innerObjectMetaData.getName(), innerObjectMetaData);
+            }
+        }
+    }
+
+    private static ApiProxyMetaData parseInnerObject(JsonParser parser) throws IOException {
+        String name = null;
+        ApiProxyMetaData innerObjectMetaData = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+            if ("name".equals(fieldName)) {
+                name = ODataJsonReader.readString(parser);
+            } else if ("life_cycle".equals(fieldName) && valueToken == JsonToken.START_OBJECT) {
+                innerObjectMetaData = new ApiProxyMetaData();
+                parseLifeCycle(parser, innerObjectMetaData);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (name == null || innerObjectMetaData == null) {
+            return null;
+        }
+        innerObjectMetaData.setName(name);
+        return innerObjectMetaData;
+    }
+
+    private static void parseLifeCycle(JsonParser parser, ApiProxyMetaData apiProxyMetaData) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            switch (fieldName) {
+                case "created_at":
+                    apiProxyMetaData.setCreationDate(ODataDateParser.readTimestamp(parser));
+                    break;
+                case "created_by":
+                    apiProxyMetaData.setCreatedBy(ODataJsonReader.readString(parser));
+                    break;
+                case "changed_at":
+                    apiProxyMetaData.setModificationDate(ODataDateParser.readTimestamp(parser));
+                    break;
+                case "changed_by":
+                    apiProxyMetaData.setModifiedBy(ODataJsonReader.readString(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
 }
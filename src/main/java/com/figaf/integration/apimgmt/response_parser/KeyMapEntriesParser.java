@@ -1,15 +1,17 @@
 package com.figaf.integration.apimgmt.response_parser;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.figaf.integration.apimgmt.entity.KeyMapEntryMetaData;
 import com.figaf.integration.apimgmt.entity.KeyMapEntryValue;
-import com.figaf.integration.common.utils.Utils;
+import com.figaf.integration.common.exception.ClientIntegrationException;
 import lombok.extern.slf4j.Slf4j;
-import org.json.JSONArray;
-import org.json.JSONObject;
 
-import java.sql.Timestamp;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
 /**
  * @author Arsenii Istlentev
@@ -18,74 +20,258 @@ import java.util.List;
 public class KeyMapEntriesParser {
 
     public static List<String> buildKeyMapEntryList(String body) {
-        JSONObject response = new JSONObject(body);
-        JSONArray keyMapEntriesJsonArray = response.getJSONObject("d").getJSONArray("results");
-
         List<String> keyMapEntries = new ArrayList<>();
-        for (int ind = 0; ind < keyMapEntriesJsonArray.length(); ind++) {
-            JSONObject keyMapEntryElement = keyMapEntriesJsonArray.getJSONObject(ind);
-            keyMapEntries.add(Utils.optString(keyMapEntryElement, "name"));
+        try (JsonParser parser = ODataJsonReader.JSON_FACTORY.createParser(body)) {
+            ODataJsonReader.readResults(parser, entityParser -> keyMapEntries.add(parseKeyMapEntryName(entityParser)));
+        } catch (IOException ex) {
+            throw new ClientIntegrationException("Couldn't parse key map entries: " + ex.getMessage(), ex);
         }
-
         return keyMapEntries;
     }
 
     public static KeyMapEntryMetaData buildKeyMapEntryMetaData(String body) {
-        JSONObject response = new JSONObject(body);
-        JSONObject keyMapEntryJsonObject = response.getJSONObject("d");
-        return parseKeyMapEntryMetaData(keyMapEntryJsonObject);
+        KeyMapEntryMetaData[] keyMapEntryMetaData = new KeyMapEntryMetaData[1];
+        try (JsonParser parser = ODataJsonReader.JSON_FACTORY.createParser(body)) {
+            ODataJsonReader.readEntity(parser, entityParser -> keyMapEntryMetaData[0] = parseKeyMapEntryMetaData(entityParser));
+        } catch (IOException ex) {
+            throw new ClientIntegrationException("Couldn't parse key map entry: " + ex.getMessage(), ex);
+        }
+        return keyMapEntryMetaData[0];
     }
 
     public static List<KeyMapEntryMetaData> buildKeyMapEntryMetaDataList(String body) {
-        JSONObject response = new JSONObject(body);
-        JSONArray keyMapEntryJsonArray = response.getJSONObject("d").getJSONArray("results");
-
         List<KeyMapEntryMetaData> keyMapEntries = new ArrayList<>();
-        for (int ind = 0; ind < keyMapEntryJsonArray.length(); ind++) {
-            keyMapEntries.add(parseKeyMapEntryMetaData(keyMapEntryJsonArray.getJSONObject(ind)));
+        try (JsonParser parser = ODataJsonReader.JSON_FACTORY.createParser(body)) {
+            ODataJsonReader.readResults(parser, entityParser -> keyMapEntries.add(parseKeyMapEntryMetaData(entityParser)));
+        } catch (IOException ex) {
+            throw new ClientIntegrationException("Couldn't parse key map entries: " + ex.getMessage(), ex);
         }
-
         return keyMapEntries;
     }
 
-    public static List<KeyMapEntryValue> buildKeyMapEntryValuesList(String keyMapEntry, String body) {
-        JSONObject response = new JSONObject(body);
-        JSONArray keyMapEntryValuesJsonArray = response.getJSONObject("d").getJSONArray("results");
+    /**
+     * Parses one page of the KeyMapEntries collection.
+     *
+     * @return {@code d.__next} link of the page or {@code null} if the server didn't return it
+     */
+    public static String parseKeyMapEntryMetaDataPage(byte[] body, Consumer<KeyMapEntryMetaData> keyMapEntryMetaDataConsumer) {
+        return parseKeyMapEntryMetaDataPage(body, keyMapEntryMetaDataConsumer, null);
+    }
 
+    /**
+     * Same as {@link #parseKeyMapEntryMetaDataPage(byte[], Consumer)}, additionally reports {@code d.__count}
+     * of the {@code $inlinecount=allpages} requests.
+     */
+    public static String parseKeyMapEntryMetaDataPage(
+            byte[] body,
+            Consumer<KeyMapEntryMetaData> keyMapEntryMetaDataConsumer,
+            LongConsumer totalCountConsumer
+    ) {
+        try (JsonParser parser = ODataJsonReader.JSON_FACTORY.createParser(body)) {
+            return ODataJsonReader.readResults(
+                    parser,
+                    entityParser -> keyMapEntryMetaDataConsumer.accept(parseKeyMapEntryMetaData(entityParser)),
+                    totalCountConsumer
+            );
+        } catch (IOException ex) {
+            throw new ClientIntegrationException("Couldn't parse key map entries: " + ex.getMessage(), ex);
+        }
+    }
+
+    public static List<KeyMapEntryValue> buildKeyMapEntryValuesList(String keyMapEntry, String body) {
         List<KeyMapEntryValue> keyMapEntryValues = new ArrayList<>();
-        for (int ind = 0; ind < keyMapEntryValuesJsonArray.length(); ind++) {
-            JSONObject keyMapEntryValueElement = keyMapEntryValuesJsonArray.getJSONObject(ind);
+        try (JsonParser parser = ODataJsonReader.JSON_FACTORY.createParser(body)) {
+            parseKeyMapEntryValues(keyMapEntry, parser, keyMapEntryValues::add);
+        } catch (IOException ex) {
+            throw new ClientIntegrationException("Couldn't parse key map entry values: " + ex.getMessage(), ex);
+        }
+        return keyMapEntryValues;
+    }
 
-            String keyMapEntryValueName = Utils.optString(keyMapEntryValueElement, "name");
+    public static KeyMapEntryValue buildKeyMapEntryValue(String keyMapEntry, String body) {
+        KeyMapEntryValue[] keyMapEntryValue = new KeyMapEntryValue[1];
+        try (JsonParser parser = ODataJsonReader.JSON_FACTORY.createParser(body)) {
+            ODataJsonReader.readEntity(parser, entityParser -> keyMapEntryValue[0] = parseKeyMapEntryValue(keyMapEntry, entityParser));
+        } catch (IOException ex) {
+            throw new ClientIntegrationException("Couldn't parse key map entry value: " + ex.getMessage(), ex);
+        }
+        return keyMapEntryValue[0];
+    }
 
-            String keyMapEntryValue = Utils.optString(keyMapEntryValueElement, "value");
+    public static void parseKeyMapEntryValues(String keyMapEntry, byte[] body, Consumer<KeyMapEntryValue> keyMapEntryValueConsumer) {
+        try (JsonParser parser = ODataJsonReader.JSON_FACTORY.createParser(body)) {
+            parseKeyMapEntryValues(keyMapEntry, parser, keyMapEntryValueConsumer);
+        } catch (IOException ex) {
+            throw new ClientIntegrationException("Couldn't parse key map entry values: " + ex.getMessage(), ex);
+        }
+    }
 
-            keyMapEntryValues.add(new KeyMapEntryValue(keyMapEntry, keyMapEntryValueName, keyMapEntryValue));
+    /**
+     * Reads {@code d.results[]} of the keyMapEntryValues collection directly from the stream. Values are passed
+     * to the consumer one by one and aren't collected anywhere, so memory usage doesn't depend on the key map size.
+     */
+    public static void parseKeyMapEntryValues(String keyMapEntry, InputStream inputStream, Consumer<KeyMapEntryValue> keyMapEntryValueConsumer) {
+        try (JsonParser parser = ODataJsonReader.JSON_FACTORY.createParser(inputStream)) {
+            parseKeyMapEntryValues(keyMapEntry, parser, keyMapEntryValueConsumer);
+        } catch (IOException ex) {
+            throw new ClientIntegrationException("Couldn't parse key map entry values: " + ex.getMessage(), ex);
         }
+    }
 
-        return keyMapEntryValues;
+    /**
+     * Parses KeyMapEntries collection requested with {@code $expand=keyMapEntryValues}.
+     * Values are collected only for key map entries from {@code keyMapEntries}, others are skipped.
+     *
+     * @return key map entry name to its key-to-value map. The map contains only existing entries,
+     * the value is {@code null} if values of the entry weren't expanded by the server
+     */
+    public static Map<String, Map<String, String>> buildKeyToValueMaps(byte[] body, Set<String> keyMapEntries) {
+        Map<String, Map<String, String>> keyToValueMaps = new HashMap<>();
+        try (JsonParser parser = ODataJsonReader.JSON_FACTORY.createParser(body)) {
+            ODataJsonReader.readResults(parser, entityParser -> parseKeyMapEntryWithValues(entityParser, keyMapEntries, keyToValueMaps));
+        } catch (IOException ex) {
+            throw new ClientIntegrationException("Couldn't parse key map entries: " + ex.getMessage(), ex);
+        }
+        return keyToValueMaps;
     }
 
-    private static KeyMapEntryMetaData parseKeyMapEntryMetaData(JSONObject keyMapEntryElement) {
-        KeyMapEntryMetaData keyMapEntry = new KeyMapEntryMetaData();
-        keyMapEntry.setName(keyMapEntryElement.getString("name"));
-        keyMapEntry.setScope(keyMapEntryElement.getString("scope"));
-        keyMapEntry.setEncrypted(keyMapEntryElement.getBoolean("encrypted"));
-
-        JSONObject keyMapEntryLifeCycleElement = keyMapEntryElement.getJSONObject("life_cycle");
-        String createdAt = Utils.optString(keyMapEntryLifeCycleElement, "created_at");
-        keyMapEntry.setCreationDate(createdAt != null
-                ? new Timestamp(Long.parseLong(createdAt.replaceAll("[^0-9]", "")))
-                : null
-        );
-        keyMapEntry.setCreatedBy(Utils.optString(keyMapEntryLifeCycleElement, "created_by"));
-        String changedAt = Utils.optString(keyMapEntryLifeCycleElement, "changed_at");
-        keyMapEntry.setModificationDate(changedAt != null
-                ? new Timestamp(Long.parseLong(changedAt.replaceAll("[^0-9]", "")))
-                : null
-        );
-        keyMapEntry.setModifiedBy(Utils.optString(keyMapEntryLifeCycleElement, "changed_by"));
+    private static String parseKeyMapEntryValues(String keyMapEntry, JsonParser parser, Consumer<KeyMapEntryValue> keyMapEntryValueConsumer) throws IOException {
+        return ODataJsonReader.readResults(parser, entityParser -> keyMapEntryValueConsumer.accept(parseKeyMapEntryValue(keyMapEntry, entityParser)));
+    }
+
+    private static KeyMapEntryValue parseKeyMapEntryValue(String keyMapEntry, JsonParser parser) throws IOException {
+        String keyMapEntryValueName = null;
+        String keyMapEntryValue = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            if ("name".equals(fieldName)) {
+                keyMapEntryValueName = ODataJsonReader.readString(parser);
+            } else if ("value".equals(fieldName)) {
+                keyMapEntryValue = ODataJsonReader.readString(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new KeyMapEntryValue(keyMapEntry, keyMapEntryValueName, keyMapEntryValue);
+    }
+
+    private static void parseKeyMapEntryWithValues(
+            JsonParser parser,
+            Set<String> keyMapEntries,
+            Map<String, Map<String, String>> keyToValueMaps
+    ) throws IOException {
+        String keyMapEntryName = null;
+        Map<String, String> keyToValueMap = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+            if ("name".equals(fieldName)) {
+                keyMapEntryName = ODataJsonReader.readString(parser);
+            } else if ("keyMapEntryValues".equals(fieldName) && valueToken == JsonToken.START_OBJECT) {
+                // name usually goes before navigation properties, so values of not requested entries aren't collected
+                boolean collectValues = keyMapEntryName == null || keyMapEntries.contains(keyMapEntryName);
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String nestedFieldName = parser.getCurrentName();
+                    JsonToken nestedValueToken = parser.nextToken();
+                    if (collectValues && "results".equals(nestedFieldName) && nestedValueToken == JsonToken.START_ARRAY) {
+                        keyToValueMap = new HashMap<>();
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            KeyMapEntryValue keyMapEntryValue = parseKeyMapEntryValue(keyMapEntryName, parser);
+                            keyToValueMap.put(keyMapEntryValue.getName(), keyMapEntryValue.getValue());
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (keyMapEntryName != null && keyMapEntries.contains(keyMapEntryName)) {
+            keyToValueMaps.put(keyMapEntryName, keyToValueMap);
+        }
+    }
+
+    private static String parseKeyMapEntryName(JsonParser parser) throws IOException {
+        String keyMapEntryName = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            if ("name".equals(fieldName)) {
+                keyMapEntryName = ODataJsonReader.readString(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return keyMapEntryName;
+    }
+
+    private static KeyMapEntryMetaData parseKeyMapEntryMetaData(JsonParser parser) throws IOException {
+        String name = null;
+        String scope = null;
+        Boolean encrypted = null;
+        KeyMapEntryMetaData keyMapEntry = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+            switch (fieldName) {
+                case "name":
+                    name = ODataJsonReader.readString(parser);
+                    break;
+                case "scope":
+                    scope = ODataJsonReader.readString(parser);
+                    break;
+                case "encrypted":
+                    encrypted = ODataJsonReader.readBoolean(parser, fieldName);
+                    break;
+                case "life_cycle":
+                    if (valueToken == JsonToken.START_OBJECT) {
+                        keyMapEntry = new KeyMapEntryMetaData();
+                        parseLifeCycle(parser, keyMapEntry);
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if (keyMapEntry == null) {
+            throw new ClientIntegrationException("JSONObject[\"life_cycle\"] not found");
+        }
+        keyMapEntry.setName(ODataJsonReader.requireString(name, "name"));
+        keyMapEntry.setScope(ODataJsonReader.requireString(scope, "scope"));
+        if (encrypted == null) {
+            throw new ClientIntegrationException("JSONObject[\"encrypted\"] not found");
+        }
+        keyMapEntry.setEncrypted(encrypted);
         return keyMapEntry;
     }
 
+    private static void parseLifeCycle(JsonParser parser, KeyMapEntryMetaData keyMapEntry) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            switch (fieldName) {
+                case "created_at":
+                    keyMapEntry.setCreationDate(ODataDateParser.readTimestamp(parser));
+                    break;
+                case "created_by":
+                    keyMapEntry.setCreatedBy(ODataJsonReader.readString(parser));
+                    break;
+                case "changed_at":
+                    keyMapEntry.setModificationDate(ODataDateParser.readTimestamp(parser));
+                    break;
+                case "changed_by":
+                    keyMapEntry.setModifiedBy(ODataJsonReader.readString(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
 }
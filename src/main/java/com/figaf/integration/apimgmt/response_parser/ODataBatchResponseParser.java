@@ -0,0 +1,182 @@
+package com.figaf.integration.apimgmt.response_parser;
+
+import com.figaf.integration.common.exception.ClientIntegrationException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.commons.lang3.StringUtils;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parses multipart responses of OData v2 {@code $batch} requests.
+ * <p>
+ * Every changeset of the request is answered with a nested multipart part which contains a response per operation.
+ * If the changeset fails, it's rolled back and answered with a single error response instead, so the returned list
+ * of such changeset contains only one element which relates to all its operations.
+ */
+public class ODataBatchResponseParser {
+
+    private static final String LINE_SEPARATOR = "\n";
+    private static final String EMPTY_LINE = "\n\n";
+
+    /**
+     * @param boundary boundary from the Content-Type header of the response, if it's {@code null}
+     *                 the boundary is taken from the first delimiter line of the body
+     * @return responses grouped by the top-level parts (changesets) in the order of the request
+     */
+    public static List<List<OperationResponse>> parseBatchResponse(String body, String boundary) {
+        if (body == null) {
+            throw new ClientIntegrationException("$batch response doesn't have a body");
+        }
+        String normalizedBody = body.replace("\r\n", LINE_SEPARATOR);
+        String batchBoundary = boundary != null ? boundary : detectBoundary(normalizedBody);
+
+        List<List<OperationResponse>> changeSetResponses = new ArrayList<>();
+        for (String part : splitParts(normalizedBody, batchBoundary)) {
+            int contentStart = getContentStart(part);
+            String partHeaders = part.substring(0, contentStart);
+            String partContent = part.substring(contentStart);
+            String changeSetBoundary = getMultipartBoundary(partHeaders);
+            List<OperationResponse> operationResponses = new ArrayList<>();
+            if (changeSetBoundary != null) {
+                for (String changeSetPart : splitParts(partContent, changeSetBoundary)) {
+                    operationResponses.add(parseHttpResponse(changeSetPart.substring(getContentStart(changeSetPart))));
+                }
+            } else {
+                operationResponses.add(parseHttpResponse(partContent));
+            }
+            changeSetResponses.add(operationResponses);
+        }
+        return changeSetResponses;
+    }
+
+    private static String detectBoundary(String body) {
+        String trimmedBody = StringUtils.stripStart(body, null);
+        if (!trimmedBody.startsWith("--")) {
+            throw new ClientIntegrationException("Couldn't find boundary of $batch response");
+        }
+        int lineEnd = trimmedBody.indexOf(LINE_SEPARATOR);
+        return (lineEnd < 0 ? trimmedBody.substring(2) : trimmedBody.substring(2, lineEnd)).trim();
+    }
+
+    private static List<String> splitParts(String multipartBody, String boundary) {
+        String delimiter = "--" + boundary;
+        List<String> parts = new ArrayList<>();
+        int delimiterIndex = multipartBody.startsWith(delimiter) ? 0 : multipartBody.indexOf(LINE_SEPARATOR + delimiter);
+        if (delimiterIndex > 0) {
+            delimiterIndex++;
+        }
+        while (delimiterIndex >= 0) {
+            int partStart = delimiterIndex + delimiter.length();
+            if (multipartBody.startsWith("--", partStart)) {
+                break;
+            }
+            int lineEnd = multipartBody.indexOf(LINE_SEPARATOR, partStart);
+            if (lineEnd < 0) {
+                break;
+            }
+            partStart = lineEnd + 1;
+            int nextDelimiterIndex = multipartBody.indexOf(LINE_SEPARATOR + delimiter, partStart - 1);
+            if (nextDelimiterIndex < 0) {
+                throw new ClientIntegrationException("$batch response part isn't closed by boundary " + boundary);
+            }
+            parts.add(multipartBody.substring(partStart, Math.max(partStart, nextDelimiterIndex)));
+            delimiterIndex = nextDelimiterIndex + 1;
+        }
+        return parts;
+    }
+
+    private static int getContentStart(String part) {
+        if (part.startsWith(LINE_SEPARATOR)) {
+            return 1;
+        }
+        int headersEnd = part.indexOf(EMPTY_LINE);
+        return headersEnd < 0 ? part.length() : headersEnd + EMPTY_LINE.length();
+    }
+
+    private static String getMultipartBoundary(String headers) {
+        for (String header : headers.split(LINE_SEPARATOR)) {
+            int separatorIndex = header.indexOf(':');
+            if (separatorIndex < 0 || !"content-type".equalsIgnoreCase(header.substring(0, separatorIndex).trim())) {
+                continue;
+            }
+            String contentType = header.substring(separatorIndex + 1);
+            if (!contentType.trim().toLowerCase(Locale.ROOT).startsWith("multipart/mixed")) {
+                return null;
+            }
+            int boundaryIndex = contentType.toLowerCase(Locale.ROOT).indexOf("boundary=");
+            if (boundaryIndex < 0) {
+                return null;
+            }
+            String boundary = contentType.substring(boundaryIndex + "boundary=".length());
+            int parametersEnd = boundary.indexOf(';');
+            return StringUtils.strip(parametersEnd < 0 ? boundary : boundary.substring(0, parametersEnd), " \"");
+        }
+        return null;
+    }
+
+    private static OperationResponse parseHttpResponse(String httpResponse) {
+        String response = StringUtils.stripStart(httpResponse, null);
+        int statusLineEnd = response.indexOf(LINE_SEPARATOR);
+        String statusLine = statusLineEnd < 0 ? response : response.substring(0, statusLineEnd);
+        // HTTP/1.1 201 Created
+        String[] statusLineParts = statusLine.trim().split(" ", 3);
+        if (statusLineParts.length < 2 || !statusLineParts[0].startsWith("HTTP/")) {
+            throw new ClientIntegrationException("Couldn't parse status line of $batch response part: " + statusLine);
+        }
+        int statusCode;
+        try {
+            statusCode = Integer.parseInt(statusLineParts[1]);
+        } catch (NumberFormatException ex) {
+            throw new ClientIntegrationException("Couldn't parse status line of $batch response part: " + statusLine, ex);
+        }
+        String body = null;
+        if (statusLineEnd >= 0) {
+            String headersAndBody = response.substring(statusLineEnd + 1);
+            body = StringUtils.trimToNull(headersAndBody.substring(getContentStart(headersAndBody)));
+        }
+        return new OperationResponse(statusCode, body);
+    }
+
+    @AllArgsConstructor
+    @Getter
+    @ToString
+    public static class OperationResponse {
+
+        private final int statusCode;
+        private final String body;
+
+        public boolean isSuccessful() {
+            return statusCode >= 200 && statusCode < 300;
+        }
+
+        /**
+         * Returns {@code error.message.value} of the OData error or the whole body if it's not an OData JSON error.
+         */
+        public String getErrorMessage() {
+            if (isSuccessful() || body == null) {
+                return null;
+            }
+            try {
+                JSONObject error = new JSONObject(body).optJSONObject("error");
+                if (error != null) {
+                    JSONObject message = error.optJSONObject("message");
+                    if (message != null && message.has("value")) {
+                        return message.optString("value");
+                    }
+                    if (error.has("message")) {
+                        return error.optString("message");
+                    }
+                }
+            } catch (JSONException ex) {
+                // not a JSON error, the body is returned as is
+            }
+            return body;
+        }
+    }
+}
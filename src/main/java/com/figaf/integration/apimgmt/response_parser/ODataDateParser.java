@@ -0,0 +1,118 @@
+package com.figaf.integration.apimgmt.response_parser;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.figaf.integration.common.exception.ClientIntegrationException;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+
+/**
+ * Decodes OData v2 JSON date literals: {@code /Date(1700000000000)/}, {@code /Date(1700000000000+0060)/}
+ * and plain epoch milliseconds. The milliseconds are always UTC, the optional offset (in minutes)
+ * only describes the original time zone, so it's validated and ignored.
+ * The literal is decoded directly from the parser buffer without creating intermediate strings.
+ * <p>
+ * Parsing is strict on purpose: a value which is not one of these forms is rejected with {@link ClientIntegrationException}.
+ * The former parsing removed all non-digit characters, so it silently turned {@code /Date(1700000000000+0060)/}
+ * into a date thousands of years ahead and lost the sign of dates before 1970.
+ */
+final class ODataDateParser {
+
+    private static final char[] DATE_PREFIX = "/Date(".toCharArray();
+    private static final char[] DATE_SUFFIX = ")/".toCharArray();
+
+    private ODataDateParser() {
+    }
+
+    /**
+     * Reads the current value of the parser, {@code null} and empty values are returned as {@code null}.
+     */
+    static Timestamp readTimestamp(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_STRING) {
+            int length = parser.getTextLength();
+            return length > 0
+                    ? new Timestamp(parseMillis(parser.getTextCharacters(), parser.getTextOffset(), length))
+                    : null;
+        }
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return new Timestamp(parser.getLongValue());
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    static Timestamp parseTimestamp(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        return new Timestamp(parseMillis(value.toCharArray(), 0, value.length()));
+    }
+
+    static long parseMillis(char[] chars, int offset, int length) {
+        int position = offset;
+        int end = offset + length;
+        if (startsWith(chars, position, end, DATE_PREFIX)) {
+            if (!startsWith(chars, end - DATE_SUFFIX.length, end, DATE_SUFFIX)) {
+                throw createParsingException(chars, offset, length);
+            }
+            position += DATE_PREFIX.length;
+            end -= DATE_SUFFIX.length;
+        }
+
+        boolean negative = false;
+        if (position < end && (chars[position] == '-' || chars[position] == '+')) {
+            negative = chars[position] == '-';
+            position++;
+        }
+        int digitsStart = position;
+        long millis = 0;
+        while (position < end && isDigit(chars[position])) {
+            int digit = chars[position] - '0';
+            if (millis > (Long.MAX_VALUE - digit) / 10) {
+                throw createParsingException(chars, offset, length);
+            }
+            millis = millis * 10 + digit;
+            position++;
+        }
+        if (position == digitsStart) {
+            throw createParsingException(chars, offset, length);
+        }
+
+        // time zone offset like +0060 or -0120
+        if (position < end && (chars[position] == '+' || chars[position] == '-')) {
+            int offsetStart = ++position;
+            while (position < end && isDigit(chars[position])) {
+                position++;
+            }
+            if (position == offsetStart) {
+                throw createParsingException(chars, offset, length);
+            }
+        }
+        if (position != end) {
+            throw createParsingException(chars, offset, length);
+        }
+        return negative ? -millis : millis;
+    }
+
+    private static boolean startsWith(char[] chars, int position, int end, char[] expected) {
+        if (position < 0 || end - position < expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (chars[position + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char character) {
+        return character >= '0' && character <= '9';
+    }
+
+    private static ClientIntegrationException createParsingException(char[] chars, int offset, int length) {
+        return new ClientIntegrationException(String.format("Couldn't parse OData date %s", new String(chars, offset, length)));
+    }
+}
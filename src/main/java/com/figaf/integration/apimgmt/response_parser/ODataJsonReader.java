@@ -0,0 +1,144 @@
+package com.figaf.integration.apimgmt.response_parser;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.figaf.integration.common.exception.ClientIntegrationException;
+
+import java.io.IOException;
+import java.util.function.LongConsumer;
+
+/**
+ * Token-level reader for OData v2 JSON responses ({@code {"d": {"results": [...]}}}).
+ * Entities are handed over one by one, so the response is never materialized as a DOM.
+ */
+final class ODataJsonReader {
+
+    static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private ODataJsonReader() {
+    }
+
+    /**
+     * Iterates over {@code d.results[]}. The handler is called with the parser positioned on the
+     * {@code START_OBJECT} token of each entity and must leave it on the matching {@code END_OBJECT}.
+     *
+     * @return value of {@code d.__next} if the server returned one, otherwise {@code null}
+     */
+    static String readResults(JsonParser parser, EntityHandler entityHandler) throws IOException {
+        return readResults(parser, entityHandler, null);
+    }
+
+    /**
+     * Same as {@link #readResults(JsonParser, EntityHandler)}, additionally passes {@code d.__count}
+     * (returned for {@code $inlinecount=allpages}) to the {@code totalCountConsumer} if the server returned it.
+     */
+    static String readResults(JsonParser parser, EntityHandler entityHandler, LongConsumer totalCountConsumer) throws IOException {
+        moveToObjectField(parser, "d");
+        boolean resultsFound = false;
+        String nextLink = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+            if ("results".equals(fieldName) && valueToken == JsonToken.START_ARRAY) {
+                resultsFound = true;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (parser.currentToken() != JsonToken.START_OBJECT) {
+                        throw new ClientIntegrationException("JSONArray[results] contains not a JSONObject");
+                    }
+                    entityHandler.handle(parser);
+                }
+            } else if ("__next".equals(fieldName)) {
+                nextLink = readString(parser);
+            } else if ("__count".equals(fieldName) && totalCountConsumer != null) {
+                String totalCount = readString(parser);
+                if (totalCount != null) {
+                    totalCountConsumer.accept(Long.parseLong(totalCount));
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (!resultsFound) {
+            throw new ClientIntegrationException("JSONObject[\"results\"] not found");
+        }
+        return nextLink;
+    }
+
+    /**
+     * Positions the parser on the {@code START_OBJECT} token of {@code d}, which is the single entity
+     * returned by entity-addressed requests like {@code APIProxies('name')}.
+     */
+    static void readEntity(JsonParser parser, EntityHandler entityHandler) throws IOException {
+        moveToObjectField(parser, "d");
+        entityHandler.handle(parser);
+    }
+
+    /**
+     * Returns the textual representation of the current scalar value, {@code null} for JSON null.
+     * Nested structures are skipped and reported as {@code null}.
+     */
+    static String readString(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getValueAsString();
+    }
+
+    /**
+     * Same as {@code JSONObject.getString}: the value must be present and be a JSON string.
+     */
+    static String requireString(String value, String fieldName) {
+        if (value == null) {
+            throw new ClientIntegrationException(String.format("JSONObject[\"%s\"] not found or is not a string", fieldName));
+        }
+        return value;
+    }
+
+    /**
+     * Same as {@code JSONObject.getBoolean}: accepts JSON booleans as well as "true"/"false" strings.
+     */
+    static boolean readBoolean(JsonParser parser, String fieldName) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_TRUE) {
+            return true;
+        }
+        if (token == JsonToken.VALUE_FALSE) {
+            return false;
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            String text = parser.getText();
+            if ("true".equalsIgnoreCase(text)) {
+                return true;
+            }
+            if ("false".equalsIgnoreCase(text)) {
+                return false;
+            }
+        }
+        parser.skipChildren();
+        throw new ClientIntegrationException(String.format("JSONObject[\"%s\"] is not a Boolean", fieldName));
+    }
+
+    private static void moveToObjectField(JsonParser parser, String expectedFieldName) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new ClientIntegrationException("A JSONObject text must begin with '{'");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+            if (expectedFieldName.equals(fieldName) && valueToken == JsonToken.START_OBJECT) {
+                return;
+            }
+            parser.skipChildren();
+        }
+        throw new ClientIntegrationException(String.format("JSONObject[\"%s\"] not found", expectedFieldName));
+    }
+
+    @FunctionalInterface
+    interface EntityHandler {
+
+        void handle(JsonParser parser) throws IOException;
+    }
+}
@@ -0,0 +1,82 @@
+package com.figaf.integration.apimgmt.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * SHA-256 digest of the content of an API proxy bundle. Only names and contents of the files in the zip are hashed,
+ * in the order of the names, so two bundles with the same files have the same digest regardless of the order
+ * of the entries, their timestamps, compression and directory entries.
+ */
+public final class ApiProxyBundleDigest {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ApiProxyBundleDigest() {
+    }
+
+    /**
+     * Reads the bundle till the end, the stream isn't closed.
+     *
+     * @return hex-encoded digest
+     */
+    public static String digest(InputStream bundledApiProxy) throws IOException {
+        Map<String, byte[]> entryNameToDigest = new TreeMap<>();
+        ZipInputStream zipInputStream = new ZipInputStream(bundledApiProxy);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        ZipEntry zipEntry;
+        while ((zipEntry = zipInputStream.getNextEntry()) != null) {
+            if (zipEntry.isDirectory()) {
+                continue;
+            }
+            MessageDigest entryDigest = createMessageDigest();
+            int read;
+            while ((read = zipInputStream.read(buffer)) != -1) {
+                entryDigest.update(buffer, 0, read);
+            }
+            entryNameToDigest.put(normalizeEntryName(zipEntry.getName()), entryDigest.digest());
+        }
+        if (entryNameToDigest.isEmpty()) {
+            throw new IOException("Api proxy bundle is not a zip archive or it's empty");
+        }
+
+        MessageDigest bundleDigest = createMessageDigest();
+        for (Map.Entry<String, byte[]> entryNameAndDigest : entryNameToDigest.entrySet()) {
+            bundleDigest.update(entryNameAndDigest.getKey().getBytes(StandardCharsets.UTF_8));
+            bundleDigest.update((byte) 0);
+            bundleDigest.update(entryNameAndDigest.getValue());
+        }
+        return toHex(bundleDigest.digest());
+    }
+
+    private static String normalizeEntryName(String entryName) {
+        String normalizedEntryName = entryName.replace('\\', '/');
+        while (normalizedEntryName.startsWith("/")) {
+            normalizedEntryName = normalizedEntryName.substring(1);
+        }
+        return normalizedEntryName;
+    }
+
+    private static MessageDigest createMessageDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not supported", ex);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
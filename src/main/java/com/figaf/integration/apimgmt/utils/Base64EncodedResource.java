@@ -0,0 +1,54 @@
+package com.figaf.integration.apimgmt.utils;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Request body which is Base64-encoded while it's written to the connection.
+ * If the source length is known, the encoded length is reported as the content length,
+ * otherwise the body is sent without Content-Length.
+ */
+public class Base64EncodedResource extends AbstractResource {
+
+    private final SourceSupplier sourceSupplier;
+    private final long sourceLength;
+    private final String description;
+
+    /**
+     * @param sourceSupplier opens a new source stream every time the resource is read
+     * @param sourceLength   length of the source in bytes or -1 if it's unknown
+     */
+    public Base64EncodedResource(SourceSupplier sourceSupplier, long sourceLength, String description) {
+        this.sourceSupplier = sourceSupplier;
+        this.sourceLength = sourceLength;
+        this.description = description;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new Base64EncodingInputStream(sourceSupplier.open());
+    }
+
+    @Override
+    public long contentLength() {
+        return sourceLength < 0 ? -1 : Base64EncodingInputStream.getEncodedLength(sourceLength);
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @FunctionalInterface
+    public interface SourceSupplier {
+
+        InputStream open() throws IOException;
+    }
+}
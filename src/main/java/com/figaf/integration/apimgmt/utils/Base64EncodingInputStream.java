@@ -0,0 +1,96 @@
+package com.figaf.integration.apimgmt.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Encodes the source stream to Base64 while it's being read, so neither the source nor the encoded data
+ * have to be held in memory. It's a reading counterpart of {@link Base64.Encoder#wrap(java.io.OutputStream)}.
+ */
+public class Base64EncodingInputStream extends InputStream {
+
+    // multiple of 3, so that only the last chunk gets padding
+    private static final int SOURCE_CHUNK_SIZE = 3 * 16 * 1024;
+
+    private static final Base64.Encoder ENCODER = Base64.getEncoder();
+
+    private final InputStream source;
+    private final byte[] sourceBuffer = new byte[SOURCE_CHUNK_SIZE];
+    private final byte[] encodedBuffer = new byte[SOURCE_CHUNK_SIZE / 3 * 4];
+    private int encodedLength;
+    private int encodedPosition;
+    private boolean sourceExhausted;
+
+    public Base64EncodingInputStream(InputStream source) {
+        this.source = source;
+    }
+
+    public static long getEncodedLength(long sourceLength) {
+        return (sourceLength + 2) / 3 * 4;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fillEncodedBuffer()) {
+            return -1;
+        }
+        return encodedBuffer[encodedPosition++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!fillEncodedBuffer()) {
+            return -1;
+        }
+        int bytesToCopy = Math.min(length, encodedLength - encodedPosition);
+        System.arraycopy(encodedBuffer, encodedPosition, bytes, offset, bytesToCopy);
+        encodedPosition += bytesToCopy;
+        return bytesToCopy;
+    }
+
+    @Override
+    public int available() {
+        return encodedLength - encodedPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    private boolean fillEncodedBuffer() throws IOException {
+        if (encodedPosition < encodedLength) {
+            return true;
+        }
+        if (sourceExhausted) {
+            return false;
+        }
+        int sourceLength = readSourceChunk();
+        if (sourceLength == 0) {
+            return false;
+        }
+        encodedLength = sourceLength == SOURCE_CHUNK_SIZE
+                ? ENCODER.encode(sourceBuffer, encodedBuffer)
+                : ENCODER.encode(Arrays.copyOf(sourceBuffer, sourceLength), encodedBuffer);
+        encodedPosition = 0;
+        return true;
+    }
+
+    private int readSourceChunk() throws IOException {
+        int sourceLength = 0;
+        while (sourceLength < SOURCE_CHUNK_SIZE) {
+            int readBytes = source.read(sourceBuffer, sourceLength, SOURCE_CHUNK_SIZE - sourceLength);
+            if (readBytes < 0) {
+                sourceExhausted = true;
+                break;
+            }
+            sourceLength += readBytes;
+        }
+        return sourceLength;
+    }
+}
@@ -0,0 +1,54 @@
+package com.figaf.integration.apimgmt.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides the executor used by the clients for background work (page prefetching, bulk operations)
+ * when the caller doesn't supply its own one.
+ */
+@Slf4j
+public final class ExecutorUtils {
+
+    private static volatile ExecutorService defaultExecutor;
+
+    private ExecutorUtils() {
+    }
+
+    /**
+     * Returns a shared executor which runs each task on a virtual thread on Java 21+
+     * and on a daemon thread of a cached thread pool on older runtimes.
+     */
+    public static ExecutorService getDefaultExecutor() {
+        ExecutorService executor = defaultExecutor;
+        if (executor == null) {
+            synchronized (ExecutorUtils.class) {
+                executor = defaultExecutor;
+                if (executor == null) {
+                    executor = createDefaultExecutor();
+                    defaultExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    private static ExecutorService createDefaultExecutor() {
+        try {
+            Method newVirtualThreadPerTaskExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            log.debug("Virtual threads are not available, cached thread pool will be used: {}", ex.toString());
+        }
+        AtomicInteger threadCounter = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "apimgmt-api-worker-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,186 @@
+package com.figaf.integration.apimgmt.utils;
+
+import com.figaf.integration.apimgmt.entity.ApiProxyMetaData;
+import com.figaf.integration.apimgmt.entity.InventorySnapshot;
+import com.figaf.integration.apimgmt.entity.KeyMapEntryMetaData;
+import com.figaf.integration.apimgmt.entity.KeyMapEntryValue;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact binary format of {@link InventorySnapshot}: a gzipped sequence of length-prefixed fields without field names.
+ * Every field is written explicitly instead of using Java serialization, so the file doesn't depend on the classes
+ * of the entities. Files of another format version are rejected with {@link IOException}.
+ */
+public final class InventorySnapshotFormat {
+
+    private static final int MAGIC = 0x46495353;
+    private static final int FORMAT_VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private InventorySnapshotFormat() {
+    }
+
+    public static void write(InventorySnapshot inventorySnapshot, OutputStream outputStream) throws IOException {
+        GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+        DataOutputStream dataOutputStream = new DataOutputStream(new BufferedOutputStream(gzipOutputStream, BUFFER_SIZE));
+        dataOutputStream.writeInt(MAGIC);
+        dataOutputStream.writeInt(FORMAT_VERSION);
+        writeString(dataOutputStream, inventorySnapshot.getTenantKey());
+        writeInstant(dataOutputStream, inventorySnapshot.getApiProxiesWatermark());
+        writeInstant(dataOutputStream, inventorySnapshot.getKeyMapEntriesWatermark());
+        writeInstant(dataOutputStream, inventorySnapshot.getRefreshedAt());
+
+        dataOutputStream.writeInt(inventorySnapshot.getApiProxies().size());
+        for (ApiProxyMetaData apiProxyMetaData : inventorySnapshot.getApiProxies()) {
+            writeString(dataOutputStream, apiProxyMetaData.getName());
+            writeString(dataOutputStream, apiProxyMetaData.getTitle());
+            writeString(dataOutputStream, apiProxyMetaData.getVersion());
+            writeString(dataOutputStream, apiProxyMetaData.getState());
+            writeString(dataOutputStream, apiProxyMetaData.getApiType());
+            writeDate(dataOutputStream, apiProxyMetaData.getCreationDate());
+            writeString(dataOutputStream, apiProxyMetaData.getCreatedBy());
+            writeDate(dataOutputStream, apiProxyMetaData.getModificationDate());
+            writeString(dataOutputStream, apiProxyMetaData.getModifiedBy());
+            dataOutputStream.writeBoolean(apiProxyMetaData.isChanged());
+            dataOutputStream.writeBoolean(apiProxyMetaData.isVersioned());
+        }
+
+        Map<String, List<KeyMapEntryValue>> keyMapEntryToValues = inventorySnapshot.getKeyMapEntryToValues();
+        dataOutputStream.writeInt(inventorySnapshot.getKeyMapEntries().size());
+        for (KeyMapEntryMetaData keyMapEntryMetaData : inventorySnapshot.getKeyMapEntries()) {
+            writeString(dataOutputStream, keyMapEntryMetaData.getName());
+            writeString(dataOutputStream, keyMapEntryMetaData.getScope());
+            dataOutputStream.writeBoolean(keyMapEntryMetaData.isEncrypted());
+            writeDate(dataOutputStream, keyMapEntryMetaData.getCreationDate());
+            writeString(dataOutputStream, keyMapEntryMetaData.getCreatedBy());
+            writeDate(dataOutputStream, keyMapEntryMetaData.getModificationDate());
+            writeString(dataOutputStream, keyMapEntryMetaData.getModifiedBy());
+            // map name of the values is the name of the key map entry, so it's not repeated
+            List<KeyMapEntryValue> keyMapEntryValues = keyMapEntryToValues.get(keyMapEntryMetaData.getName());
+            dataOutputStream.writeInt(keyMapEntryValues != null ? keyMapEntryValues.size() : -1);
+            if (keyMapEntryValues != null) {
+                for (KeyMapEntryValue keyMapEntryValue : keyMapEntryValues) {
+                    writeString(dataOutputStream, keyMapEntryValue.getName());
+                    writeString(dataOutputStream, keyMapEntryValue.getValue());
+                }
+            }
+        }
+        dataOutputStream.flush();
+        gzipOutputStream.finish();
+    }
+
+    public static InventorySnapshot read(InputStream inputStream) throws IOException {
+        DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(new GZIPInputStream(inputStream, BUFFER_SIZE), BUFFER_SIZE));
+        if (dataInputStream.readInt() != MAGIC) {
+            throw new IOException("Not an inventory snapshot");
+        }
+        int formatVersion = dataInputStream.readInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException(String.format("Unsupported format version of inventory snapshot: %d", formatVersion));
+        }
+        String tenantKey = readString(dataInputStream);
+        Instant apiProxiesWatermark = readInstant(dataInputStream);
+        Instant keyMapEntriesWatermark = readInstant(dataInputStream);
+        Instant refreshedAt = readInstant(dataInputStream);
+
+        int apiProxyCount = readCount(dataInputStream);
+        List<ApiProxyMetaData> apiProxies = new ArrayList<>(apiProxyCount);
+        for (int i = 0; i < apiProxyCount; i++) {
+            ApiProxyMetaData apiProxyMetaData = new ApiProxyMetaData();
+            apiProxyMetaData.setName(readString(dataInputStream));
+            apiProxyMetaData.setTitle(readString(dataInputStream));
+            apiProxyMetaData.setVersion(readString(dataInputStream));
+            apiProxyMetaData.setState(readString(dataInputStream));
+            apiProxyMetaData.setApiType(readString(dataInputStream));
+            apiProxyMetaData.setCreationDate(readDate(dataInputStream));
+            apiProxyMetaData.setCreatedBy(readString(dataInputStream));
+            apiProxyMetaData.setModificationDate(readDate(dataInputStream));
+            apiProxyMetaData.setModifiedBy(readString(dataInputStream));
+            apiProxyMetaData.setChanged(dataInputStream.readBoolean());
+            apiProxyMetaData.setVersioned(dataInputStream.readBoolean());
+            apiProxies.add(apiProxyMetaData);
+        }
+
+        int keyMapEntryCount = readCount(dataInputStream);
+        List<KeyMapEntryMetaData> keyMapEntries = new ArrayList<>(keyMapEntryCount);
+        Map<String, List<KeyMapEntryValue>> keyMapEntryToValues = new HashMap<>();
+        for (int i = 0; i < keyMapEntryCount; i++) {
+            KeyMapEntryMetaData keyMapEntryMetaData = new KeyMapEntryMetaData();
+            keyMapEntryMetaData.setName(readString(dataInputStream));
+            keyMapEntryMetaData.setScope(readString(dataInputStream));
+            keyMapEntryMetaData.setEncrypted(dataInputStream.readBoolean());
+            keyMapEntryMetaData.setCreationDate(readDate(dataInputStream));
+            keyMapEntryMetaData.setCreatedBy(readString(dataInputStream));
+            keyMapEntryMetaData.setModificationDate(readDate(dataInputStream));
+            keyMapEntryMetaData.setModifiedBy(readString(dataInputStream));
+            keyMapEntries.add(keyMapEntryMetaData);
+            int keyMapEntryValueCount = dataInputStream.readInt();
+            if (keyMapEntryValueCount >= 0) {
+                List<KeyMapEntryValue> keyMapEntryValues = new ArrayList<>(keyMapEntryValueCount);
+                for (int j = 0; j < keyMapEntryValueCount; j++) {
+                    keyMapEntryValues.add(new KeyMapEntryValue(keyMapEntryMetaData.getName(), readString(dataInputStream), readString(dataInputStream)));
+                }
+                keyMapEntryToValues.put(keyMapEntryMetaData.getName(), keyMapEntryValues);
+            }
+        }
+        return new InventorySnapshot(tenantKey, apiProxies, keyMapEntries, keyMapEntryToValues, apiProxiesWatermark, keyMapEntriesWatermark, refreshedAt);
+    }
+
+    private static void writeString(DataOutputStream dataOutputStream, String value) throws IOException {
+        // writeUTF is limited to 64 KB, values of key maps can be longer
+        if (value == null) {
+            dataOutputStream.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        dataOutputStream.writeInt(bytes.length);
+        dataOutputStream.write(bytes);
+    }
+
+    private static String readString(DataInputStream dataInputStream) throws IOException {
+        int length = dataInputStream.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        dataInputStream.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDate(DataOutputStream dataOutputStream, Date date) throws IOException {
+        dataOutputStream.writeBoolean(date != null);
+        if (date != null) {
+            dataOutputStream.writeLong(date.getTime());
+        }
+    }
+
+    private static Date readDate(DataInputStream dataInputStream) throws IOException {
+        return dataInputStream.readBoolean() ? new Date(dataInputStream.readLong()) : null;
+    }
+
+    private static void writeInstant(DataOutputStream dataOutputStream, Instant instant) throws IOException {
+        dataOutputStream.writeBoolean(instant != null);
+        if (instant != null) {
+            dataOutputStream.writeLong(instant.getEpochSecond());
+            dataOutputStream.writeInt(instant.getNano());
+        }
+    }
+
+    private static Instant readInstant(DataInputStream dataInputStream) throws IOException {
+        return dataInputStream.readBoolean() ? Instant.ofEpochSecond(dataInputStream.readLong(), dataInputStream.readInt()) : null;
+    }
+
+    private static int readCount(DataInputStream dataInputStream) throws IOException {
+        int count = dataInputStream.readInt();
+        if (count < 0) {
+            throw new IOException("Inventory snapshot is corrupted, negative count: " + count);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,146 @@
+package com.figaf.integration.apimgmt.utils;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * {@code $batch} request body which is generated by {@link ODataBatchWriter} while it's read by the http client.
+ * Only a few requests are held in memory at any time, so the memory usage doesn't depend on the number of requests.
+ * The body is sent without Content-Length.
+ */
+public class ODataBatchRequestBody<T> extends AbstractResource {
+
+    // requests are generated until the buffer reaches this size, so that the client reads them in reasonable chunks
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final String batchBoundary;
+    private final List<List<T>> changeSets;
+    private final RequestWriter<T> requestWriter;
+
+    /**
+     * @param changeSets    every inner list is written as a separate changeset
+     * @param requestWriter writes a single request of the changeset
+     */
+    public ODataBatchRequestBody(String batchBoundary, List<List<T>> changeSets, RequestWriter<T> requestWriter) {
+        this.batchBoundary = batchBoundary;
+        this.changeSets = changeSets;
+        this.requestWriter = requestWriter;
+    }
+
+    public String getBatchBoundary() {
+        return batchBoundary;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new BatchInputStream();
+    }
+
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return "OData $batch request body " + batchBoundary;
+    }
+
+    @FunctionalInterface
+    public interface RequestWriter<T> {
+
+        void write(ODataBatchWriter batchWriter, T request) throws IOException;
+    }
+
+    private class BatchInputStream extends InputStream {
+
+        private final ChunkBuffer buffer = new ChunkBuffer();
+        private final ODataBatchWriter batchWriter = new ODataBatchWriter(buffer, batchBoundary);
+        private int position;
+        private int changeSetIndex;
+        private int requestIndex;
+        private boolean finished;
+
+        @Override
+        public int read() throws IOException {
+            if (!fillBuffer()) {
+                return -1;
+            }
+            return buffer.getBytes()[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!fillBuffer()) {
+                return -1;
+            }
+            int bytesToCopy = Math.min(length, buffer.size() - position);
+            System.arraycopy(buffer.getBytes(), position, bytes, offset, bytesToCopy);
+            position += bytesToCopy;
+            return bytesToCopy;
+        }
+
+        @Override
+        public int available() {
+            return buffer.size() - position;
+        }
+
+        private boolean fillBuffer() throws IOException {
+            if (position < buffer.size()) {
+                return true;
+            }
+            if (finished) {
+                return false;
+            }
+            buffer.reset();
+            position = 0;
+            while (buffer.size() < BUFFER_SIZE && !finished) {
+                writeNextPart();
+            }
+            return buffer.size() > 0;
+        }
+
+        private void writeNextPart() throws IOException {
+            if (changeSetIndex == changeSets.size()) {
+                batchWriter.finish();
+                finished = true;
+                return;
+            }
+            List<T> changeSet = changeSets.get(changeSetIndex);
+            if (requestIndex == 0) {
+                batchWriter.startChangeSet();
+            }
+            if (requestIndex < changeSet.size()) {
+                requestWriter.write(batchWriter, changeSet.get(requestIndex++));
+            }
+            if (requestIndex == changeSet.size()) {
+                batchWriter.endChangeSet();
+                changeSetIndex++;
+                requestIndex = 0;
+            }
+        }
+    }
+
+    private static class ChunkBuffer extends ByteArrayOutputStream {
+
+        private ChunkBuffer() {
+            super(BUFFER_SIZE * 2);
+        }
+
+        private byte[] getBytes() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.figaf.integration.apimgmt.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Writes an OData v2 {@code $batch} multipart body directly to the stream, so the body never exists as a whole in memory.
+ * Content-Length of every request is counted in UTF-8 bytes of its payload.
+ * <pre>
+ * writer.startChangeSet();
+ * writer.writeRequest("PUT", "KeyMapEntryValues(map_name='map',name='key')", requestId, "{\"value\":\"new value\"}");
+ * writer.endChangeSet();
+ * writer.finish();
+ * </pre>
+ */
+public class ODataBatchWriter {
+
+    // according to HTTP spec https://tools.ietf.org/html/rfc2616#section-2.2, CRLF is a correct line break for HTTP protocol
+    private static final String LINE_SEPARATOR = "\r\n";
+
+    private static final String CHANGE_SET_HEADER_TEMPLATE = "--%s" + LINE_SEPARATOR +
+            "Content-Type: multipart/mixed; boundary=%s" + LINE_SEPARATOR + LINE_SEPARATOR;
+
+    private static final byte[] REQUEST_PART_HEADERS = ("Content-Type: application/http" + LINE_SEPARATOR +
+            "Content-Transfer-Encoding: binary" + LINE_SEPARATOR + LINE_SEPARATOR).getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] COMMON_REQUEST_HEADERS = ("Accept-Language: en" + LINE_SEPARATOR +
+            "Accept: application/json" + LINE_SEPARATOR +
+            "MaxDataServiceVersion: 2.0" + LINE_SEPARATOR +
+            "DataServiceVersion: 2.0" + LINE_SEPARATOR).getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] JSON_CONTENT_TYPE_HEADER = ("Content-Type: application/json" + LINE_SEPARATOR).getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] LINE_SEPARATOR_BYTES = LINE_SEPARATOR.getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream outputStream;
+    private final String batchBoundary;
+    private String changeSetBoundary;
+
+    public ODataBatchWriter(OutputStream outputStream, String batchBoundary) {
+        this.outputStream = outputStream;
+        this.batchBoundary = batchBoundary;
+    }
+
+    public void startChangeSet() throws IOException {
+        if (changeSetBoundary != null) {
+            throw new IllegalStateException("Previous changeset is not finished");
+        }
+        changeSetBoundary = "changeset_" + UUID.randomUUID();
+        writeAscii(String.format(CHANGE_SET_HEADER_TEMPLATE, batchBoundary, changeSetBoundary));
+    }
+
+    /**
+     * @param resourcePath path relative to the service root, already URL-encoded
+     * @param jsonPayload  request body or {@code null} for requests without body
+     */
+    public void writeRequest(String method, String resourcePath, String requestId, String jsonPayload) throws IOException {
+        if (changeSetBoundary != null) {
+            writeAscii("--" + changeSetBoundary + LINE_SEPARATOR);
+        } else {
+            writeAscii("--" + batchBoundary + LINE_SEPARATOR);
+        }
+        outputStream.write(REQUEST_PART_HEADERS);
+        writeAscii(method + " " + resourcePath + " HTTP/1.1" + LINE_SEPARATOR);
+        writeAscii("RequestId: " + requestId + LINE_SEPARATOR);
+        outputStream.write(COMMON_REQUEST_HEADERS);
+        if (jsonPayload == null) {
+            outputStream.write(LINE_SEPARATOR_BYTES);
+            outputStream.write(LINE_SEPARATOR_BYTES);
+            return;
+        }
+        byte[] payload = jsonPayload.getBytes(StandardCharsets.UTF_8);
+        outputStream.write(JSON_CONTENT_TYPE_HEADER);
+        writeAscii("Content-Length: " + payload.length + LINE_SEPARATOR + LINE_SEPARATOR);
+        outputStream.write(payload);
+        outputStream.write(LINE_SEPARATOR_BYTES);
+    }
+
+    public void endChangeSet() throws IOException {
+        if (changeSetBoundary == null) {
+            throw new IllegalStateException("Changeset is not started");
+        }
+        writeAscii("--" + changeSetBoundary + "--" + LINE_SEPARATOR + LINE_SEPARATOR);
+        changeSetBoundary = null;
+    }
+
+    public void finish() throws IOException {
+        if (changeSetBoundary != null) {
+            throw new IllegalStateException("Changeset is not finished");
+        }
+        writeAscii("--" + batchBoundary + "--" + LINE_SEPARATOR);
+        outputStream.flush();
+    }
+
+    /**
+     * Appends the value as a quoted JSON string, {@code null} is appended as JSON null.
+     */
+    public static StringBuilder appendJsonString(StringBuilder json, String value) {
+        if (value == null) {
+            return json.append("null");
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            switch (character) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                case '\b':
+                    json.append("\\b");
+                    break;
+                case '\f':
+                    json.append("\\f");
+                    break;
+                default:
+                    if (character < 0x20) {
+                        json.append(String.format("\\u%04x", (int) character));
+                    } else {
+                        json.append(character);
+                    }
+            }
+        }
+        return json.append('"');
+    }
+
+    private void writeAscii(String value) throws IOException {
+        outputStream.write(value.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,85 @@
+package com.figaf.integration.apimgmt.utils;
+
+import com.figaf.integration.common.entity.ConnectionProperties;
+import com.figaf.integration.common.entity.RequestContext;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+import static com.figaf.integration.common.entity.AuthenticationType.OAUTH;
+import static java.lang.String.format;
+
+/**
+ * Helpers for per-tenant state (caches, limits) kept by the clients.
+ */
+public final class RequestContextUtils {
+
+    /**
+     * Tenant key of contexts which have neither host and user nor {@code restTemplateWrapperKey}
+     */
+    public static final String DEFAULT_TENANT_KEY = "default";
+
+    private RequestContextUtils() {
+    }
+
+    /**
+     * Identifies the tenant and the user of the request context: {@code <cloud platform type>|<host>|<user>}, where the user
+     * is the client id for OAuth and the username for basic authentication. Contexts without host or user are identified
+     * by {@code restTemplateWrapperKey}, the same key is used by integration-commons to share rest templates between requests.
+     * Contexts without both of them can't be told apart, so they share {@link #DEFAULT_TENANT_KEY}.
+     */
+    public static String getTenantKey(RequestContext requestContext) {
+        String host = getHost(requestContext);
+        String user = getUser(requestContext);
+        if (host != null && user != null) {
+            return format("%s|%s|%s", requestContext.getCloudPlatformType(), host.toLowerCase(Locale.ROOT), user);
+        }
+        if (requestContext.getRestTemplateWrapperKey() != null) {
+            return requestContext.getRestTemplateWrapperKey();
+        }
+        return DEFAULT_TENANT_KEY;
+    }
+
+    /**
+     * Identifies the tenant in metrics and logs without exposing the user: the lowercase host, or the first 16 hex digits
+     * of the SHA-256 hash of {@link #getTenantKey(RequestContext)} when the context has no host.
+     */
+    public static String getTenantTag(RequestContext requestContext) {
+        String host = getHost(requestContext);
+        if (host != null) {
+            return host.toLowerCase(Locale.ROOT);
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(getTenantKey(requestContext).getBytes(StandardCharsets.UTF_8));
+            StringBuilder tenantTag = new StringBuilder(16);
+            for (int i = 0; i < 8; i++) {
+                tenantTag.append(Character.forDigit((hash[i] >> 4) & 0xF, 16)).append(Character.forDigit(hash[i] & 0xF, 16));
+            }
+            return tenantTag.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not supported", ex);
+        }
+    }
+
+    /**
+     * @return host of the connection properties, {@code null} if it's not set
+     */
+    public static String getHost(RequestContext requestContext) {
+        ConnectionProperties connectionProperties = requestContext.getConnectionProperties();
+        return connectionProperties != null ? StringUtils.trimToNull(connectionProperties.getHost()) : null;
+    }
+
+    /**
+     * @return client id for OAuth and username for basic authentication, {@code null} if it's not set
+     */
+    public static String getUser(RequestContext requestContext) {
+        if (OAUTH.equals(requestContext.getAuthenticationType())) {
+            return StringUtils.trimToNull(requestContext.getClientId());
+        }
+        ConnectionProperties connectionProperties = requestContext.getConnectionProperties();
+        return connectionProperties != null ? StringUtils.trimToNull(connectionProperties.getUsername()) : null;
+    }
+}
@@ -1,7 +1,15 @@
 package com.figaf.integration.apimgmt.client;
 
 import com.figaf.integration.apimgmt.data_provider.AgentTestDataProvider;
+import com.figaf.integration.apimgmt.entity.ApiProxyInnerObjects;
 import com.figaf.integration.apimgmt.entity.ApiProxyMetaData;
+import com.figaf.integration.apimgmt.entity.BulkOperationResult;
+import com.figaf.integration.apimgmt.entity.ClientCallMetrics;
+import com.figaf.integration.apimgmt.entity.InventorySnapshot;
+import com.figaf.integration.apimgmt.entity.LandscapeInventory;
+import com.figaf.integration.apimgmt.entity.MetaDataChanges;
+import com.figaf.integration.apimgmt.entity.TenantInventory;
+import com.figaf.integration.apimgmt.utils.ApiProxyBundleDigest;
 import com.figaf.integration.common.data_provider.AgentTestData;
 import com.figaf.integration.common.entity.RequestContext;
 import com.figaf.integration.common.factory.HttpClientsFactory;
@@ -9,11 +17,25 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ArgumentsSource;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -41,6 +63,205 @@ class ApiProxyObjectClientTest {
         assertThat(apiObjectsMetaData).isNotEmpty();
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(AgentTestDataProvider.class)
+    void test_getApiObjectMetaDataWithCache(AgentTestData agentTestData) {
+        RequestContext requestContext = agentTestData.createRequestContext();
+        MetaDataCache metaDataCache = new MetaDataCache(Duration.ofMinutes(5), 10);
+        ApiProxyObjectClient cachingApiProxyObjectClient = new ApiProxyObjectClient(new HttpClientsFactory());
+        cachingApiProxyObjectClient.setMetaDataCache(metaDataCache);
+
+        List<ApiProxyMetaData> apiObjectsMetaData = cachingApiProxyObjectClient.getApiObjectMetaData(requestContext);
+        List<ApiProxyMetaData> cachedApiObjectsMetaData = cachingApiProxyObjectClient.getApiObjectMetaData(requestContext);
+
+        assertThat(metaDataCache.size()).isEqualTo(1);
+        assertThat(cachedApiObjectsMetaData)
+            .extracting(ApiProxyMetaData::getName)
+            .containsExactlyInAnyOrderElementsOf(apiObjectsMetaData.stream().map(ApiProxyMetaData::getName).collect(Collectors.toList()));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(AgentTestDataProvider.class)
+    void test_getApiObjectMetaDataAsync(AgentTestData agentTestData) {
+        RequestContext requestContext = agentTestData.createRequestContext();
+        AsyncApiProxyObjectClient asyncApiProxyObjectClient = new AsyncApiProxyObjectClient(apiProxyObjectClient);
+
+        List<ApiProxyMetaData> apiObjectsMetaData = asyncApiProxyObjectClient.getApiObjectMetaData(requestContext).join();
+        List<ApiProxyMetaData> loadedApiObjectsMetaData = apiObjectsMetaData.stream()
+            .limit(10)
+            .map(apiProxyMetaData -> asyncApiProxyObjectClient.getApiObjectMetaData(requestContext, apiProxyMetaData.getName()))
+            .collect(Collectors.toList())
+            .stream()
+            .map(CompletableFuture::join)
+            .collect(Collectors.toList());
+
+        assertThat(loadedApiObjectsMetaData)
+            .extracting(ApiProxyMetaData::getName)
+            .containsExactlyElementsOf(apiObjectsMetaData.stream().limit(10).map(ApiProxyMetaData::getName).collect(Collectors.toList()));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(AgentTestDataProvider.class)
+    void test_getApiObjectMetaDataWithMetricsListener(AgentTestData agentTestData) {
+        RequestContext requestContext = agentTestData.createRequestContext();
+        List<ClientCallMetrics> clientCallMetricsList = new CopyOnWriteArrayList<>();
+        ApiProxyObjectClient measuredApiProxyObjectClient = new ApiProxyObjectClient(new HttpClientsFactory());
+        measuredApiProxyObjectClient.setClientMetricsListener(clientCallMetricsList::add);
+
+        measuredApiProxyObjectClient.getApiObjectMetaData(requestContext);
+
+        assertThat(clientCallMetricsList).hasSize(1);
+        ClientCallMetrics clientCallMetrics = clientCallMetricsList.get(0);
+        assertThat(clientCallMetrics.getOperation()).isEqualTo("getApiObjectMetaData");
+        assertThat(clientCallMetrics.isSuccessful()).isTrue();
+        assertThat(clientCallMetrics.getResponseBytes()).isPositive();
+        assertThat(clientCallMetrics.getParseNanos()).isLessThanOrEqualTo(clientCallMetrics.getDurationNanos());
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(AgentTestDataProvider.class)
+    void test_getApiObjectMetaDataWithRequestCoalescer(AgentTestData agentTestData) {
+        RequestContext requestContext = agentTestData.createRequestContext();
+        ApiProxyObjectClient coalescingApiProxyObjectClient = new ApiProxyObjectClient(new HttpClientsFactory());
+        RequestCoalescer requestCoalescer = new RequestCoalescer();
+        coalescingApiProxyObjectClient.setRequestCoalescer(requestCoalescer);
+
+        List<List<ApiProxyMetaData>> apiObjectsMetaDataLists = Stream.generate(() -> CompletableFuture.supplyAsync(
+                () -> coalescingApiProxyObjectClient.getApiObjectMetaData(requestContext)
+            ))
+            .limit(4)
+            .collect(Collectors.toList())
+            .stream()
+            .map(CompletableFuture::join)
+            .collect(Collectors.toList());
+
+        assertThat(requestCoalescer.getInFlightRequestCount()).isZero();
+        List<ApiProxyMetaData> apiObjectsMetaData = apiObjectsMetaDataLists.get(0);
+        for (List<ApiProxyMetaData> otherApiObjectsMetaData : apiObjectsMetaDataLists.subList(1, apiObjectsMetaDataLists.size())) {
+            assertThat(otherApiObjectsMetaData).isNotSameAs(apiObjectsMetaData);
+            assertThat(otherApiObjectsMetaData)
+                .extracting(ApiProxyMetaData::getName)
+                .containsExactlyElementsOf(apiObjectsMetaData.stream().map(ApiProxyMetaData::getName).collect(Collectors.toList()));
+        }
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(AgentTestDataProvider.class)
+    void test_scanLandscape(AgentTestData agentTestData) {
+        RequestContext requestContext = agentTestData.createRequestContext();
+        LandscapeScanner landscapeScanner = new LandscapeScanner(
+            apiProxyObjectClient,
+            new KeyMapEntriesClient(new HttpClientsFactory()),
+            Duration.ofMinutes(5)
+        );
+
+        LandscapeInventory landscapeInventory = landscapeScanner.scan(Collections.singletonList(requestContext));
+
+        assertThat(landscapeInventory.isSuccessful()).isTrue();
+        assertThat(landscapeInventory.getTenantInventories()).hasSize(1);
+        TenantInventory tenantInventory = landscapeInventory.getTenantInventories().get(0);
+        assertThat(tenantInventory.isTimedOut()).isFalse();
+        assertThat(tenantInventory.getApiProxies())
+            .extracting(ApiProxyMetaData::getName)
+            .containsExactlyInAnyOrderElementsOf(apiProxyObjectClient.getApiObjectMetaData(requestContext).stream().map(ApiProxyMetaData::getName).collect(Collectors.toList()));
+        assertThat(tenantInventory.getKeyMapEntries()).isNotNull();
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(AgentTestDataProvider.class)
+    void test_refreshInventorySnapshot(AgentTestData agentTestData, @TempDir Path snapshotDirectory) {
+        RequestContext requestContext = agentTestData.createRequestContext();
+        KeyMapEntriesClient keyMapEntriesClient = new KeyMapEntriesClient(new HttpClientsFactory());
+        InventorySnapshot refreshedSnapshot = new InventorySnapshotStore(apiProxyObjectClient, keyMapEntriesClient, snapshotDirectory).refresh(requestContext);
+        assertThat(refreshedSnapshot.getApiProxies())
+            .extracting(ApiProxyMetaData::getName)
+            .containsExactlyInAnyOrderElementsOf(apiProxyObjectClient.getApiObjectMetaData(requestContext).stream().map(ApiProxyMetaData::getName).collect(Collectors.toList()));
+
+        InventorySnapshotStore inventorySnapshotStore = new InventorySnapshotStore(apiProxyObjectClient, keyMapEntriesClient, snapshotDirectory);
+        InventorySnapshot storedSnapshot = inventorySnapshotStore.getSnapshot(requestContext);
+        assertThat(storedSnapshot.getRefreshedAt()).isEqualTo(refreshedSnapshot.getRefreshedAt());
+        assertThat(storedSnapshot.getApiProxies()).hasSameSizeAs(refreshedSnapshot.getApiProxies());
+        assertThat(storedSnapshot.getKeyMapEntryToValues()).containsOnlyKeys(refreshedSnapshot.getKeyMapEntryToValues().keySet());
+
+        InventorySnapshot incrementallyRefreshedSnapshot = inventorySnapshotStore.refresh(requestContext);
+        assertThat(incrementallyRefreshedSnapshot.getApiProxies()).hasSameSizeAs(refreshedSnapshot.getApiProxies());
+        assertThat(incrementallyRefreshedSnapshot.getKeyMapEntries()).hasSameSizeAs(refreshedSnapshot.getKeyMapEntries());
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(AgentTestDataProvider.class)
+    void test_getInnerObjectsOfApiProxies(AgentTestData agentTestData) {
+        RequestContext requestContext = agentTestData.createRequestContext();
+        Set<String> innerObjectNames = new HashSet<>(Arrays.asList("proxyEndPoints", "targetEndPoints"));
+        Map<String, ApiProxyInnerObjects> apiProxyNameToInnerObjects = apiProxyObjectClient.getInnerObjectsOfApiProxies(requestContext, innerObjectNames, 5, Runnable::run);
+        assertThat(apiProxyNameToInnerObjects.keySet())
+            .containsExactlyInAnyOrderElementsOf(apiProxyObjectClient.getApiObjectMetaData(requestContext).stream().map(ApiProxyMetaData::getName).collect(Collectors.toList()));
+
+        String apiProxyName = apiProxyNameToInnerObjects.keySet().iterator().next();
+        Map<String, ApiProxyMetaData> innerObjectsNameToMetaData = apiProxyObjectClient.getApiObjectMetaDataForInnerObjects(requestContext, apiProxyName, innerObjectNames);
+        ApiProxyInnerObjects apiProxyInnerObjects = apiProxyNameToInnerObjects.get(apiProxyName);
+        for (String innerObjectName : innerObjectNames) {
+            assertThat(apiProxyInnerObjects.getInnerObjects(innerObjectName).keySet())
+                .allMatch(name -> innerObjectsNameToMetaData.containsKey(innerObjectName + "|" + name));
+        }
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(AgentTestDataProvider.class)
+    void test_getApiObjectMetaDataChangedSince(AgentTestData agentTestData) {
+        RequestContext requestContext = agentTestData.createRequestContext();
+        MetaDataChanges<ApiProxyMetaData> allApiObjectsMetaData = apiProxyObjectClient.getApiObjectMetaDataChangedSince(requestContext, null);
+        assertThat(allApiObjectsMetaData.getChangedItems()).isNotEmpty();
+        assertThat(allApiObjectsMetaData.getWatermark()).isNotNull();
+
+        MetaDataChanges<ApiProxyMetaData> changedApiObjectsMetaData = apiProxyObjectClient.getApiObjectMetaDataChangedSince(
+            requestContext,
+            allApiObjectsMetaData.getWatermark()
+        );
+        log.debug("{} API proxies were changed since {}", changedApiObjectsMetaData.getChangedItems().size(), allApiObjectsMetaData.getWatermark());
+
+        assertThat(changedApiObjectsMetaData.getWatermark()).isAfterOrEqualTo(allApiObjectsMetaData.getWatermark());
+        assertThat(changedApiObjectsMetaData.getChangedItems())
+            .allMatch(apiProxyMetaData -> apiProxyMetaData.getModificationDate().toInstant().isAfter(allApiObjectsMetaData.getWatermark()));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(AgentTestDataProvider.class)
+    void test_streamApiObjectMetaData(AgentTestData agentTestData) {
+        RequestContext requestContext = agentTestData.createRequestContext();
+        List<ApiProxyMetaData> apiObjectsMetaData = apiProxyObjectClient.getApiObjectMetaData(requestContext);
+        List<ApiProxyMetaData> streamedApiObjectsMetaData;
+        try (Stream<ApiProxyMetaData> apiObjectsMetaDataStream = apiProxyObjectClient.streamApiObjectMetaData(requestContext, 5)) {
+            streamedApiObjectsMetaData = apiObjectsMetaDataStream.collect(Collectors.toList());
+        }
+        log.debug("{} API proxies were streamed", streamedApiObjectsMetaData.size());
+
+        assertThat(streamedApiObjectsMetaData)
+            .extracting(ApiProxyMetaData::getName)
+            .containsExactlyInAnyOrderElementsOf(apiObjectsMetaData.stream().map(ApiProxyMetaData::getName).collect(Collectors.toList()));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(AgentTestDataProvider.class)
+    void test_downloadApiProxies(AgentTestData agentTestData) {
+        RequestContext requestContext = agentTestData.createRequestContext();
+        List<String> apiProxyNames = apiProxyObjectClient.getApiObjectMetaData(requestContext)
+            .stream()
+            .limit(3)
+            .map(ApiProxyMetaData::getName)
+            .collect(Collectors.toList());
+        Map<String, byte[]> apiProxyNameToBundle = new ConcurrentHashMap<>();
+
+        BulkOperationResult bulkOperationResult = apiProxyObjectClient.downloadApiProxies(
+            apiProxyNames,
+            requestContext,
+            apiProxyNameToBundle::put
+        );
+
+        assertThat(bulkOperationResult.isSuccessful()).as("Some api proxies weren't downloaded: %s", bulkOperationResult).isTrue();
+        assertThat(apiProxyNameToBundle).containsOnlyKeys(apiProxyNames);
+    }
+
     @ParameterizedTest
     @ArgumentsSource(AgentTestDataProvider.class)
     void test_privateApiProxyApiDelete(AgentTestData agentTestData) throws IOException {
@@ -52,6 +273,44 @@ class ApiProxyObjectClientTest {
         assertThat(apiProxyMetaData).as("Api Poxy %s wasn't deleted", API_TEST_API_PROXY_NAME).isNull();
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(AgentTestDataProvider.class)
+    void test_uploadApiProxyIfChanged(AgentTestData agentTestData) throws IOException {
+        RequestContext requestContext = agentTestData.createRequestContext(agentTestData.getTitle());
+        byte[] payload = IOUtils.toByteArray(
+            this.getClass().getClassLoader().getResource("client/FigafApiTestApiProxy.zip")
+        );
+        apiProxyObjectClient.uploadApiProxyIfChanged(requestContext, API_TEST_API_PROXY_NAME, payload);
+        ApiProxyMetaData apiProxyMetaData = apiProxyObjectClient.getApiObjectMetaData(requestContext, API_TEST_API_PROXY_NAME);
+        assertThat(apiProxyMetaData).as("Api Poxy %s wasn't uploaded", API_TEST_API_PROXY_NAME).isNotNull();
+
+        boolean uploaded = apiProxyObjectClient.uploadApiProxyIfChanged(requestContext, API_TEST_API_PROXY_NAME, payload);
+
+        assertThat(uploaded).as("Not changed api proxy %s was uploaded", API_TEST_API_PROXY_NAME).isFalse();
+        assertThat(apiProxyObjectClient.getApiObjectMetaData(requestContext, API_TEST_API_PROXY_NAME).getModificationDate())
+            .isEqualTo(apiProxyMetaData.getModificationDate());
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(AgentTestDataProvider.class)
+    void test_uploadApiProxyIfChangedWithLastUploadedDigest(AgentTestData agentTestData) throws IOException {
+        RequestContext requestContext = agentTestData.createRequestContext(agentTestData.getTitle());
+        byte[] payload = IOUtils.toByteArray(
+            this.getClass().getClassLoader().getResource("client/FigafApiTestApiProxy.zip")
+        );
+        String bundleDigest = ApiProxyBundleDigest.digest(new ByteArrayInputStream(payload));
+        apiProxyObjectClient.uploadApiProxy(requestContext, API_TEST_API_PROXY_NAME, payload);
+        ApiProxyMetaData apiProxyMetaData = apiProxyObjectClient.getApiObjectMetaData(requestContext, API_TEST_API_PROXY_NAME);
+
+        // a new client doesn't know the uploaded bundle, like a client of the next CI run
+        boolean uploaded = new ApiProxyObjectClient(new HttpClientsFactory())
+            .uploadApiProxyIfChanged(requestContext, API_TEST_API_PROXY_NAME, payload, bundleDigest);
+
+        assertThat(uploaded).as("Not changed api proxy %s was uploaded", API_TEST_API_PROXY_NAME).isFalse();
+        assertThat(apiProxyObjectClient.getApiObjectMetaData(requestContext, API_TEST_API_PROXY_NAME).getModificationDate())
+            .isEqualTo(apiProxyMetaData.getModificationDate());
+    }
+
     private ApiProxyMetaData createDummyApiProxy(RequestContext requestContext) throws IOException {
         byte[] payload = IOUtils.toByteArray(
             this.getClass().getClassLoader().getResource("client/FigafApiTestApiProxy.zip")
@@ -0,0 +1,165 @@
+package com.figaf.integration.apimgmt.client;
+
+import com.figaf.integration.common.entity.ConnectionProperties;
+import com.figaf.integration.common.entity.RequestContext;
+import com.figaf.integration.common.exception.ClientIntegrationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsrfTokenCacheTest {
+
+    private static final String HOST = "tenant.example.com";
+    private static final String API_PROXIES = "/apiportal/api/1.0/Management.svc/APIProxies";
+    private static final String API_PROXY = "/apiportal/api/1.0/Management.svc/APIProxies('FigafApiTestApiProxy')";
+
+    private final CsrfTokenCache csrfTokenCache = new CsrfTokenCache();
+    private final AtomicInteger tokenFetches = new AtomicInteger();
+
+    @Test
+    void test_reuseTokenOfSession() {
+        RequestContext requestContext = createRequestContext(HOST, "user");
+        List<String> urls = new ArrayList<>();
+        List<String> sentTokens = new ArrayList<>();
+        CsrfTokenCache.SessionRequest<Boolean> request = (url, token, restTemplate) -> urls.add(url) && sentTokens.add(token);
+
+        execute(requestContext, API_PROXIES, request);
+        execute(requestContext, API_PROXIES, request);
+        execute(requestContext, API_PROXY, request);
+
+        assertThat(tokenFetches).hasValue(1);
+        assertThat(sentTokens).containsExactly("token-1", "token-1", "token-1");
+        assertThat(urls).containsExactly("https://" + HOST + API_PROXIES, "https://" + HOST + API_PROXIES, "https://" + HOST + API_PROXY);
+    }
+
+    @Test
+    void test_fetchNewTokenWhenTokenIsRequired() {
+        HttpHeaders responseHeaders = new HttpHeaders();
+        responseHeaders.add("X-CSRF-Token", "Required");
+        assertNewTokenIsFetchedAfter(createException(HttpStatus.FORBIDDEN, responseHeaders, ""));
+    }
+
+    @Test
+    void test_fetchNewTokenWhenValidationFailed() {
+        assertNewTokenIsFetchedAfter(createException(HttpStatus.FORBIDDEN, new HttpHeaders(), "CSRF token validation failed"));
+    }
+
+    @Test
+    void test_fetchNewTokenWhenSessionIsExpired() {
+        assertNewTokenIsFetchedAfter(createException(HttpStatus.UNAUTHORIZED, new HttpHeaders(), ""));
+    }
+
+    @Test
+    void test_fetchNewTokenWhenRejectionIsWrapped() {
+        HttpClientErrorException forbidden = createException(HttpStatus.FORBIDDEN, new HttpHeaders(), "CSRF token validation failed");
+        assertNewTokenIsFetchedAfter(new ClientIntegrationException("Couldn't update api proxy", forbidden));
+    }
+
+    @Test
+    void test_keepTokenAfterOtherErrors() {
+        RequestContext requestContext = createRequestContext(HOST, "user");
+        execute(requestContext, API_PROXY, (url, token, restTemplate) -> token);
+        HttpClientErrorException forbidden = createException(HttpStatus.FORBIDDEN, new HttpHeaders(), "Not authorized to update api proxies");
+
+        assertThatThrownBy(() -> execute(requestContext, API_PROXY, (url, token, restTemplate) -> {
+            throw forbidden;
+        })).isSameAs(forbidden);
+        String nextToken = execute(requestContext, API_PROXY, (url, token, restTemplate) -> token);
+
+        assertThat(tokenFetches).hasValue(1);
+        assertThat(nextToken).isEqualTo("token-1");
+    }
+
+    @Test
+    void test_notShareTokenBetweenUsersAndHosts() {
+        CsrfTokenCache.SessionRequest<String> request = (url, token, restTemplate) -> token;
+
+        assertThat(execute(createRequestContext(HOST, "user"), API_PROXIES, request)).isEqualTo("token-1");
+        assertThat(execute(createRequestContext(HOST, "other-user"), API_PROXIES, request)).isEqualTo("token-2");
+        assertThat(execute(createRequestContext("other-" + HOST, "user"), API_PROXIES, request)).isEqualTo("token-3");
+        assertThat(execute(createRequestContext(HOST, "user"), API_PROXIES, request)).isEqualTo("token-1");
+    }
+
+    @Test
+    void test_fetchNewTokenAfterInvalidation() {
+        RequestContext requestContext = createRequestContext(HOST, "user");
+        CsrfTokenCache.SessionRequest<String> request = (url, token, restTemplate) -> token;
+
+        execute(requestContext, API_PROXIES, request);
+        csrfTokenCache.invalidate(requestContext);
+
+        assertThat(execute(requestContext, API_PROXIES, request)).isEqualTo("token-2");
+    }
+
+    @Test
+    void test_executeWithNewTokenCachesSession() {
+        RequestContext requestContext = createRequestContext(HOST, "user");
+        CsrfTokenCache.SessionRequest<String> request = (url, token, restTemplate) -> token;
+
+        assertThat(csrfTokenCache.executeWithNewToken(requestContext, API_PROXIES, request, fetchToken(requestContext, API_PROXIES))).isEqualTo("token-1");
+        assertThat(csrfTokenCache.executeWithNewToken(requestContext, API_PROXIES, request, fetchToken(requestContext, API_PROXIES))).isEqualTo("token-2");
+        assertThat(execute(requestContext, API_PROXIES, request)).isEqualTo("token-2");
+    }
+
+    private void assertNewTokenIsFetchedAfter(RuntimeException rejection) {
+        RequestContext requestContext = createRequestContext(HOST, "user");
+        execute(requestContext, API_PROXY, (url, token, restTemplate) -> token);
+        List<String> sentTokens = new ArrayList<>();
+
+        String result = execute(requestContext, API_PROXY, (url, token, restTemplate) -> {
+            sentTokens.add(token);
+            if ("token-1".equals(token)) {
+                throw rejection;
+            }
+            return "updated";
+        });
+        String nextToken = execute(requestContext, API_PROXY, (url, token, restTemplate) -> token);
+
+        assertThat(result).isEqualTo("updated");
+        assertThat(sentTokens).containsExactly("token-1", "token-2");
+        assertThat(nextToken).isEqualTo("token-2");
+        assertThat(tokenFetches).hasValue(2);
+    }
+
+    private <R> R execute(RequestContext requestContext, String path, CsrfTokenCache.SessionRequest<R> request) {
+        return csrfTokenCache.execute(requestContext, path, request, fetchToken(requestContext, path));
+    }
+
+    /**
+     * Works like {@code executeMethod} of the clients: fetches a new token and sends the request to the host of the context.
+     */
+    private <R> Function<CsrfTokenCache.SessionRequest<R>, R> fetchToken(RequestContext requestContext, String path) {
+        String url = "https://" + requestContext.getConnectionProperties().getHost() + path;
+        return request -> request.execute(url, "token-" + tokenFetches.incrementAndGet(), new RestTemplate());
+    }
+
+    private static RequestContext createRequestContext(String host, String username) {
+        ConnectionProperties connectionProperties = new ConnectionProperties();
+        connectionProperties.setHost(host);
+        connectionProperties.setUsername(username);
+        RequestContext requestContext = new RequestContext();
+        requestContext.setConnectionProperties(connectionProperties);
+        return requestContext;
+    }
+
+    private static HttpClientErrorException createException(HttpStatus httpStatus, HttpHeaders responseHeaders, String responseBody) {
+        return new HttpClientErrorException(
+                httpStatus,
+                httpStatus.getReasonPhrase(),
+                responseHeaders,
+                responseBody.getBytes(StandardCharsets.UTF_8),
+                StandardCharsets.UTF_8
+        );
+    }
+}
@@ -1,7 +1,9 @@
 package com.figaf.integration.apimgmt.client;
 
 import com.figaf.integration.apimgmt.data_provider.AgentTestDataProvider;
+import com.figaf.integration.apimgmt.entity.KeyMapBatchUpdateSettings;
 import com.figaf.integration.apimgmt.entity.KeyMapEntryMetaData;
+import com.figaf.integration.apimgmt.entity.KeyMapEntryUpdateResult;
 import com.figaf.integration.apimgmt.entity.KeyMapEntryValue;
 import com.figaf.integration.common.data_provider.AgentTestData;
 import com.figaf.integration.common.entity.RequestContext;
@@ -12,7 +14,9 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ArgumentsSource;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatNoException;
@@ -40,6 +44,16 @@ class KeyMapEntriesClientTest {
         assertThat(keyMapEntries).isNotEmpty();
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(AgentTestDataProvider.class)
+    void test_isKeyMapEntryExist(AgentTestData agentTestData) {
+        RequestContext requestContext = agentTestData.createRequestContext();
+        KeyMapEntryMetaData keyMapEntryMetaData = getOrCreateDummyKeyMapEntry(requestContext);
+
+        assertThat(keyMapEntriesClient.isKeyMapEntryExist(keyMapEntryMetaData.getName(), requestContext)).isTrue();
+        assertThat(keyMapEntriesClient.isKeyMapEntryExist("NOT-EXISTING-KEY-MAP-ENTRY", requestContext)).isFalse();
+    }
+
     @ParameterizedTest
     @ArgumentsSource(AgentTestDataProvider.class)
     void test_createOrUpdateKeyMapEntry(AgentTestData agentTestData) {
@@ -49,6 +63,28 @@ class KeyMapEntriesClientTest {
         assertThatNoException().isThrownBy(() -> keyMapEntriesClient.createOrUpdateKeyMapEntry(keyMapEntryMetaData, requestContext));
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(AgentTestDataProvider.class)
+    void test_updateKeyMapEntryInChunks(AgentTestData agentTestData) {
+        RequestContext requestContext = agentTestData.createRequestContext();
+        getOrCreateDummyKeyMapEntry(requestContext);
+        Map<String, String> keyToValueMap = new HashMap<>();
+        keyToValueMap.put("key", "value");
+        keyToValueMap.put("key1", "value1");
+        keyToValueMap.put("key2", "value2");
+
+        KeyMapEntryUpdateResult keyMapEntryUpdateResult = keyMapEntriesClient.updateKeyMapEntry(
+            API_TEST_KEY_MAP_ENTRY_NAME,
+            keyToValueMap,
+            requestContext,
+            new KeyMapBatchUpdateSettings(1, 2)
+        );
+
+        assertThat(keyMapEntryUpdateResult.isSuccessful()).as("Some chunks weren't applied: %s", keyMapEntryUpdateResult).isTrue();
+        assertThat(keyMapEntryUpdateResult.getFailedOperationResults()).isEmpty();
+        assertThat(keyMapEntriesClient.getKeyToValueMap(API_TEST_KEY_MAP_ENTRY_NAME, requestContext)).isEqualTo(keyToValueMap);
+    }
+
     @ParameterizedTest
     @ArgumentsSource(AgentTestDataProvider.class)
     void test_privateKeyMapEntryApiDelete(AgentTestData agentTestData) {
@@ -60,6 +96,23 @@ class KeyMapEntriesClientTest {
         assertThat(keyMapEntryMetaData).as("Key map entry %s wasn't deleted", API_TEST_KEY_MAP_ENTRY_NAME).isNull();
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(AgentTestDataProvider.class)
+    void test_createOrUpdateKeyMapEntryValue(AgentTestData agentTestData) {
+        RequestContext requestContext = agentTestData.createRequestContext();
+        getOrCreateDummyKeyMapEntry(requestContext);
+
+        keyMapEntriesClient.createOrUpdateKeyMapEntryValue(API_TEST_KEY_MAP_ENTRY_NAME, "pointKey", "value1", requestContext);
+        keyMapEntriesClient.createOrUpdateKeyMapEntryValue(API_TEST_KEY_MAP_ENTRY_NAME, "pointKey", "value2", requestContext);
+
+        KeyMapEntryValue keyMapEntryValue = keyMapEntriesClient.getKeyMapEntryValue(API_TEST_KEY_MAP_ENTRY_NAME, "pointKey", requestContext);
+        assertThat(keyMapEntryValue).isNotNull();
+        assertThat(keyMapEntryValue.getValue()).isEqualTo("value2");
+        assertThat(keyMapEntriesClient.getKeyMapEntryValue(API_TEST_KEY_MAP_ENTRY_NAME, "notExistingKey", requestContext)).isNull();
+
+        keyMapEntriesClient.deleteKeyMapEntryValue(API_TEST_KEY_MAP_ENTRY_NAME, "pointKey", requestContext);
+    }
+
     private KeyMapEntryMetaData createDummyKeyMapEntry(RequestContext requestContext) {
         KeyMapEntryMetaData keyMapEntryMetaData = prepareKeyMapEntryMetaData();
         keyMapEntriesClient.createOrUpdateKeyMapEntry(keyMapEntryMetaData, requestContext);
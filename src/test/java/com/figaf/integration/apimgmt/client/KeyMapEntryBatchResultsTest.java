@@ -0,0 +1,122 @@
+package com.figaf.integration.apimgmt.client;
+
+import com.figaf.integration.apimgmt.entity.KeyMapEntryValueOperation;
+import com.figaf.integration.apimgmt.entity.KeyMapEntryValueOperationResult;
+import com.figaf.integration.common.exception.ClientIntegrationException;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.figaf.integration.apimgmt.entity.KeyMapEntryValueOperation.Type.ADD;
+import static com.figaf.integration.apimgmt.entity.KeyMapEntryValueOperation.Type.DELETE;
+import static com.figaf.integration.apimgmt.entity.KeyMapEntryValueOperation.Type.UPDATE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Mapping of captured $batch responses to the operations of the request.
+ */
+class KeyMapEntryBatchResultsTest {
+
+    private static final String KEY_MAP_ENTRY = "FigafApiTestKeyMapEntry";
+
+    @Test
+    void test_mapResponsesToOperations() throws IOException {
+        List<List<KeyMapEntryValueOperation>> changeSets = Arrays.asList(
+                Arrays.asList(
+                        new KeyMapEntryValueOperation(ADD, KEY_MAP_ENTRY, "key1", "value1"),
+                        new KeyMapEntryValueOperation(UPDATE, KEY_MAP_ENTRY, "key2", "value2")
+                ),
+                Collections.singletonList(new KeyMapEntryValueOperation(DELETE, KEY_MAP_ENTRY, "key3", null))
+        );
+
+        List<KeyMapEntryValueOperationResult> operationResults = KeyMapEntriesClient.buildOperationResults(
+                changeSets,
+                createResponse("response_parser/batch_response_successful.txt", "batch_6c0e7a1e-2cf4-4d4e-9f0c-5b2d1f0a9e31")
+        );
+
+        assertThat(operationResults).extracting(KeyMapEntryValueOperationResult::getOperation)
+                .containsExactly(changeSets.get(0).get(0), changeSets.get(0).get(1), changeSets.get(1).get(0));
+        assertThat(operationResults).extracting(KeyMapEntryValueOperationResult::getStatusCode).containsExactly(201, 204, 204);
+        assertThat(operationResults).allMatch(KeyMapEntryValueOperationResult::isSuccessful);
+        assertThat(operationResults).extracting(KeyMapEntryValueOperationResult::getErrorMessage).containsOnlyNulls();
+    }
+
+    @Test
+    void test_applyErrorOfRejectedChangeSetToAllItsOperations() throws IOException {
+        List<List<KeyMapEntryValueOperation>> changeSets = Arrays.asList(
+                Arrays.asList(
+                        new KeyMapEntryValueOperation(UPDATE, KEY_MAP_ENTRY, "key1", "value1"),
+                        new KeyMapEntryValueOperation(DELETE, KEY_MAP_ENTRY, "key3", null)
+                ),
+                Arrays.asList(
+                        new KeyMapEntryValueOperation(ADD, KEY_MAP_ENTRY, "key2", "value2"),
+                        new KeyMapEntryValueOperation(ADD, KEY_MAP_ENTRY, "key4", "value4"),
+                        new KeyMapEntryValueOperation(UPDATE, KEY_MAP_ENTRY, "key5", "value5")
+                )
+        );
+
+        List<KeyMapEntryValueOperationResult> operationResults = KeyMapEntriesClient.buildOperationResults(
+                changeSets,
+                createResponse("response_parser/batch_response_rejected_changeset.txt", "\"batch_1f2e3d4c-5b6a-4978-8a9b-0c1d2e3f4a5b\"")
+        );
+
+        assertThat(operationResults).hasSize(5);
+        assertThat(operationResults.subList(0, 2)).allMatch(KeyMapEntryValueOperationResult::isSuccessful);
+        assertThat(operationResults.subList(2, 5)).extracting(KeyMapEntryValueOperationResult::getOperation)
+                .containsExactlyElementsOf(changeSets.get(1));
+        assertThat(operationResults.subList(2, 5)).allSatisfy(operationResult -> {
+            assertThat(operationResult.isSuccessful()).isFalse();
+            assertThat(operationResult.getStatusCode()).isEqualTo(400);
+            assertThat(operationResult.getErrorMessage())
+                    .isEqualTo("Key map entry value with name 'key2' already exists in key map entry 'FigafApiTestKeyMapEntry'");
+        });
+    }
+
+    @Test
+    void test_rejectResponseWithOtherNumberOfChangeSets() throws IOException {
+        List<List<KeyMapEntryValueOperation>> changeSets = Collections.singletonList(
+                Collections.singletonList(new KeyMapEntryValueOperation(DELETE, KEY_MAP_ENTRY, "key3", null))
+        );
+        ResponseEntity<String> response = createResponse("response_parser/batch_response_successful.txt", "batch_6c0e7a1e-2cf4-4d4e-9f0c-5b2d1f0a9e31");
+
+        assertThatThrownBy(() -> KeyMapEntriesClient.buildOperationResults(changeSets, response))
+                .isInstanceOf(ClientIntegrationException.class)
+                .hasMessage("$batch response contains 2 parts, but 1 changesets were sent");
+    }
+
+    @Test
+    void test_rejectResponseWithOtherNumberOfOperations() throws IOException {
+        List<List<KeyMapEntryValueOperation>> changeSets = Arrays.asList(
+                Arrays.asList(
+                        new KeyMapEntryValueOperation(ADD, KEY_MAP_ENTRY, "key1", "value1"),
+                        new KeyMapEntryValueOperation(UPDATE, KEY_MAP_ENTRY, "key2", "value2"),
+                        new KeyMapEntryValueOperation(UPDATE, KEY_MAP_ENTRY, "key5", "value5")
+                ),
+                Collections.singletonList(new KeyMapEntryValueOperation(DELETE, KEY_MAP_ENTRY, "key3", null))
+        );
+        ResponseEntity<String> response = createResponse("response_parser/batch_response_successful.txt", "batch_6c0e7a1e-2cf4-4d4e-9f0c-5b2d1f0a9e31");
+
+        assertThatThrownBy(() -> KeyMapEntriesClient.buildOperationResults(changeSets, response))
+                .isInstanceOf(ClientIntegrationException.class)
+                .hasMessage("$batch response contains 2 responses for changeset 0 with 3 operations");
+    }
+
+    private static ResponseEntity<String> createResponse(String resourceName, String boundary) throws IOException {
+        HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.add(HttpHeaders.CONTENT_TYPE, "multipart/mixed; boundary=" + boundary);
+        try (InputStream inputStream = KeyMapEntryBatchResultsTest.class.getClassLoader().getResourceAsStream(resourceName)) {
+            assertThat(inputStream).as(resourceName).isNotNull();
+            return new ResponseEntity<>(IOUtils.toString(inputStream, StandardCharsets.UTF_8), httpHeaders, HttpStatus.ACCEPTED);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.figaf.integration.apimgmt.client;
+
+import com.figaf.integration.common.entity.RequestContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.fail;
+
+class RequestCoalescerTest {
+
+    private static final String PATH = "/apiportal/api/1.0/Management.svc/APIProxies?$format=json";
+
+    private final RequestCoalescer requestCoalescer = new RequestCoalescer();
+    private final RequestContext requestContext = createRequestContext("tenant");
+    private final AtomicInteger requests = new AtomicInteger();
+    private final CountDownLatch requestStarted = new CountDownLatch(1);
+    private final CountDownLatch requestReleased = new CountDownLatch(1);
+    private final List<Thread> threads = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        requestReleased.countDown();
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    @Test
+    void test_callersGetOwnCopiesOfSharedResult() throws Exception {
+        List<String> sharedResult = new ArrayList<>(Arrays.asList("proxy1", "proxy2"));
+
+        FutureTask<List<String>> firstCall = startInFlightCall(blockingRequest(() -> sharedResult));
+        FutureTask<List<String>> secondCall = startWaitingCall(this::unexpectedRequest);
+        requestReleased.countDown();
+        List<String> firstResult = firstCall.get(10, TimeUnit.SECONDS);
+        List<String> secondResult = secondCall.get(10, TimeUnit.SECONDS);
+
+        assertThat(requests).hasValue(1);
+        assertThat(firstResult).containsExactly("proxy1", "proxy2").isNotSameAs(sharedResult);
+        assertThat(secondResult).containsExactly("proxy1", "proxy2").isNotSameAs(sharedResult).isNotSameAs(firstResult);
+        firstResult.clear();
+        assertThat(secondResult).containsExactly("proxy1", "proxy2");
+        assertThat(requestCoalescer.getInFlightRequestCount()).isZero();
+    }
+
+    @Test
+    void test_callersGetSameException() throws Exception {
+        IllegalStateException failure = new IllegalStateException("Couldn't get api proxies");
+
+        FutureTask<List<String>> firstCall = startInFlightCall(blockingRequest(() -> {
+            throw failure;
+        }));
+        FutureTask<List<String>> secondCall = startWaitingCall(this::unexpectedRequest);
+        FutureTask<List<String>> thirdCall = startWaitingCall(this::unexpectedRequest);
+        requestReleased.countDown();
+
+        for (FutureTask<List<String>> call : Arrays.asList(firstCall, secondCall, thirdCall)) {
+            assertThatThrownBy(() -> call.get(10, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseReference(failure);
+        }
+        assertThat(requests).hasValue(1);
+        assertThat(requestCoalescer.getInFlightRequestCount()).isZero();
+    }
+
+    @Test
+    void test_notCoalesceOtherRequests() throws Exception {
+        FutureTask<List<String>> inFlightCall = startInFlightCall(blockingRequest(() -> new ArrayList<>()));
+
+        // the first call is still in flight, so these requests would wait for it if they were coalesced
+        requestCoalescer.execute(requestContext, "getApiObjectMetaData", PATH + "&$top=1", countedRequest(), ArrayList::new);
+        requestCoalescer.execute(requestContext, "getApiObjectCount", PATH, countedRequest(), ArrayList::new);
+        requestCoalescer.execute(createRequestContext("other-tenant"), "getApiObjectMetaData", PATH, countedRequest(), ArrayList::new);
+        requestReleased.countDown();
+        inFlightCall.get(10, TimeUnit.SECONDS);
+
+        assertThat(requests).hasValue(4);
+    }
+
+    @Test
+    void test_sendNewRequestAfterCompletion() {
+        requestCoalescer.execute(requestContext, "getApiObjectMetaData", PATH, countedRequest(), ArrayList::new);
+        requestCoalescer.execute(requestContext, "getApiObjectMetaData", PATH, countedRequest(), ArrayList::new);
+
+        assertThat(requests).hasValue(2);
+        assertThat(requestCoalescer.getInFlightRequestCount()).isZero();
+    }
+
+    @Test
+    void test_notCopyNullResult() {
+        List<String> result = requestCoalescer.execute(requestContext, "getApiObjectMetaData", PATH, () -> null, copiedResult -> {
+            throw new AssertionError("null result mustn't be copied");
+        });
+
+        assertThat(result).isNull();
+    }
+
+    private FutureTask<List<String>> startInFlightCall(Supplier<List<String>> request) throws InterruptedException {
+        FutureTask<List<String>> call = start(() -> requestCoalescer.execute(requestContext, "getApiObjectMetaData", PATH, request, ArrayList::new));
+        assertThat(requestStarted.await(10, TimeUnit.SECONDS)).as("request is started").isTrue();
+        return call;
+    }
+
+    /**
+     * Returns when the call waits for the request in flight.
+     */
+    private FutureTask<List<String>> startWaitingCall(Supplier<List<String>> request) throws InterruptedException {
+        FutureTask<List<String>> call = start(() -> requestCoalescer.execute(requestContext, "getApiObjectMetaData", PATH, request, ArrayList::new));
+        Thread thread = threads.get(threads.size() - 1);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (thread.getState() != Thread.State.WAITING && !call.isDone()) {
+            assertThat(System.nanoTime()).as("call is waiting").isLessThan(deadline);
+            Thread.sleep(1);
+        }
+        return call;
+    }
+
+    private FutureTask<List<String>> start(Callable<List<String>> callable) {
+        FutureTask<List<String>> call = new FutureTask<>(callable);
+        Thread thread = new Thread(call);
+        threads.add(thread);
+        thread.start();
+        return call;
+    }
+
+    private Supplier<List<String>> blockingRequest(Supplier<List<String>> request) {
+        return () -> {
+            requests.incrementAndGet();
+            requestStarted.countDown();
+            try {
+                requestReleased.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return request.get();
+        };
+    }
+
+    private Supplier<List<String>> countedRequest() {
+        return () -> {
+            requests.incrementAndGet();
+            return new ArrayList<>();
+        };
+    }
+
+    private List<String> unexpectedRequest() {
+        return fail("the request in flight should have been shared");
+    }
+
+    private static RequestContext createRequestContext(String restTemplateWrapperKey) {
+        RequestContext requestContext = new RequestContext();
+        requestContext.setRestTemplateWrapperKey(restTemplateWrapperKey);
+        return requestContext;
+    }
+}
@@ -0,0 +1,195 @@
+package com.figaf.integration.apimgmt.client;
+
+import com.figaf.integration.apimgmt.entity.RateLimitSettings;
+import com.figaf.integration.common.entity.RequestContext;
+import com.figaf.integration.common.exception.ClientIntegrationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TenantRateLimiterTest {
+
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @Test
+    void test_retryAfterSeconds() {
+        TenantRateLimiter tenantRateLimiter = new TenantRateLimiter(createRateLimitSettings());
+        HttpStatusCodeException throttlingException = createException(HttpStatus.TOO_MANY_REQUESTS, "1");
+
+        long startTime = System.nanoTime();
+        String result = tenantRateLimiter.execute(createRequestContext(), HttpMethod.GET, failFirstAttempts(1, throttlingException));
+
+        assertThat(result).isEqualTo("result");
+        assertThat(attempts).hasValue(2);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)).isGreaterThanOrEqualTo(900);
+    }
+
+    @Test
+    void test_retryAfterHttpDate() {
+        TenantRateLimiter tenantRateLimiter = new TenantRateLimiter(createRateLimitSettings());
+        // the date has no fraction of a second, so the delay is between 1 and 2 seconds
+        String retryAfter = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(2));
+        HttpStatusCodeException throttlingException = createException(HttpStatus.SERVICE_UNAVAILABLE, retryAfter);
+
+        long startTime = System.nanoTime();
+        String result = tenantRateLimiter.execute(createRequestContext(), HttpMethod.GET, failFirstAttempts(1, throttlingException));
+
+        assertThat(result).isEqualTo("result");
+        assertThat(attempts).hasValue(2);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)).isGreaterThanOrEqualTo(900);
+    }
+
+    @Test
+    void test_pauseOtherRequestsOfTenantAfterRetryAfter() {
+        TenantRateLimiter tenantRateLimiter = new TenantRateLimiter(createRateLimitSettings());
+        RequestContext requestContext = createRequestContext();
+        HttpStatusCodeException throttlingException = createException(HttpStatus.TOO_MANY_REQUESTS, "1");
+
+        // POST isn't retried, but the pause applies to the next request of the tenant
+        assertThatThrownBy(() -> tenantRateLimiter.execute(requestContext, HttpMethod.POST, failFirstAttempts(1, throttlingException)))
+                .isSameAs(throttlingException);
+        long startTime = System.nanoTime();
+        tenantRateLimiter.execute(requestContext, HttpMethod.GET, () -> "result");
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)).isGreaterThanOrEqualTo(900);
+    }
+
+    @Test
+    void test_retryWithBackoffWithoutRetryAfter() {
+        TenantRateLimiter tenantRateLimiter = new TenantRateLimiter(createRateLimitSettings());
+        HttpStatusCodeException throttlingException = createException(HttpStatus.SERVICE_UNAVAILABLE, null);
+
+        String result = tenantRateLimiter.execute(createRequestContext(), HttpMethod.GET, failFirstAttempts(2, throttlingException));
+
+        assertThat(result).isEqualTo("result");
+        assertThat(attempts).hasValue(3);
+    }
+
+    @Test
+    void test_retryWrappedThrottlingException() {
+        TenantRateLimiter tenantRateLimiter = new TenantRateLimiter(createRateLimitSettings());
+        ClientIntegrationException wrappedException = new ClientIntegrationException(
+                "Couldn't get api proxies",
+                createException(HttpStatus.TOO_MANY_REQUESTS, null)
+        );
+
+        String result = tenantRateLimiter.execute(createRequestContext(), HttpMethod.GET, failFirstAttempts(1, wrappedException));
+
+        assertThat(result).isEqualTo("result");
+        assertThat(attempts).hasValue(2);
+    }
+
+    @Test
+    void test_failAfterMaxRetries() {
+        RateLimitSettings rateLimitSettings = createRateLimitSettings();
+        rateLimitSettings.setMaxRetries(2);
+        TenantRateLimiter tenantRateLimiter = new TenantRateLimiter(rateLimitSettings);
+        HttpStatusCodeException throttlingException = createException(HttpStatus.TOO_MANY_REQUESTS, null);
+
+        assertThatThrownBy(() -> tenantRateLimiter.execute(createRequestContext(), HttpMethod.GET, failFirstAttempts(10, throttlingException)))
+                .isSameAs(throttlingException);
+        assertThat(attempts).hasValue(3);
+    }
+
+    @Test
+    void test_failWhenRetryAfterExceedsMaxBackoff() {
+        TenantRateLimiter tenantRateLimiter = new TenantRateLimiter(createRateLimitSettings());
+        HttpStatusCodeException throttlingException = createException(HttpStatus.TOO_MANY_REQUESTS, "3600");
+
+        long startTime = System.nanoTime();
+        assertThatThrownBy(() -> tenantRateLimiter.execute(createRequestContext(), HttpMethod.GET, failFirstAttempts(1, throttlingException)))
+                .isSameAs(throttlingException);
+
+        assertThat(attempts).hasValue(1);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)).isLessThan(1000);
+    }
+
+    @Test
+    void test_notRetryWrites() {
+        TenantRateLimiter tenantRateLimiter = new TenantRateLimiter(createRateLimitSettings());
+        HttpStatusCodeException throttlingException = createException(HttpStatus.TOO_MANY_REQUESTS, null);
+
+        assertThatThrownBy(() -> tenantRateLimiter.execute(createRequestContext(), HttpMethod.PUT, failFirstAttempts(1, throttlingException)))
+                .isSameAs(throttlingException);
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void test_notRetryOtherErrors() {
+        TenantRateLimiter tenantRateLimiter = new TenantRateLimiter(createRateLimitSettings());
+        HttpStatusCodeException notFoundException = createException(HttpStatus.NOT_FOUND, "1");
+
+        assertThatThrownBy(() -> tenantRateLimiter.execute(createRequestContext(), HttpMethod.GET, failFirstAttempts(1, notFoundException)))
+                .isSameAs(notFoundException);
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void test_limitRateAfterThrottling() {
+        RateLimitSettings rateLimitSettings = createRateLimitSettings();
+        TenantRateLimiter tenantRateLimiter = new TenantRateLimiter(rateLimitSettings);
+        RequestContext requestContext = createRequestContext();
+        assertThat(tenantRateLimiter.getRequestsPerSecond(requestContext)).isZero();
+
+        tenantRateLimiter.execute(requestContext, HttpMethod.GET, failFirstAttempts(1, createException(HttpStatus.TOO_MANY_REQUESTS, null)));
+
+        assertThat(tenantRateLimiter.getRequestsPerSecond(requestContext)).isGreaterThanOrEqualTo(rateLimitSettings.getMinRequestsPerSecond());
+    }
+
+    @Test
+    void test_rejectInvalidSettings() {
+        RateLimitSettings rateLimitSettings = createRateLimitSettings();
+        rateLimitSettings.setDecreaseFactor(1);
+        assertThatThrownBy(() -> new TenantRateLimiter(rateLimitSettings)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Supplier<String> failFirstAttempts(int failedAttempts, RuntimeException exception) {
+        return () -> {
+            if (attempts.incrementAndGet() <= failedAttempts) {
+                throw exception;
+            }
+            return "result";
+        };
+    }
+
+    // the minimal rate is high, so that only Retry-After and the backoff delay the retries
+    private static RateLimitSettings createRateLimitSettings() {
+        RateLimitSettings rateLimitSettings = new RateLimitSettings();
+        rateLimitSettings.setMinRequestsPerSecond(1000);
+        rateLimitSettings.setInitialBackoffMillis(10);
+        rateLimitSettings.setMaxBackoffMillis(5000);
+        return rateLimitSettings;
+    }
+
+    private static RequestContext createRequestContext() {
+        RequestContext requestContext = new RequestContext();
+        requestContext.setRestTemplateWrapperKey("tenant");
+        return requestContext;
+    }
+
+    private static HttpStatusCodeException createException(HttpStatus httpStatus, String retryAfter) {
+        HttpHeaders responseHeaders = new HttpHeaders();
+        if (retryAfter != null) {
+            responseHeaders.add("Retry-After", retryAfter);
+        }
+        byte[] responseBody = httpStatus.getReasonPhrase().getBytes(StandardCharsets.UTF_8);
+        return httpStatus.is5xxServerError()
+                ? new HttpServerErrorException(httpStatus, httpStatus.getReasonPhrase(), responseHeaders, responseBody, StandardCharsets.UTF_8)
+                : new HttpClientErrorException(httpStatus, httpStatus.getReasonPhrase(), responseHeaders, responseBody, StandardCharsets.UTF_8);
+    }
+}
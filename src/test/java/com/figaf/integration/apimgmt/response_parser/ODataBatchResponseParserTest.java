@@ -0,0 +1,201 @@
+package com.figaf.integration.apimgmt.response_parser;
+
+import com.figaf.integration.apimgmt.response_parser.ODataBatchResponseParser.OperationResponse;
+import com.figaf.integration.common.exception.ClientIntegrationException;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ODataBatchResponseParserTest {
+
+    private static final String SUCCESSFUL_RESPONSE = "response_parser/batch_response_successful.txt";
+    private static final String SUCCESSFUL_RESPONSE_BOUNDARY = "batch_6c0e7a1e-2cf4-4d4e-9f0c-5b2d1f0a9e31";
+    private static final String REJECTED_CHANGE_SET_RESPONSE = "response_parser/batch_response_rejected_changeset.txt";
+    private static final String REJECTED_CHANGE_SET_RESPONSE_BOUNDARY = "batch_1f2e3d4c-5b6a-4978-8a9b-0c1d2e3f4a5b";
+
+    @Test
+    void test_parseSuccessfulResponse() throws IOException {
+        List<List<OperationResponse>> changeSetResponses = ODataBatchResponseParser.parseBatchResponse(
+                readResource(SUCCESSFUL_RESPONSE),
+                SUCCESSFUL_RESPONSE_BOUNDARY
+        );
+
+        assertThat(changeSetResponses).hasSize(2);
+        assertThat(changeSetResponses.get(0)).extracting(OperationResponse::getStatusCode).containsExactly(201, 204);
+        assertThat(changeSetResponses.get(0)).allMatch(OperationResponse::isSuccessful);
+        assertThat(changeSetResponses.get(0).get(0).getBody())
+                .startsWith("{\"d\":{\"__metadata\"")
+                .endsWith("\"value\":\"value1\"}}");
+        assertThat(changeSetResponses.get(0).get(0).getErrorMessage()).isNull();
+        assertThat(changeSetResponses.get(0).get(1).getBody()).isNull();
+        assertThat(changeSetResponses.get(1)).extracting(OperationResponse::getStatusCode).containsExactly(204);
+    }
+
+    @Test
+    void test_parseRejectedChangeSet() throws IOException {
+        List<List<OperationResponse>> changeSetResponses = ODataBatchResponseParser.parseBatchResponse(
+                readResource(REJECTED_CHANGE_SET_RESPONSE),
+                REJECTED_CHANGE_SET_RESPONSE_BOUNDARY
+        );
+
+        assertThat(changeSetResponses).hasSize(2);
+        assertThat(changeSetResponses.get(0)).extracting(OperationResponse::getStatusCode).containsExactly(204, 204);
+        // the rejected changeset is answered with one error instead of a response per operation
+        assertThat(changeSetResponses.get(1)).hasSize(1);
+        OperationResponse changeSetError = changeSetResponses.get(1).get(0);
+        assertThat(changeSetError.getStatusCode()).isEqualTo(400);
+        assertThat(changeSetError.isSuccessful()).isFalse();
+        assertThat(changeSetError.getErrorMessage())
+                .isEqualTo("Key map entry value with name 'key2' already exists in key map entry 'FigafApiTestKeyMapEntry'");
+    }
+
+    @Test
+    void test_detectBoundaryFromBody() throws IOException {
+        String body = readResource(SUCCESSFUL_RESPONSE);
+        List<List<OperationResponse>> changeSetResponses = ODataBatchResponseParser.parseBatchResponse(body, null);
+        assertThat(changeSetResponses).hasSize(2);
+        assertThat(changeSetResponses).usingRecursiveComparison()
+                .isEqualTo(ODataBatchResponseParser.parseBatchResponse(body, SUCCESSFUL_RESPONSE_BOUNDARY));
+    }
+
+    @Test
+    void test_parseResponseWithLfLineBreaks() throws IOException {
+        String body = readResource(REJECTED_CHANGE_SET_RESPONSE).replace("\r\n", "\n");
+        List<List<OperationResponse>> changeSetResponses = ODataBatchResponseParser.parseBatchResponse(body, REJECTED_CHANGE_SET_RESPONSE_BOUNDARY);
+        assertThat(changeSetResponses).hasSize(2);
+        assertThat(changeSetResponses.get(0)).extracting(OperationResponse::getStatusCode).containsExactly(204, 204);
+        assertThat(changeSetResponses.get(1)).extracting(OperationResponse::getStatusCode).containsExactly(400);
+    }
+
+    @Test
+    void test_parseQuotedChangeSetBoundary() {
+        String body = lines(
+                "--batch_1",
+                "Content-Type: multipart/mixed; boundary=\"changeset_1\"; charset=utf-8",
+                "",
+                "--changeset_1",
+                "Content-Type: application/http",
+                "",
+                "HTTP/1.1 404 Not Found",
+                "Content-Type: text/plain",
+                "",
+                "Key map entry value not found",
+                "--changeset_1--",
+                "",
+                "--batch_1--"
+        );
+        List<List<OperationResponse>> changeSetResponses = ODataBatchResponseParser.parseBatchResponse(body, "batch_1");
+        assertThat(changeSetResponses).hasSize(1);
+        assertThat(changeSetResponses.get(0)).hasSize(1);
+        assertThat(changeSetResponses.get(0).get(0).getStatusCode()).isEqualTo(404);
+        assertThat(changeSetResponses.get(0).get(0).getErrorMessage()).isEqualTo("Key map entry value not found");
+    }
+
+    @Test
+    void test_getErrorMessage() {
+        assertThat(new OperationResponse(400, "{\"error\":{\"code\":\"1\",\"message\":{\"lang\":\"en\",\"value\":\"Invalid value\"}}}").getErrorMessage())
+                .isEqualTo("Invalid value");
+        assertThat(new OperationResponse(500, "{\"error\":{\"message\":\"Internal error\"}}").getErrorMessage()).isEqualTo("Internal error");
+        assertThat(new OperationResponse(500, "{\"fault\":\"Internal error\"}").getErrorMessage()).isEqualTo("{\"fault\":\"Internal error\"}");
+        assertThat(new OperationResponse(503, "Service Unavailable").getErrorMessage()).isEqualTo("Service Unavailable");
+        assertThat(new OperationResponse(404, null).getErrorMessage()).isNull();
+        assertThat(new OperationResponse(201, "{\"d\":{}}").getErrorMessage()).isNull();
+    }
+
+    @Test
+    void test_isSuccessful() {
+        assertThat(new OperationResponse(200, null).isSuccessful()).isTrue();
+        assertThat(new OperationResponse(299, null).isSuccessful()).isTrue();
+        assertThat(new OperationResponse(199, null).isSuccessful()).isFalse();
+        assertThat(new OperationResponse(300, null).isSuccessful()).isFalse();
+        assertThat(new OperationResponse(412, null).isSuccessful()).isFalse();
+    }
+
+    @Test
+    void test_rejectMissingBody() {
+        assertThatThrownBy(() -> ODataBatchResponseParser.parseBatchResponse(null, "batch_1"))
+                .isInstanceOf(ClientIntegrationException.class)
+                .hasMessageContaining("doesn't have a body");
+    }
+
+    @Test
+    void test_rejectBodyWithoutBoundary() {
+        assertThatThrownBy(() -> ODataBatchResponseParser.parseBatchResponse("<html>Gateway Timeout</html>", null))
+                .isInstanceOf(ClientIntegrationException.class)
+                .hasMessageContaining("Couldn't find boundary");
+    }
+
+    @Test
+    void test_rejectNotClosedPart() {
+        String body = lines(
+                "--batch_1",
+                "Content-Type: application/http",
+                "",
+                "HTTP/1.1 204 No Content",
+                ""
+        );
+        assertThatThrownBy(() -> ODataBatchResponseParser.parseBatchResponse(body, "batch_1"))
+                .isInstanceOf(ClientIntegrationException.class)
+                .hasMessageContaining("isn't closed by boundary batch_1");
+    }
+
+    @Test
+    void test_rejectNotClosedChangeSet() {
+        String body = lines(
+                "--batch_1",
+                "Content-Type: multipart/mixed; boundary=changeset_1",
+                "",
+                "--changeset_1",
+                "Content-Type: application/http",
+                "",
+                "HTTP/1.1 204 No Content",
+                "",
+                "--batch_1--"
+        );
+        assertThatThrownBy(() -> ODataBatchResponseParser.parseBatchResponse(body, "batch_1"))
+                .isInstanceOf(ClientIntegrationException.class)
+                .hasMessageContaining("isn't closed by boundary changeset_1");
+    }
+
+    @Test
+    void test_rejectMalformedStatusLine() {
+        for (String statusLine : new String[]{"HTTP/1.1 OK", "204 No Content", "HTTP/1.1", ""}) {
+            String body = lines(
+                    "--batch_1",
+                    "Content-Type: application/http",
+                    "",
+                    statusLine,
+                    "",
+                    "--batch_1--"
+            );
+            assertThatThrownBy(() -> ODataBatchResponseParser.parseBatchResponse(body, "batch_1"))
+                    .as(statusLine)
+                    .isInstanceOf(ClientIntegrationException.class)
+                    .hasMessageContaining("Couldn't parse status line");
+        }
+    }
+
+    @Test
+    void test_parseBodyWithOtherBoundary() {
+        // the boundary of the header doesn't match the body, so no parts are found
+        assertThat(ODataBatchResponseParser.parseBatchResponse(lines("--batch_2", "", "--batch_2--"), "batch_1")).isEmpty();
+    }
+
+    private static String readResource(String name) throws IOException {
+        try (InputStream inputStream = ODataBatchResponseParserTest.class.getClassLoader().getResourceAsStream(name)) {
+            assertThat(inputStream).as(name).isNotNull();
+            return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String lines(String... lines) {
+        return String.join("\r\n", lines);
+    }
+}
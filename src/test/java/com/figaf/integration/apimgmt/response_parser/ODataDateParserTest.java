@@ -0,0 +1,109 @@
+package com.figaf.integration.apimgmt.response_parser;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.figaf.integration.common.exception.ClientIntegrationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ODataDateParserTest {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Test
+    void test_parseDateLiteral() {
+        assertThat(parseMillis("/Date(1700000000000)/")).isEqualTo(1700000000000L);
+    }
+
+    @Test
+    void test_parseDateLiteralWithOffset() {
+        // the offset only describes the original time zone, the milliseconds are UTC already
+        assertThat(parseMillis("/Date(1700000000000+0100)/")).isEqualTo(1700000000000L);
+        assertThat(parseMillis("/Date(1700000000000-0120)/")).isEqualTo(1700000000000L);
+    }
+
+    @Test
+    void test_parseNegativeMillis() {
+        assertThat(parseMillis("/Date(-86400000)/")).isEqualTo(-86400000L);
+        assertThat(parseMillis("/Date(-86400000+0100)/")).isEqualTo(-86400000L);
+        assertThat(parseMillis("-1")).isEqualTo(-1L);
+    }
+
+    @Test
+    void test_parsePlainMillis() {
+        assertThat(parseMillis("1700000000000")).isEqualTo(1700000000000L);
+        assertThat(parseMillis("0")).isEqualTo(0L);
+    }
+
+    @Test
+    void test_parseLiteralInsideBuffer() {
+        char[] buffer = "xx/Date(42)/yy".toCharArray();
+        assertThat(ODataDateParser.parseMillis(buffer, 2, 10)).isEqualTo(42L);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "abc",
+            "/Date()/",
+            "/Date(1700000000000",
+            "/Date(1700000000000)",
+            "Date(1700000000000)/",
+            "/Date(17000x00000)/",
+            "/Date(1700000000000+)/",
+            "/Date(1700000000000+0100",
+            "/Date(--1)/",
+            "/Date(1700000000000)/ ",
+            "2023-11-14T22:13:20Z",
+            "99999999999999999999"
+    })
+    void test_rejectMalformedLiteral(String value) {
+        assertThatThrownBy(() -> parseMillis(value))
+                .isInstanceOf(ClientIntegrationException.class)
+                .hasMessageContaining("Couldn't parse OData date");
+    }
+
+    @Test
+    void test_parseTimestamp() {
+        assertThat(ODataDateParser.parseTimestamp("/Date(1700000000000)/")).isEqualTo(new Timestamp(1700000000000L));
+        assertThat(ODataDateParser.parseTimestamp(null)).isNull();
+        assertThat(ODataDateParser.parseTimestamp("")).isNull();
+    }
+
+    @Test
+    void test_readTimestamp() throws IOException {
+        assertThat(readTimestamp("\"/Date(1700000000000+0100)/\"")).isEqualTo(new Timestamp(1700000000000L));
+        assertThat(readTimestamp("1700000000000")).isEqualTo(new Timestamp(1700000000000L));
+        assertThat(readTimestamp("\"\"")).isNull();
+        assertThat(readTimestamp("null")).isNull();
+    }
+
+    @Test
+    void test_readTimestampSkipsStructuredValue() throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser("{\"date\": {\"nested\": \"/Date(1)/\"}, \"next\": 1}")) {
+            parser.nextToken();
+            parser.nextFieldName();
+            parser.nextToken();
+            assertThat(ODataDateParser.readTimestamp(parser)).isNull();
+            assertThat(parser.nextFieldName()).isEqualTo("next");
+        }
+    }
+
+    private static long parseMillis(String value) {
+        return ODataDateParser.parseMillis(value.toCharArray(), 0, value.length());
+    }
+
+    private static Timestamp readTimestamp(String json) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            parser.nextToken();
+            return ODataDateParser.readTimestamp(parser);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.figaf.integration.apimgmt.utils;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.figaf.integration.apimgmt.utils.ODataBatchWriterTest.lines;
+import static com.figaf.integration.apimgmt.utils.ODataBatchWriterTest.normalizeChangeSetBoundaries;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ODataBatchRequestBodyTest {
+
+    // same payload as the client writes for a new key map value
+    private static final ODataBatchRequestBody.RequestWriter<String[]> KEY_VALUE_WRITER = (batchWriter, keyAndValue) -> {
+        StringBuilder payload = new StringBuilder("{\"name\":");
+        ODataBatchWriter.appendJsonString(payload, keyAndValue[0]).append(",\"value\":");
+        ODataBatchWriter.appendJsonString(payload, keyAndValue[1]).append('}');
+        batchWriter.writeRequest("POST", "KeyMapEntryValues", "request", payload.toString());
+    };
+
+    @Test
+    void test_writeSeveralChangeSets() throws IOException {
+        ODataBatchRequestBody<String[]> body = new ODataBatchRequestBody<>(
+                "batch_test",
+                Arrays.asList(
+                        Arrays.asList(new String[]{"key \"1\"", "C:\\temp"}, new String[]{"key\t2", "line 1\nline 2"}),
+                        Collections.singletonList(new String[]{"\u00fcber", "\u20ac"})
+                ),
+                KEY_VALUE_WRITER
+        );
+
+        assertThat(normalizeChangeSetBoundaries(read(body.getInputStream()))).isEqualTo(lines(
+                "--batch_test",
+                "Content-Type: multipart/mixed; boundary=changeset_1",
+                "",
+                "--changeset_1",
+                "Content-Type: application/http",
+                "Content-Transfer-Encoding: binary",
+                "",
+                "POST KeyMapEntryValues HTTP/1.1",
+                "RequestId: request",
+                "Accept-Language: en",
+                "Accept: application/json",
+                "MaxDataServiceVersion: 2.0",
+                "DataServiceVersion: 2.0",
+                "Content-Type: application/json",
+                "Content-Length: 39",
+                "",
+                "{\"name\":\"key \\\"1\\\"\",\"value\":\"C:\\\\temp\"}",
+                "--changeset_1",
+                "Content-Type: application/http",
+                "Content-Transfer-Encoding: binary",
+                "",
+                "POST KeyMapEntryValues HTTP/1.1",
+                "RequestId: request",
+                "Accept-Language: en",
+                "Accept: application/json",
+                "MaxDataServiceVersion: 2.0",
+                "DataServiceVersion: 2.0",
+                "Content-Type: application/json",
+                "Content-Length: 42",
+                "",
+                "{\"name\":\"key\\t2\",\"value\":\"line 1\\nline 2\"}",
+                "--changeset_1--",
+                "",
+                "--batch_test",
+                "Content-Type: multipart/mixed; boundary=changeset_2",
+                "",
+                "--changeset_2",
+                "Content-Type: application/http",
+                "Content-Transfer-Encoding: binary",
+                "",
+                "POST KeyMapEntryValues HTTP/1.1",
+                "RequestId: request",
+                "Accept-Language: en",
+                "Accept: application/json",
+                "MaxDataServiceVersion: 2.0",
+                "DataServiceVersion: 2.0",
+                "Content-Type: application/json",
+                "Content-Length: 30",
+                "",
+                "{\"name\":\"\u00fcber\",\"value\":\"\u20ac\"}",
+                "--changeset_2--",
+                "",
+                "--batch_test--",
+                ""
+        ));
+    }
+
+    @Test
+    void test_bodyCanBeReadRepeatedly() throws IOException {
+        ODataBatchRequestBody<String[]> body = new ODataBatchRequestBody<>("batch_test", createChangeSets(3, 2000), KEY_VALUE_WRITER);
+
+        String firstRead = normalizeChangeSetBoundaries(read(body.getInputStream()));
+        String secondRead = normalizeChangeSetBoundaries(read(body.getInputStream()));
+
+        assertThat(firstRead).isEqualTo(secondRead).isEqualTo(normalizeChangeSetBoundaries(writeDirectly(createChangeSets(3, 2000))));
+        assertThat(body.isReadable()).isTrue();
+        assertThat(body.contentLength()).isEqualTo(-1);
+    }
+
+    @Test
+    void test_readByteByByteAndInChunks() throws IOException {
+        // several times bigger than the internal buffer, so the body is generated in several parts
+        List<List<String[]>> changeSets = createChangeSets(4, 3000);
+        ODataBatchRequestBody<String[]> body = new ODataBatchRequestBody<>("batch_test", changeSets, KEY_VALUE_WRITER);
+
+        ByteArrayOutputStream byteByByte = new ByteArrayOutputStream();
+        try (InputStream inputStream = body.getInputStream()) {
+            int value;
+            while ((value = inputStream.read()) != -1) {
+                byteByByte.write(value);
+            }
+            assertThat(inputStream.read()).isEqualTo(-1);
+        }
+
+        ByteArrayOutputStream inChunks = new ByteArrayOutputStream();
+        try (InputStream inputStream = body.getInputStream()) {
+            byte[] chunk = new byte[1000];
+            assertThat(inputStream.read(chunk, 0, 0)).isZero();
+            int read;
+            while ((read = inputStream.read(chunk, 0, chunk.length)) != -1) {
+                inChunks.write(chunk, 0, read);
+            }
+        }
+
+        String expectedBody = normalizeChangeSetBoundaries(writeDirectly(changeSets));
+        assertThat(normalizeChangeSetBoundaries(byteByByte.toString(StandardCharsets.UTF_8.name()))).isEqualTo(expectedBody);
+        assertThat(normalizeChangeSetBoundaries(inChunks.toString(StandardCharsets.UTF_8.name()))).isEqualTo(expectedBody);
+    }
+
+    @Test
+    void test_writeEmptyBody() throws IOException {
+        ODataBatchRequestBody<String[]> body = new ODataBatchRequestBody<>("batch_test", Collections.emptyList(), KEY_VALUE_WRITER);
+        assertThat(read(body.getInputStream())).isEqualTo(lines("--batch_test--", ""));
+    }
+
+    private static List<List<String[]>> createChangeSets(int changeSetCount, int requestsPerChangeSet) {
+        List<List<String[]>> changeSets = new ArrayList<>();
+        for (int changeSetIndex = 0; changeSetIndex < changeSetCount; changeSetIndex++) {
+            List<String[]> changeSet = new ArrayList<>();
+            for (int requestIndex = 0; requestIndex < requestsPerChangeSet; requestIndex++) {
+                changeSet.add(new String[]{"key_" + changeSetIndex + "_" + requestIndex, "v\u00e4lue \"" + requestIndex + "\""});
+            }
+            changeSets.add(changeSet);
+        }
+        return changeSets;
+    }
+
+    private static String writeDirectly(List<List<String[]>> changeSets) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ODataBatchWriter batchWriter = new ODataBatchWriter(outputStream, "batch_test");
+        for (List<String[]> changeSet : changeSets) {
+            batchWriter.startChangeSet();
+            for (String[] keyAndValue : changeSet) {
+                KEY_VALUE_WRITER.write(batchWriter, keyAndValue);
+            }
+            batchWriter.endChangeSet();
+        }
+        batchWriter.finish();
+        return outputStream.toString(StandardCharsets.UTF_8.name());
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+        try (InputStream bodyInputStream = inputStream) {
+            return IOUtils.toString(bodyInputStream, StandardCharsets.UTF_8);
+        }
+    }
+}
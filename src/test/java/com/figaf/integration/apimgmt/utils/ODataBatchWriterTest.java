@@ -0,0 +1,160 @@
+package com.figaf.integration.apimgmt.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ODataBatchWriterTest {
+
+    private static final Pattern CHANGE_SET_BOUNDARY = Pattern.compile("changeset_[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+    @Test
+    void test_writeSeveralChangeSets() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ODataBatchWriter batchWriter = new ODataBatchWriter(outputStream, "batch_test");
+        batchWriter.startChangeSet();
+        batchWriter.writeRequest("POST", "KeyMapEntryValues", "request-1", "{\"name\":\"key\",\"value\":\"value\"}");
+        batchWriter.writeRequest("DELETE", "KeyMapEntryValues(map_name='map',name='old%20key')", "request-1", null);
+        batchWriter.endChangeSet();
+        batchWriter.startChangeSet();
+        batchWriter.writeRequest("PUT", "KeyMapEntryValues(map_name='map',name='key')", "request-2", "{\"value\":\"\u00e4\u20ac\ud83d\ude00\"}");
+        batchWriter.endChangeSet();
+        batchWriter.finish();
+
+        assertThat(normalizeChangeSetBoundaries(outputStream.toString(StandardCharsets.UTF_8.name()))).isEqualTo(lines(
+                "--batch_test",
+                "Content-Type: multipart/mixed; boundary=changeset_1",
+                "",
+                "--changeset_1",
+                "Content-Type: application/http",
+                "Content-Transfer-Encoding: binary",
+                "",
+                "POST KeyMapEntryValues HTTP/1.1",
+                "RequestId: request-1",
+                "Accept-Language: en",
+                "Accept: application/json",
+                "MaxDataServiceVersion: 2.0",
+                "DataServiceVersion: 2.0",
+                "Content-Type: application/json",
+                "Content-Length: 30",
+                "",
+                "{\"name\":\"key\",\"value\":\"value\"}",
+                "--changeset_1",
+                "Content-Type: application/http",
+                "Content-Transfer-Encoding: binary",
+                "",
+                "DELETE KeyMapEntryValues(map_name='map',name='old%20key') HTTP/1.1",
+                "RequestId: request-1",
+                "Accept-Language: en",
+                "Accept: application/json",
+                "MaxDataServiceVersion: 2.0",
+                "DataServiceVersion: 2.0",
+                "",
+                "",
+                "--changeset_1--",
+                "",
+                "--batch_test",
+                "Content-Type: multipart/mixed; boundary=changeset_2",
+                "",
+                "--changeset_2",
+                "Content-Type: application/http",
+                "Content-Transfer-Encoding: binary",
+                "",
+                "PUT KeyMapEntryValues(map_name='map',name='key') HTTP/1.1",
+                "RequestId: request-2",
+                "Accept-Language: en",
+                "Accept: application/json",
+                "MaxDataServiceVersion: 2.0",
+                "DataServiceVersion: 2.0",
+                "Content-Type: application/json",
+                // 10 bytes of the prefix, 2 + 3 + 4 bytes of the characters and 2 bytes of the suffix
+                "Content-Length: 21",
+                "",
+                "{\"value\":\"\u00e4\u20ac\ud83d\ude00\"}",
+                "--changeset_2--",
+                "",
+                "--batch_test--",
+                ""
+        ));
+    }
+
+    @Test
+    void test_everyChangeSetHasNewBoundary() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ODataBatchWriter batchWriter = new ODataBatchWriter(outputStream, "batch_test");
+        for (int i = 0; i < 3; i++) {
+            batchWriter.startChangeSet();
+            batchWriter.writeRequest("DELETE", "KeyMapEntryValues(map_name='map',name='key')", "request", null);
+            batchWriter.endChangeSet();
+        }
+        batchWriter.finish();
+
+        Matcher matcher = CHANGE_SET_BOUNDARY.matcher(outputStream.toString(StandardCharsets.UTF_8.name()));
+        Map<String, Integer> boundaryToOccurrences = new LinkedHashMap<>();
+        while (matcher.find()) {
+            boundaryToOccurrences.merge(matcher.group(), 1, Integer::sum);
+        }
+        // header of the changeset, delimiter of the request and the closing delimiter
+        assertThat(boundaryToOccurrences).hasSize(3).allSatisfy((boundary, occurrences) -> assertThat(occurrences).isEqualTo(3));
+    }
+
+    @Test
+    void test_rejectUnbalancedChangeSets() throws IOException {
+        ODataBatchWriter batchWriter = new ODataBatchWriter(new ByteArrayOutputStream(), "batch_test");
+        assertThatThrownBy(batchWriter::endChangeSet).isInstanceOf(IllegalStateException.class);
+
+        batchWriter.startChangeSet();
+        assertThatThrownBy(batchWriter::startChangeSet).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(batchWriter::finish).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void test_appendJsonString() {
+        assertThat(appendJsonString("plain key")).isEqualTo("\"plain key\"");
+        assertThat(appendJsonString("say \"hi\"")).isEqualTo("\"say \\\"hi\\\"\"");
+        assertThat(appendJsonString("C:\\temp\\")).isEqualTo("\"C:\\\\temp\\\\\"");
+        assertThat(appendJsonString("line 1\nline 2\r\n\tend")).isEqualTo("\"line 1\\nline 2\\r\\n\\tend\"");
+        assertThat(appendJsonString("\b\f\u0000\u001f")).isEqualTo("\"\\b\\f\\u0000\\u001f\"");
+        // only control characters are escaped, the rest is written as UTF-8 by the writer
+        assertThat(appendJsonString("/\u007f\u00e4\u20ac\ud83d\ude00</script>")).isEqualTo("\"/\u007f\u00e4\u20ac\ud83d\ude00</script>\"");
+        assertThat(appendJsonString("")).isEqualTo("\"\"");
+        assertThat(appendJsonString(null)).isEqualTo("null");
+    }
+
+    @Test
+    void test_appendJsonStringToExistingJson() {
+        StringBuilder json = new StringBuilder("{\"name\":");
+        ODataBatchWriter.appendJsonString(json, "key \"1\"").append(",\"value\":");
+        ODataBatchWriter.appendJsonString(json, null).append('}');
+        assertThat(json.toString()).isEqualTo("{\"name\":\"key \\\"1\\\"\",\"value\":null}");
+    }
+
+    static String normalizeChangeSetBoundaries(String body) {
+        Map<String, String> boundaryToPlaceholder = new LinkedHashMap<>();
+        Matcher matcher = CHANGE_SET_BOUNDARY.matcher(body);
+        StringBuffer normalizedBody = new StringBuffer();
+        while (matcher.find()) {
+            String placeholder = boundaryToPlaceholder.computeIfAbsent(matcher.group(), boundary -> "changeset_" + (boundaryToPlaceholder.size() + 1));
+            matcher.appendReplacement(normalizedBody, placeholder);
+        }
+        matcher.appendTail(normalizedBody);
+        return normalizedBody.toString();
+    }
+
+    static String lines(String... lines) {
+        return String.join("\r\n", lines);
+    }
+
+    private static String appendJsonString(String value) {
+        return ODataBatchWriter.appendJsonString(new StringBuilder(), value).toString();
+    }
+}